@@ -46,15 +46,12 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import jolie.Interpreter;
@@ -69,6 +66,7 @@ import jolie.net.http.MultiPartFormDataParser;
 import jolie.net.ports.Interface;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.VariablePath;
@@ -77,7 +75,9 @@ import jolie.runtime.typing.OperationTypeDescription;
 import jolie.runtime.typing.RequestResponseTypeDescription;
 import jolie.runtime.typing.Type;
 import jolie.runtime.typing.TypeCastingException;
+import jolie.runtime.typing.TypeCheckingException;
 import jolie.util.LocationParser;
+import jolie.xml.XmlTools;
 import jolie.xml.XmlUtils;
 import joliex.gwt.client.JolieService;
 import joliex.gwt.server.JolieGWTConverter;
@@ -202,6 +202,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String CONTENT_DISPOSITION = "contentDisposition";
 		private static final String DROP_URI_PATH = "dropURIPath";
 		private static final String CACHE_CONTROL = "cacheControl";
+		private static final String MAX_HEADER_SIZE = "maxHeaderSize";
 
 		private static class MultiPartHeaders {
 			private static final String FILENAME = "filename";
@@ -217,9 +218,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	}
 
 	private String inputId = null;
-	private final Transformer transformer;
-	private final DocumentBuilderFactory docBuilderFactory;
-	private final DocumentBuilder docBuilder;
+	private final XmlTools xmlTools;
 	private final URI uri;
 	private final boolean inInputPort;
 	private MultiPartFormDataParser multiPartFormDataParser = null;
@@ -240,21 +239,12 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		VariablePath configurationPath,
 		URI uri,
 		boolean inInputPort,
-		TransformerFactory transformerFactory,
-		DocumentBuilderFactory docBuilderFactory,
-		DocumentBuilder docBuilder
-	)
-		throws TransformerConfigurationException
-	{
+		XmlTools xmlTools
+	) {
 		super( configurationPath );
 		this.uri = uri;
 		this.inInputPort = inInputPort;
-		this.transformer = transformerFactory.newTransformer();
-		this.docBuilderFactory = docBuilderFactory;
-		this.docBuilder = docBuilder;
-
-		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
-		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+		this.xmlTools = xmlTools;
 	}
 
 	public String getMultipartHeaderForPart( String operationName, String partName )
@@ -446,7 +436,14 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		if ( "xml".equals( format ) ) {
 			ret.contentType = "text/xml";
-			Document doc = docBuilder.newDocument();
+			Document doc;
+			try {
+				DocumentBuilder builder = xmlTools.takeDocumentBuilder();
+				doc = builder.newDocument();
+				xmlTools.giveBack( builder );
+			} catch( ParserConfigurationException e ) {
+				throw new IOException( e );
+			}
 			Element root = doc.createElement( message.operationName() + (( inInputPort ) ? "Response" : "") );
 			doc.appendChild( root );
 			if ( message.isFault() ) {
@@ -459,9 +456,16 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			Source src = new DOMSource( doc );
 			ByteArrayOutputStream tmpStream = new ByteArrayOutputStream();
 			Result dest = new StreamResult( tmpStream );
-			transformer.setOutputProperty( OutputKeys.ENCODING, charset );
 			try {
-				transformer.transform( src, dest );
+				Transformer transformer = xmlTools.takeTransformer();
+				try {
+					transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
+					transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+					transformer.setOutputProperty( OutputKeys.ENCODING, charset );
+					transformer.transform( src, dest );
+				} finally {
+					xmlTools.giveBack( transformer );
+				}
 			} catch( TransformerException e ) {
 				throw new IOException( e );
 			}
@@ -571,17 +575,15 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			}
 		} else if ( "json".equals( format ) ) {
 			ret.contentType = ContentTypes.APPLICATION_JSON;
-			StringBuilder jsonStringBuilder = new StringBuilder();
 			if ( message.isFault() ) {
 				Value error = message.value().getFirstChild( "error" );
 				error.getFirstChild( "code" ).setValue( -32000 );
 				error.getFirstChild( "message" ).setValue( message.fault().faultName() );
 				error.getChildren( "data" ).set( 0, message.fault().value() );
-				JsUtils.faultValueToJsonString( message.value(), getSendType( message ), jsonStringBuilder );
+				ret.content = new ByteArray( JsUtils.faultValueToJsonBytes( message.value(), getSendType( message ), charset ) );
 			} else {
-				JsUtils.valueToJsonString( message.value(), true, getSendType( message ), jsonStringBuilder );
+				ret.content = new ByteArray( JsUtils.valueToJsonBytes( message.value(), true, getSendType( message ), charset ) );
 			}
-			ret.content = new ByteArray( jsonStringBuilder.toString().getBytes( charset ) );
 		} else if ( "raw".equals( format ) ) {
 			ret.contentType = "text/plain";
 			if ( message.isFault() ) {
@@ -920,10 +922,15 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	{
 		try {
 			if ( message.size() > 0 ) {
-				DocumentBuilder builder = docBuilderFactory.newDocumentBuilder();
-				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
-				src.setEncoding( charset );
-				Document doc = builder.parse( src );
+				DocumentBuilder builder = xmlTools.takeDocumentBuilder();
+				Document doc;
+				try {
+					InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
+					src.setEncoding( charset );
+					doc = builder.parse( src );
+				} finally {
+					xmlTools.giveBack( builder );
+				}
 				XmlUtils.documentToValue( doc, value );
 			}
 		} catch( ParserConfigurationException pce ) {
@@ -933,10 +940,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
-	private static void parseJson( HttpMessage message, Value value, boolean strictEncoding, String charset )
-		throws IOException
+	private static void parseJson( HttpMessage message, Value value, boolean strictEncoding, String charset, Type type )
+		throws IOException, TypeCheckingException
 	{
-		JsUtils.parseJsonIntoValue( new InputStreamReader( new ByteArrayInputStream( message.content() ), charset ), value, strictEncoding );
+		JsUtils.parseJsonIntoValue( new InputStreamReader( new ByteArrayInputStream( message.content() ), charset ), value, strictEncoding, type );
 	}
 
 	private static void parseForm( HttpMessage message, Value value, String charset )
@@ -1186,7 +1193,20 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			decodedMessage.value.setValue( new ByteArray( message.content() ) );
 		} else if ( ContentTypes.APPLICATION_JSON.equals( type ) || type.contains( "json" ) ) {
 			boolean strictEncoding = checkStringParameter( Parameters.JSON_ENCODING, "strict" );
-			parseJson( message, decodedMessage.value, strictEncoding, charset );
+			try {
+				parseJson( message, decodedMessage.value, strictEncoding, charset, message.isResponse() ? getRecvResponseType() : getRecvRequestType( message ) );
+			} catch( TypeCheckingException e ) {
+				if ( message.isResponse() ) {
+					// As in SolicitResponseProcess
+					decodedMessage.value = Value.create();
+					decodedMessage.fault = new FaultException(
+						Constants.TYPE_MISMATCH_FAULT_NAME,
+						"Received message TypeMismatch (" + inputId + "@" + channel().parentOutputPort().id() + "): " + e.getMessage()
+					);
+				}
+				// A request keeps the nodes parsed so far, which include the wrong one:
+				// the type check of the input port replies with a TypeMismatch, as for any other request
+			}
 		} else {
 			decodedMessage.value.setValue( new String( message.content(), charset ) );
 		}
@@ -1281,6 +1301,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private Value value = Value.create();
 		private String resourcePath = "/";
 		private long id = CommMessage.GENERIC_ID;
+		private FaultException fault = null;
 	}
 
 	private void recv_checkForStatusCode( HttpMessage message )
@@ -1290,10 +1311,16 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	private int recv_getMaxHeaderSize()
+	{
+		final int size = getIntParameter( Parameters.MAX_HEADER_SIZE );
+		return ( size > 0 ) ? size : HttpParser.DEFAULT_MAX_HEAD_SIZE;
+	}
+
 	public CommMessage recv_internal( InputStream istream, OutputStream ostream )
 		throws IOException
 	{
-		HttpMessage message = new HttpParser( istream ).parse();
+		HttpMessage message = new HttpParser( istream, recv_getMaxHeaderSize() ).parse();
 		String charset = HttpUtils.getCharset( null, message );
 		CommMessage retVal = null;
 		DecodedMessage decodedMessage = new DecodedMessage();
@@ -1354,7 +1381,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			}
 			
 			recv_checkForSetCookie( message, decodedMessage.value );
-			retVal = new CommMessage( decodedMessage.id, inputId, decodedMessage.resourcePath, decodedMessage.value, null );
+			retVal = new CommMessage( decodedMessage.id, inputId, decodedMessage.resourcePath, decodedMessage.value, decodedMessage.fault );
 		} else if ( message.isError() == false ) {
 			recv_checkReceivingOperation( message, decodedMessage );
 			recv_checkForMessageProperties( message, decodedMessage );
@@ -1425,6 +1452,48 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		return HttpUtils.recv( istream, ostream, inInputPort, channel(), this );
 	}
 
+	/*
+	 * Returns the expected type of a received request, if the request path names
+	 * an operation of the input port. Requests for the default operation are not
+	 * checked while parsing, since their body is wrapped in another value.
+	 */
+	private Type getRecvRequestType( HttpMessage message )
+	{
+		if ( !inInputPort || message.requestPath() == null || channel().parentInputPort() == null ) {
+			return null;
+		}
+
+		final String operationName = message.requestPath().split( "\\?", 2 )[0].substring( 1 );
+		if ( LocationParser.RESOURCE_SEPARATOR_PATTERN.matcher( operationName ).find() ) {
+			return null;
+		}
+		OperationTypeDescription opDesc = channel().parentInputPort().getOperationTypeDescription( operationName, Constants.ROOT_RESOURCE_PATH );
+		if ( opDesc == null ) {
+			return null;
+		} else if ( opDesc.asOneWayTypeDescription() != null ) {
+			return opDesc.asOneWayTypeDescription().requestType();
+		} else if ( opDesc.asRequestResponseTypeDescription() != null ) {
+			return opDesc.asRequestResponseTypeDescription().requestType();
+		}
+		return null;
+	}
+
+	/*
+	 * Returns the expected type of the response to the last sent request, if any.
+	 */
+	private Type getRecvResponseType()
+	{
+		if ( inInputPort || inputId == null || channel().parentOutputPort() == null ) {
+			return null;
+		}
+
+		OperationTypeDescription opDesc = channel().parentOutputPort().getOperationTypeDescription( inputId, Constants.ROOT_RESOURCE_PATH );
+		if ( opDesc == null || opDesc.asRequestResponseTypeDescription() == null ) {
+			return null;
+		}
+		return opDesc.asRequestResponseTypeDescription().responseType();
+	}
+
 	private Type getSendType( CommMessage message )
 		throws IOException
 	{
@@ -23,68 +23,36 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URI;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.AndJarDeps;
 import jolie.runtime.CanUseJars;
 import jolie.runtime.VariablePath;
+import jolie.xml.XmlTools;
 
 @AndJarDeps({"jolie-xml.jar","jolie-js.jar","json_simple.jar"})
 @CanUseJars({"gwt-servlet.jar","jolie-gwt.jar","servletapi5.jar"})
 public class HttpProtocolFactory extends CommProtocolFactory
 {
-	private final TransformerFactory transformerFactory;
-	private final DocumentBuilderFactory docBuilderFactory;
-	private final DocumentBuilder docBuilder;
+	// Shared by all the protocols of this factory, so that creating one costs next to nothing
+	private final XmlTools xmlTools = new XmlTools( true );
 
 	public HttpProtocolFactory( CommCore commCore )
-		throws ParserConfigurationException, TransformerConfigurationException
 	{
 		super( commCore );
-		docBuilderFactory = DocumentBuilderFactory.newInstance();
-		docBuilderFactory.setNamespaceAware( true );
-		docBuilder = docBuilderFactory.newDocumentBuilder();
-		transformerFactory = TransformerFactory.newInstance();
 	}
 
 	@Override
 	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new HttpProtocol(
-				configurationPath,
-				location,
-				true,
-				transformerFactory,
-				docBuilderFactory,
-				docBuilder
-			);
-		} catch( TransformerConfigurationException e ) {
-			throw new IOException( e );
-		}
+		return new HttpProtocol( configurationPath, location, true, xmlTools );
 	}
 
 	@Override
 	public CommProtocol createOutputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new HttpProtocol(
-				configurationPath,
-				location,
-				false,
-				transformerFactory,
-				docBuilderFactory,
-				docBuilder
-			);
-		} catch( TransformerConfigurationException e ) {
-			throw new IOException( e );
-		}
+		return new HttpProtocol( configurationPath, location, false, xmlTools );
 	}
 }
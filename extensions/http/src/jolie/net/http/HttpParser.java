@@ -28,92 +28,387 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
-import java.net.URI;
 import java.net.URLDecoder;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
-import jolie.lang.parse.Scanner;
 import jolie.net.ChannelClosingException;
 
+/**
+ * Parses HTTP/1.x messages.
+ *
+ * The message head (start line and header fields) is read in bulk into a
+ * byte buffer and scanned in place, so no intermediate tokens are created.
+ * If the stream supports marking, as the buffered streams of socket channels do,
+ * the head is read ahead and the stream is then repositioned at the start of
+ * the body, leaving any following data in the stream for the next parser.
+ * Otherwise the head is read one byte at a time.
+ */
 public class HttpParser
 {
-	private static final String HTTP = "HTTP";
-	private static final String GET = "GET";
-	private static final String POST = "POST";
-	private static final String PUT = "PUT";
-	private static final String HEAD = "HEAD";
-	private static final String DELETE = "DELETE";
-	private static final String TRACE = "TRACE";
-	private static final String CONNECT = "CONNECT";
-	private static final String OPTIONS = "OPTIONS";
-	private static final String PATCH = "PATCH";
+	private static final byte[] HTTP = { 'H', 'T', 'T', 'P', '/' };
+	private static final byte[] GET = { 'G', 'E', 'T' };
+	private static final byte[] POST = { 'P', 'O', 'S', 'T' };
+	private static final byte[] PUT = { 'P', 'U', 'T' };
+	private static final byte[] HEAD = { 'H', 'E', 'A', 'D' };
+	private static final byte[] DELETE = { 'D', 'E', 'L', 'E', 'T', 'E' };
+	private static final byte[] OPTIONS = { 'O', 'P', 'T', 'I', 'O', 'N', 'S' };
+
+	/*
+	 * Header names which are resolved to these constants instead of
+	 * creating a new String for each received header.
+	 */
+	private static final String[] COMMON_HEADER_NAMES = {
+		"accept", "accept-charset", "accept-encoding", "accept-language",
+		"access-control-request-headers", "access-control-request-method",
+		"authorization", "cache-control", "connection", "content-disposition",
+		"content-encoding", "content-length", "content-type", "cookie", "date",
+		"etag", "expect", "expires", "host", "if-modified-since", "if-none-match",
+		"keep-alive", "last-modified", "location", "origin", "pragma", "referer",
+		"server", "set-cookie", "soapaction", "transfer-encoding", "upgrade",
+		"user-agent", "vary", "www-authenticate", "x-forwarded-for", "x-requested-with"
+	};
+	private static final String[][] COMMON_HEADER_NAMES_BY_LENGTH;
+
+	static {
+		int maxLength = 0;
+		for( String name : COMMON_HEADER_NAMES ) {
+			maxLength = Math.max( maxLength, name.length() );
+		}
+		COMMON_HEADER_NAMES_BY_LENGTH = new String[ maxLength + 1 ][ 0 ];
+		for( String name : COMMON_HEADER_NAMES ) {
+			String[] names = COMMON_HEADER_NAMES_BY_LENGTH[ name.length() ];
+			names = Arrays.copyOf( names, names.length + 1 );
+			names[ names.length - 1 ] = name;
+			COMMON_HEADER_NAMES_BY_LENGTH[ name.length() ] = names;
+		}
+	}
+
+	private static final int INITIAL_HEAD_SIZE = 1024;
+	public static final int DEFAULT_MAX_HEAD_SIZE = 0x10000; // 64K
 
 	private static final Pattern cookiesSplitPattern = Pattern.compile( ";" );
 	private static final Pattern cookieNameValueSplitPattern = Pattern.compile( "=" );
 
-	private final HttpScanner scanner;
-	private Scanner.Token token;
+	private final InputStream stream;
+	private final boolean markSupported;
+	private final int maxHeadSize;
+
+	// Holds the message head, and then the chunk lines and trailers of chunked bodies
+	private byte[] buffer;
+	private int count;
 
-	private void getToken()
+	public HttpParser( InputStream istream )
 		throws IOException
 	{
-		token = scanner.getToken();
+		this( istream, DEFAULT_MAX_HEAD_SIZE );
 	}
 
-	public HttpParser( InputStream istream )
+	/**
+	 * @param istream the stream to read messages from
+	 * @param maxHeadSize the maximum size in bytes of a message head, and of
+	 * a chunk header line or trailer of a chunked body
+	 */
+	public HttpParser( InputStream istream, int maxHeadSize )
 		throws IOException
 	{
-		scanner = new HttpScanner( istream, URI.create( "urn:network" ) );
+		this.stream = istream;
+		this.markSupported = istream.markSupported();
+		this.maxHeadSize = maxHeadSize;
+		this.buffer = new byte[ Math.min( INITIAL_HEAD_SIZE, maxHeadSize ) ];
 	}
 
-	private void tokenAssert( Scanner.TokenType type )
+	private static void throwException()
 		throws IOException
 	{
-		if ( token.isNot( type ) )
-			throwException();
+		throw new IOException( "Malformed HTTP header" );
+	}
+
+	private static boolean isSeparator( int b )
+	{
+		return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+	}
+
+	private static boolean isWhitespace( byte b )
+	{
+		return b == ' ' || b == '\t';
 	}
 
-	private void throwException()
+	private static boolean matches( byte[] b, int offset, int end, byte[] expected )
+	{
+		if ( end - offset != expected.length ) {
+			return false;
+		}
+		for( int i = 0; i < expected.length; i++ ) {
+			if ( b[ offset + i ] != expected[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte toLowerCase( byte b )
+	{
+		return ( b >= 'A' && b <= 'Z' ) ? (byte)(b + ('a' - 'A')) : b;
+	}
+
+	private static String string( byte[] b, int offset, int end )
+	{
+		return new String( b, offset, end - offset, StandardCharsets.ISO_8859_1 );
+	}
+
+	private static int indexOf( byte[] b, int offset, int end, char c )
+	{
+		for( int i = offset; i < end; i++ ) {
+			if ( b[ i ] == c ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the end of the line starting at offset, excluding the line terminator.
+	 */
+	private int lineEnd( int offset )
+	{
+		int i = indexOf( buffer, offset, count, '\n' );
+		if ( i < 0 ) {
+			i = count;
+		}
+		if ( i > offset && buffer[ i - 1 ] == '\r' ) {
+			i--;
+		}
+		return i;
+	}
+
+	/**
+	 * Returns the offset of the line following the one starting at offset.
+	 */
+	private int nextLine( int offset )
+	{
+		int i = indexOf( buffer, offset, count, '\n' );
+		return ( i < 0 ) ? count : i + 1;
+	}
+
+	private void ensureCapacity( int capacity )
 		throws IOException
 	{
-		throw new IOException( "Malformed HTTP header" );
+		if ( capacity > buffer.length ) {
+			if ( capacity > maxHeadSize ) {
+				throw new IOException( "HTTP header exceeds maximum allowed size (" + maxHeadSize + " bytes)" );
+			}
+			buffer = Arrays.copyOf( buffer, Math.min( Math.max( buffer.length * 2, capacity ), maxHeadSize ) );
+		}
 	}
 
-	private void parseHeaderProperties( HttpMessage message )
+	/**
+	 * Scans the bytes in [from, count) for the empty line terminating the message head,
+	 * skipping any separators preceding the start line.
+	 * @return the offset following the empty line, or -1 if the head is not complete yet
+	 */
+	private int findHeadEnd( int from, int start )
+	{
+		for( int i = Math.max( from, start + 1 ); i < count; i++ ) {
+			if ( buffer[ i ] == '\n' ) {
+				if ( buffer[ i - 1 ] == '\n'
+					|| ( buffer[ i - 1 ] == '\r' && buffer[ i - 2 ] == '\n' ) ) {
+					return i + 1;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int skipLeadingSeparators( int from )
+	{
+		for( int i = from; i < count; i++ ) {
+			if ( !isSeparator( buffer[ i ] ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void skipFully( long n )
 		throws IOException
 	{
-		String name, value;
-		getToken();
-		HttpMessage.Cookie cookie;
-		while( token.is( Scanner.TokenType.ID ) ) {
-			name = token.content().toLowerCase();
-			getToken();
-			tokenAssert( Scanner.TokenType.COLON );
-			value = scanner.readLine();
-			if ( "set-cookie".equals( name ) ) {
-				//cookie = parseSetCookie( value );
-				if ( (cookie=parseSetCookie( value )) != null ) {
-					message.addSetCookie( cookie );
+		while( n > 0 ) {
+			long skipped = stream.skip( n );
+			if ( skipped <= 0 ) {
+				throw new EOFException();
+			}
+			n -= skipped;
+		}
+	}
+
+	private void throwEndOfStream( int start )
+		throws IOException
+	{
+		if ( start < 0 ) {
+			// It's not a real message, the client is just closing a connection.
+			throw new ChannelClosingException( "[http] Remote host closed connection." );
+		}
+		throwException();
+	}
+
+	/**
+	 * Reads the message head into the buffer.
+	 * @return the offset of the start line in the buffer
+	 */
+	private int readHead()
+		throws IOException
+	{
+		count = 0;
+		int start = -1;
+		int end = -1;
+		if ( markSupported ) {
+			stream.mark( maxHeadSize );
+			while( end < 0 ) {
+				if ( count == buffer.length ) {
+					ensureCapacity( count + 1 );
+				}
+				int r = stream.read( buffer, count, buffer.length - count );
+				if ( r == -1 ) {
+					throwEndOfStream( start );
+				}
+				int from = count;
+				count += r;
+				if ( start < 0 ) {
+					start = skipLeadingSeparators( from );
+				}
+				if ( start >= 0 ) {
+					end = findHeadEnd( from, start );
 				}
-			} else if ( "cookie".equals( name ) ) {
-				String ss[] = value.split(  ";" );
-				for( String s : ss ) {
-					String nv[] = s.trim().split( "=", 2 );
-					if ( nv.length > 1 ) {
-						message.addCookie( nv[0], nv[1] );
+			}
+			// Leave whatever follows the head in the stream
+			stream.reset();
+			skipFully( end );
+			count = end;
+		} else {
+			int b;
+			while( end < 0 ) {
+				if ( (b=stream.read()) == -1 ) {
+					throwEndOfStream( start );
+				}
+				if ( start < 0 ) {
+					if ( isSeparator( b ) ) {
+						continue;
 					}
+					start = 0;
+				}
+				ensureCapacity( count + 1 );
+				buffer[ count++ ] = (byte)b;
+				if ( b == '\n' ) {
+					end = findHeadEnd( count - 1, start );
+				}
+			}
+		}
+		return start;
+	}
+
+	/**
+	 * Reads a single line into the buffer, used for the chunk headers and trailers of chunked bodies.
+	 * @return the end of the line in the buffer, excluding the line terminator
+	 */
+	private int readLine()
+		throws IOException
+	{
+		count = 0;
+		int b;
+		while( (b=stream.read()) != '\n' ) {
+			if ( b == -1 ) {
+				throw new EOFException();
+			}
+			ensureCapacity( count + 1 );
+			buffer[ count++ ] = (byte)b;
+		}
+		return ( count > 0 && buffer[ count - 1 ] == '\r' ) ? count - 1 : count;
+	}
+
+	/**
+	 * Returns the lower-case name of the header field in [offset, end).
+	 */
+	private static String headerName( byte[] b, int offset, int end )
+	{
+		final int length = end - offset;
+		if ( length < COMMON_HEADER_NAMES_BY_LENGTH.length ) {
+			for( String name : COMMON_HEADER_NAMES_BY_LENGTH[ length ] ) {
+				int i = 0;
+				while( i < length && toLowerCase( b[ offset + i ] ) == name.charAt( i ) ) {
+					i++;
+				}
+				if ( i == length ) {
+					return name;
 				}
-			} else if ( "user-agent".equals( name ) ) {
-				message.setUserAgent( value );
-				message.setProperty( name, value );
-			} else {
-				message.setProperty( name, value );
 			}
-			getToken();
+		}
+		final byte[] name = new byte[ length ];
+		for( int i = 0; i < length; i++ ) {
+			name[ i ] = toLowerCase( b[ offset + i ] );
+		}
+		return new String( name, StandardCharsets.ISO_8859_1 );
+	}
+
+	private void parseHeaderField( HttpMessage message, int offset, int end )
+		throws IOException
+	{
+		if ( isWhitespace( buffer[ offset ] ) ) {
+			// Obsolete line folding is not supported
+			throwException();
+		}
+		int colon = indexOf( buffer, offset, end, ':' );
+		if ( colon < 0 ) {
+			throwException();
+		}
+		int nameEnd = colon;
+		while( nameEnd > offset && isWhitespace( buffer[ nameEnd - 1 ] ) ) {
+			nameEnd--;
+		}
+		if ( nameEnd == offset ) {
+			throwException();
+		}
+		int valueStart = colon + 1;
+		while( valueStart < end && isWhitespace( buffer[ valueStart ] ) ) {
+			valueStart++;
+		}
+		int valueEnd = end;
+		while( valueEnd > valueStart && isWhitespace( buffer[ valueEnd - 1 ] ) ) {
+			valueEnd--;
+		}
+
+		String name = headerName( buffer, offset, nameEnd );
+		String value = string( buffer, valueStart, valueEnd );
+		HttpMessage.Cookie cookie;
+		if ( "set-cookie".equals( name ) ) {
+			if ( (cookie=parseSetCookie( value )) != null ) {
+				message.addSetCookie( cookie );
+			}
+		} else if ( "cookie".equals( name ) ) {
+			String ss[] = value.split(  ";" );
+			for( String s : ss ) {
+				String nv[] = s.trim().split( "=", 2 );
+				if ( nv.length > 1 ) {
+					message.addCookie( nv[0], nv[1] );
+				}
+			}
+		} else if ( "user-agent".equals( name ) ) {
+			message.setUserAgent( value );
+			message.setProperty( name, value );
+		} else {
+			message.setProperty( name, value );
+		}
+	}
+
+	private void parseHeaderProperties( HttpMessage message, int offset )
+		throws IOException
+	{
+		int end;
+		while( offset < count && (end=lineEnd( offset )) > offset ) {
+			parseHeaderField( message, offset, end );
+			offset = nextLine( offset );
 		}
 	}
 
@@ -158,39 +453,73 @@ public class HttpParser
 		return null;
 	}
 
-	private HttpMessage parseRequest()
+	private static HttpMessage.Type requestType( byte[] b, int offset, int end )
+	{
+		if ( matches( b, offset, end, GET ) ) {
+			return HttpMessage.Type.GET;
+		} else if ( matches( b, offset, end, POST ) ) {
+			return HttpMessage.Type.POST;
+		} else if ( matches( b, offset, end, HEAD ) ) {
+			return HttpMessage.Type.HEAD;
+		} else if ( matches( b, offset, end, DELETE ) ) {
+			return HttpMessage.Type.DELETE;
+		} else if ( matches( b, offset, end, PUT ) ) {
+			return HttpMessage.Type.PUT;
+		} else if ( matches( b, offset, end, OPTIONS ) ) {
+			return HttpMessage.Type.OPTIONS;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the offset of the first byte in [offset, end) which is (not) whitespace.
+	 */
+	private int skip( int offset, int end, boolean whitespace )
+	{
+		while( offset < end && isWhitespace( buffer[ offset ] ) == whitespace ) {
+			offset++;
+		}
+		return offset;
+	}
+
+	/**
+	 * Returns true if [offset, end) starts with "HTTP/", ignoring case.
+	 */
+	private boolean isHttpVersion( int offset, int end )
+	{
+		if ( end - offset < HTTP.length ) {
+			return false;
+		}
+		for( int i = 0; i < HTTP.length; i++ ) {
+			if ( Character.toUpperCase( (char)buffer[ offset + i ] ) != HTTP[ i ] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private HttpMessage parseRequest( int offset, int end )
 		throws IOException
 	{
-		HttpMessage message = null;
-		if ( token.isKeyword( GET ) ) {
-			message = new HttpMessage( HttpMessage.Type.GET );
-		} else if ( token.isKeyword( POST ) ) {
-			message = new HttpMessage( HttpMessage.Type.POST );
-		} else if ( token.isKeyword( HEAD ) ) {
-			message = new HttpMessage( HttpMessage.Type.HEAD );
-		} else if ( token.isKeyword( DELETE ) ) {
-			message = new HttpMessage( HttpMessage.Type.DELETE );
-		} else if ( token.isKeyword( PUT ) ) {
-			message = new HttpMessage( HttpMessage.Type.PUT );
-		} else if ( token.isKeyword( OPTIONS ) ) {
-			message = new HttpMessage( HttpMessage.Type.OPTIONS );
-		} else if ( token.is( Scanner.TokenType.EOF ) ) {
-			throw new ChannelClosingException( "[http] Remote host closed connection." ); // It's not a real message, the client is just closing a connection.
-		} else {
+		int methodEnd = skip( offset, end, false );
+		HttpMessage.Type type = requestType( buffer, offset, methodEnd );
+		if ( type == null ) {
 			throw new UnsupportedMethodException( "Unknown/Unsupported HTTP request type: "
-				+ token.content() + "(" + token.type() + ")" );
+				+ string( buffer, offset, methodEnd ) );
 		}
+		HttpMessage message = new HttpMessage( type );
 
-		message.setRequestPath( URLDecoder.decode( scanner.readWord(), HttpUtils.URL_DECODER_ENC ) );
+		int pathStart = skip( methodEnd, end, true );
+		int pathEnd = skip( pathStart, end, false );
+		message.setRequestPath( URLDecoder.decode( string( buffer, pathStart, pathEnd ), HttpUtils.URL_DECODER_ENC ) );
 
-		getToken();
-		if ( !token.isKeywordIgnoreCase( HTTP ) )
+		int versionStart = skip( pathEnd, end, true );
+		if ( !isHttpVersion( versionStart, end ) )
 			throw new UnsupportedHttpVersionException( "Invalid HTTP header: expected HTTP version" );
 
-		if ( scanner.currentCharacter() != '/' )
-			throw new UnsupportedHttpVersionException( "Expected HTTP version" );
-
-		String version = scanner.readWord();
+		versionStart += HTTP.length;
+		int versionEnd = skip( versionStart, end, false );
+		String version = string( buffer, versionStart, versionEnd );
 		if ( "1.0".equals( version ) )
 			message.setVersion( HttpMessage.Version.HTTP_1_0 );
 		else if ( "1.1".equals( version ) )
@@ -201,35 +530,43 @@ public class HttpParser
 		return message;
 	}
 
-	private HttpMessage parseMessageType()
-		throws IOException
-	{
-		if ( token.isKeywordIgnoreCase( HTTP ) ) {
-			return parseResponse();
-		} else {
-			return parseRequest();
-		}
-	}
-
-	private HttpMessage parseResponse()
+	private HttpMessage parseResponse( int offset, int end )
 		throws IOException
 	{
 		HttpMessage message = new HttpMessage( HttpMessage.Type.RESPONSE );
-		if ( scanner.currentCharacter() != '/' )
-			throw new IOException( "Expected HTTP version" );
 
-		String version = scanner.readWord();
+		int versionStart = offset + HTTP.length;
+		int versionEnd = skip( versionStart, end, false );
+		String version = string( buffer, versionStart, versionEnd );
 		if ( !( "1.1".equals( version ) || "1.0".equals( version ) ) )
 			throw new IOException( "Unsupported HTTP version specified: " + version );
 
-		getToken();
-		tokenAssert( Scanner.TokenType.INT );
-		message.setStatusCode( Integer.parseInt( token.content() ) );
-		message.setReason( scanner.readLine() );
+		int statusStart = skip( versionEnd, end, true );
+		int statusEnd = statusStart;
+		int statusCode = 0;
+		while( statusEnd < end && buffer[ statusEnd ] >= '0' && buffer[ statusEnd ] <= '9' ) {
+			statusCode = statusCode * 10 + (buffer[ statusEnd ] - '0');
+			statusEnd++;
+		}
+		if ( statusEnd == statusStart ) {
+			throwException();
+		}
+		message.setStatusCode( statusCode );
+		message.setReason( string( buffer, skip( statusEnd, end, true ), end ) );
 
 		return message;
 	}
 
+	private HttpMessage parseMessageType( int offset, int end )
+		throws IOException
+	{
+		if ( isHttpVersion( offset, end ) ) {
+			return parseResponse( offset, end );
+		} else {
+			return parseRequest( offset, end );
+		}
+	}
+
 	private static void blockingRead( InputStream stream, byte[] buffer, int offset, int length )
 		throws IOException
 	{
@@ -253,11 +590,56 @@ public class HttpParser
 		byte[] tmp = new byte[ BLOCK_SIZE ];
 		while( (r=stream.read( tmp, 0, BLOCK_SIZE )) != -1 ) {
 			c.write( tmp, 0, r );
-			tmp = new byte[ BLOCK_SIZE ];
 		}
 		return c.toByteArray();
 	}
 
+	private int parseChunkSize( int end )
+		throws IOException
+	{
+		// the chunk header contains the size in hex format
+		// and could contain additional parameters which we ignore atm
+		int sizeEnd = indexOf( buffer, 0, end, ';' );
+		if ( sizeEnd < 0 ) {
+			sizeEnd = end;
+		}
+		String chunkSize = string( buffer, 0, sizeEnd ).trim();
+		try {
+			return Integer.parseInt( chunkSize, 16 );
+		} catch ( NumberFormatException e ) {
+			throw new IOException( "Illegal chunk size " + chunkSize );
+		}
+	}
+
+	private byte[] readChunkedContent( HttpMessage message )
+		throws IOException
+	{
+		// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
+		byte[] content = null;
+		int size = 0;
+		int l;
+		while( (l=parseChunkSize( readLine() )) > 0 ) {
+			// parses the real chunk with the specified size, follwed by CR-LF
+			if ( content == null ) {
+				content = new byte[ l ];
+			} else if ( size + l > content.length ) {
+				content = Arrays.copyOf( content, Math.max( content.length * 2, size + l ) );
+			}
+			blockingRead( stream, content, size, l );
+			size += l;
+			readLine();
+		}
+		// parse optional trailer (additional HTTP headers)
+		int end;
+		while( (end=readLine()) > 0 ) {
+			parseHeaderField( message, 0, end );
+		}
+		if ( content == null ) {
+			return new byte[0];
+		}
+		return ( size == content.length ) ? content : Arrays.copyOf( content, size );
+	}
+
 	private void readContent( HttpMessage message )
 		throws IOException
 	{
@@ -285,37 +667,8 @@ public class HttpParser
 		}
 
 		byte buffer[] = null;
-		InputStream stream = scanner.inputStream();
 		if ( chunked ) {
-			// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
-			List< byte[] > chunks = new ArrayList<> ();
-			int l = -1, totalLen = 0;
-			scanner.readChar();
-			do {
-				// the chunk header contains the size in hex format
-				// and could contain additional parameters which we ignore atm
-				String chunkHeader = scanner.readLine( false );
-				String chunkSize = chunkHeader.split( ";", 2 )[0];
-				try {
-					l = Integer.parseInt( chunkSize, 16 );
-				} catch ( NumberFormatException e ) {
-					throw new IOException( "Illegal chunk size " + chunkSize );
-				}
-				// parses the real chunk with the specified size, follwed by CR-LF
-				if ( l > 0 ) {
-					totalLen += l;
-					byte[] chunk = new byte[ l ];
-					blockingRead( stream, chunk, 0, l );
-					chunks.add( chunk );
-					scanner.readChar();
-					scanner.eatSeparators();
-				}
-			} while ( l > 0 );
-			// parse optional trailer (additional HTTP headers)
-			parseHeaderProperties( message );
-			ByteBuffer b = ByteBuffer.allocate( totalLen );
-			chunks.forEach( b::put );
-			buffer = b.array();
+			buffer = readChunkedContent( message );
 		} else if ( contentLength > 0 ) {
 			buffer = new byte[ contentLength ];
 			blockingRead( stream, buffer, 0, contentLength );
@@ -335,7 +688,7 @@ public class HttpParser
 				!message.getPropertyOrEmptyString( "connection" ).equalsIgnoreCase( "keep-alive" )
 				)
 			) {
-				buffer = readAll( scanner.inputStream() );
+				buffer = readAll( stream );
 			}
 		}
 
@@ -355,14 +708,33 @@ public class HttpParser
 		}
 	}
 
+	/**
+	 * Consumes the separators following the message which are already available,
+	 * e.g., the line terminator some clients send after a request body.
+	 */
+	private void eatSeparatorsUntilEOF()
+		throws IOException
+	{
+		if ( markSupported ) {
+			while( stream.available() > 0 ) {
+				stream.mark( 1 );
+				if ( !isSeparator( stream.read() ) ) {
+					stream.reset();
+					return;
+				}
+			}
+		}
+	}
+
 	public HttpMessage parse()
 		throws IOException
 	{
-		getToken();
-		HttpMessage message = parseMessageType();
-		parseHeaderProperties( message );
+		int start = readHead();
+		int startLineEnd = lineEnd( start );
+		HttpMessage message = parseMessageType( start, startLineEnd );
+		parseHeaderProperties( message, nextLine( start ) );
 		readContent( message );
-		scanner.eatSeparatorsUntilEOF();
+		eatSeparatorsUntilEOF();
 		return message;
 	}
 }
@@ -123,9 +123,7 @@ public class JsonRpcProtocol extends SequentialCommProtocol implements HttpUtils
 				value.getFirstChild( "id" ).setValue( message.id() );
 			}
 		}
-		StringBuilder json = new StringBuilder();
-		JsUtils.valueToJsonString( value, true, Type.UNDEFINED, json );
-		ByteArray content = new ByteArray( json.toString().getBytes( "utf-8" ) );
+		ByteArray content = new ByteArray( JsUtils.valueToJsonBytes( value, true, Type.UNDEFINED, "utf-8" ) );
 				
 		StringBuilder httpMessage = new StringBuilder();
 		if (inInputPort) {
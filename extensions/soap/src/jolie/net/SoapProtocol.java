@@ -62,7 +62,6 @@ import javax.wsdl.extensions.soap.SOAPOperation;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.soap.Detail;
 import javax.xml.soap.DetailEntry;
@@ -70,7 +69,6 @@ import javax.xml.soap.MessageFactory;
 import javax.xml.soap.Name;
 import javax.xml.soap.SOAPBody;
 import javax.xml.soap.SOAPBodyElement;
-import javax.xml.soap.SOAPConstants;
 import javax.xml.soap.SOAPElement;
 import javax.xml.soap.SOAPEnvelope;
 import javax.xml.soap.SOAPException;
@@ -83,7 +81,6 @@ import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -108,6 +105,7 @@ import jolie.runtime.typing.OneWayTypeDescription;
 import jolie.runtime.typing.RequestResponseTypeDescription;
 import jolie.runtime.typing.Type;
 import jolie.runtime.typing.TypeCastingException;
+import jolie.xml.XmlTools;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -136,7 +134,7 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 	private final boolean inInputPort;
 	private Definition wsdlDefinition = null;
 	private Port wsdlPort = null;
-	private final TransformerFactory transformerFactory;
+	private final XmlTools xmlTools;
 	private final Map< String, String> namespacePrefixMap = new HashMap< String, String>();
 	private boolean received = false;
 	private String encoding;
@@ -180,27 +178,32 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 		VariablePath configurationPath,
 		URI uri,
 		boolean inInputPort,
-		Interpreter interpreter )
-		throws SOAPException
+		Interpreter interpreter,
+		XmlTools xmlTools,
+		MessageFactory messageFactory )
 	{
 		super( configurationPath );
 		this.uri = uri;
 		this.inInputPort = inInputPort;
-		this.transformerFactory = TransformerFactory.newInstance();
+		this.xmlTools = xmlTools;
 		this.interpreter = interpreter;
-		this.messageFactory = MessageFactory.newInstance( SOAPConstants.SOAP_1_1_PROTOCOL );
+		this.messageFactory = messageFactory;
 	}
 
 	private void parseSchemaElement( Definition definition, Element element, XSOMParser schemaParser )
 		throws IOException
 	{
 		try {
-			Transformer transformer = transformerFactory.newTransformer();
-			transformer.setOutputProperty( OutputKeys.INDENT, "yes" );
 			StringWriter sw = new StringWriter();
 			StreamResult result = new StreamResult( sw );
 			DOMSource source = new DOMSource( element );
-			transformer.transform( source, result );
+			Transformer transformer = xmlTools.takeTransformer();
+			try {
+				transformer.setOutputProperty( OutputKeys.INDENT, "yes" );
+				transformer.transform( source, result );
+			} finally {
+				xmlTools.giveBack( transformer );
+			}
 			InputSource schemaSource = new InputSource( new StringReader( sw.toString() ) );
 			schemaSource.setSystemId( definition.getDocumentBaseURI() );
 			schemaParser.parse( schemaSource );
@@ -1015,18 +1018,21 @@ public class SoapProtocol extends SequentialCommProtocol implements HttpUtils.Ht
 				}
 
 				SOAPMessage soapMessage = messageFactory.createMessage();
-				DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 				/*
 				* Schema messageSchema = getRecvMessageValidationSchema(); if (
 				* messageSchema != null ) {
 				* factory.setIgnoringElementContentWhitespace( true );
 				* factory.setSchema( messageSchema ); }
 				*/
-				factory.setNamespaceAware( true );
-				DocumentBuilder builder = factory.newDocumentBuilder();
-				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
-				src.setEncoding( charset );
-				Document doc = builder.parse( src );
+				DocumentBuilder builder = xmlTools.takeDocumentBuilder();
+				Document doc;
+				try {
+					InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
+					src.setEncoding( charset );
+					doc = builder.parse( src );
+				} finally {
+					xmlTools.giveBack( builder );
+				}
 				DOMSource dom = new DOMSource( doc );
 				soapMessage.getSOAPPart().setContent( dom );
 
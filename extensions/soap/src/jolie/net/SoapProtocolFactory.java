@@ -23,37 +23,44 @@ package jolie.net;
 
 import java.io.IOException;
 import java.net.URI;
+import javax.xml.soap.MessageFactory;
+import javax.xml.soap.SOAPConstants;
 import javax.xml.soap.SOAPException;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.AndJarDeps;
 import jolie.runtime.VariablePath;
+import jolie.xml.XmlTools;
 
-@AndJarDeps({"relaxngDatatype.jar","xsom.jar","wsdl4j.jar"})
+@AndJarDeps({"jolie-xml.jar","relaxngDatatype.jar","xsom.jar","wsdl4j.jar"})
 public class SoapProtocolFactory extends CommProtocolFactory
 {
+	// Shared by all the protocols of this factory, so that creating one costs next to nothing
+	private final XmlTools xmlTools = new XmlTools( true );
+	private final MessageFactory messageFactory;
+
 	public SoapProtocolFactory( CommCore commCore )
+		throws SOAPException
 	{
 		super( commCore );
+		messageFactory = MessageFactory.newInstance( SOAPConstants.SOAP_1_1_PROTOCOL );
 	}
 
 	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new SoapProtocol( configurationPath, location, true, commCore().interpreter() );
-		} catch( SOAPException e ) {
-			throw new IOException( e );
-		}
+		return new SoapProtocol(
+			configurationPath, location, true, commCore().interpreter(),
+			xmlTools, messageFactory
+		);
 	}
 
 	public CommProtocol createOutputProtocol( VariablePath configurationPath, URI location )
 		throws IOException
 	{
-		try {
-			return new SoapProtocol( configurationPath, location, false, commCore().interpreter() );
-		} catch( SOAPException e ) {
-			throw new IOException( e );
-		}
+		return new SoapProtocol(
+			configurationPath, location, false, commCore().interpreter(),
+			xmlTools, messageFactory
+		);
 	}
 }
@@ -21,18 +21,18 @@
 
 package jolie.net;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInput;
 import java.io.DataInputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
-import java.util.LinkedList;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -54,43 +54,193 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		private static final int BOOL = 5;
 		private static final int LONG = 6;
 	}
+
+	/*
+	 * Bits of the flags byte in the message header. Senders that do not
+	 * know about dictionaries only ever write 0 or FAULT.
+	 */
+	private static class MessageFlag {
+		private static final int FAULT = 1;
+		private static final int DICTIONARY = 2;
+		private static final int ALL = FAULT | DICTIONARY;
+	}
+
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	private static final int MAX_PREALLOCATED_VECTOR_SIZE = 1024;
+	// Buffers grown beyond this size are not kept for the next message
+	private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+	// Maximum number of child names remembered per connection and direction
+	private static final int MAX_DICTIONARY_SIZE = 16384;
 	
 	public String name()
 	{
 		return "sodep";
 	}
 
-	private Charset stringCharset = Charset.forName( "UTF8" );
+	@Override
+	public boolean isMultiplexed()
+	{
+		return checkBooleanParameter( "multiplex", false );
+	}
+
+	/*
+	 * Sending and receiving may happen concurrently (see isMultiplexed),
+	 * so each direction has its own state, charset included. Sends are
+	 * serialized by the channel lock, and there is only one reader at a time.
+	 */
+	private Charset outputCharset = Charset.forName( "UTF8" );
+	private Charset inputCharset = Charset.forName( "UTF8" );
+	private ByteBuffer outputBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
+	private CharsetEncoder encoder = null;
+	private byte[] inputBuffer = new byte[ INITIAL_BUFFER_SIZE ];
+	private InputStream lastInputStream = null;
+	private DataInputStream dataInput = null;
+
+	/*
+	 * Child name dictionaries, used when the "dictionary" parameter is set.
+	 * The first time a name is sent it is written in full and both sides
+	 * assign it the next id. Later occurrences are written as that id.
+	 * Messages encoded this way carry the DICTIONARY flag, so the receiver
+	 * does not depend on its own configuration to decode them.
+	 */
+	private final Map< String, Integer > outputDictionary = new HashMap< String, Integer >();
+	private final List< String > inputDictionary = new ArrayList< String >();
+	private boolean outputDictionaryEnabled = false;
+	private boolean inputDictionaryEnabled = false;
 	
-	private String readString( DataInput in )
+	private String readString( DataInputStream in )
 		throws IOException
 	{
 		int len = in.readInt();
 		if ( len > 0 ) {
-			byte[] bb = new byte[ len ];
-			in.readFully( bb );
-			return new String( bb, stringCharset );
+			if ( len > inputBuffer.length ) {
+				inputBuffer = new byte[ Math.max( len, inputBuffer.length * 2 ) ];
+			}
+			in.readFully( inputBuffer, 0, len );
+			final String ret = new String( inputBuffer, 0, len, inputCharset );
+			if ( inputBuffer.length > MAX_RETAINED_BUFFER_SIZE ) {
+				inputBuffer = new byte[ INITIAL_BUFFER_SIZE ];
+			}
+			return ret;
 		}
 		return "";
 	}
-	
-	private void writeString( DataOutput out, String str )
+
+	private void ensureCapacity( int size )
+	{
+		if ( outputBuffer.remaining() < size ) {
+			final ByteBuffer buffer = ByteBuffer.allocate(
+				Math.max( outputBuffer.capacity() * 2, outputBuffer.position() + size )
+			);
+			outputBuffer.flip();
+			buffer.put( outputBuffer );
+			outputBuffer = buffer;
+		}
+	}
+
+	private void writeVarInt( int i )
+	{
+		ensureCapacity( 5 );
+		while( (i & ~0x7F) != 0 ) {
+			outputBuffer.put( (byte)((i & 0x7F) | 0x80) );
+			i >>>= 7;
+		}
+		outputBuffer.put( (byte)i );
+	}
+
+	private static int readVarInt( DataInputStream in )
+		throws IOException
+	{
+		int ret = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if ( shift > 28 ) {
+				throw new IOException( "Malformed sodep message: invalid variable length integer" );
+			}
+			b = in.readByte();
+			ret |= (b & 0x7F) << shift;
+			shift += 7;
+		} while( (b & 0x80) != 0 );
+		return ret;
+	}
+
+	private void writeKey( String key )
+	{
+		if ( outputDictionaryEnabled ) {
+			final Integer id = outputDictionary.get( key );
+			if ( id == null ) {
+				writeVarInt( 0 );
+				writeString( key );
+				if ( outputDictionary.size() < MAX_DICTIONARY_SIZE ) {
+					outputDictionary.put( key, outputDictionary.size() + 1 );
+				}
+			} else {
+				writeVarInt( id );
+			}
+		} else {
+			writeString( key );
+		}
+	}
+
+	private String readKey( DataInputStream in )
 		throws IOException
+	{
+		if ( inputDictionaryEnabled ) {
+			final int id = readVarInt( in );
+			if ( id == 0 ) {
+				String key = readString( in );
+				if ( inputDictionary.size() < MAX_DICTIONARY_SIZE ) {
+					key = key.intern();
+					inputDictionary.add( key );
+				}
+				return key;
+			} else if ( id > inputDictionary.size() ) {
+				throw new IOException( "Malformed sodep message: unknown child name id " + id );
+			}
+			return inputDictionary.get( id - 1 );
+		}
+		return readString( in );
+	}
+
+	private CharsetEncoder encoder()
+	{
+		if ( encoder == null || encoder.charset().equals( outputCharset ) == false ) {
+			encoder = outputCharset.newEncoder()
+				.onMalformedInput( CodingErrorAction.REPLACE )
+				.onUnmappableCharacter( CodingErrorAction.REPLACE );
+		}
+		return encoder;
+	}
+	
+	private void writeString( String str )
 	{
 		if ( str.isEmpty() ) {
-			out.writeInt( 0 );
+			ensureCapacity( 4 );
+			outputBuffer.putInt( 0 );
 		} else {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			Writer writer = new OutputStreamWriter( bos, stringCharset );
-			writer.write( str );
-			writer.close();
-			byte[] bb = bos.toByteArray();
-			out.writeInt( bb.length );
-			out.write( bb );
+			// We encode directly after the length, which is filled in later
+			ensureCapacity( 4 + str.length() );
+			final int lengthPosition = outputBuffer.position();
+			outputBuffer.position( lengthPosition + 4 );
+			final CharsetEncoder enc = encoder();
+			final CharBuffer chars = CharBuffer.wrap( str );
+			enc.reset();
+			CoderResult result = enc.encode( chars, outputBuffer, true );
+			while( result.isOverflow() ) {
+				ensureCapacity( outputBuffer.capacity() );
+				result = enc.encode( chars, outputBuffer, true );
+			}
+			result = enc.flush( outputBuffer );
+			while( result.isOverflow() ) {
+				ensureCapacity( outputBuffer.capacity() );
+				result = enc.flush( outputBuffer );
+			}
+			outputBuffer.putInt( lengthPosition, outputBuffer.position() - lengthPosition - 4 );
 		}
 	}
 	
-	private ByteArray readByteArray( DataInput in )
+	private ByteArray readByteArray( DataInputStream in )
 		throws IOException
 	{
 		int size = in.readInt();
@@ -105,87 +255,90 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		return ret;
 	}
 
-	private void writeByteArray( DataOutput out, ByteArray byteArray )
-		throws IOException
+	private void writeByteArray( ByteArray byteArray )
 	{
 		int size = byteArray.size();
-		out.writeInt( size );
+		ensureCapacity( 4 + size );
+		outputBuffer.putInt( size );
 		if ( size > 0 ) {
-			out.write( byteArray.getBytes() );
+			outputBuffer.put( byteArray.getBytes() );
 		}
 	}
 	
-	private void writeFault( DataOutput out, FaultException fault )
-		throws IOException
+	private void writeFault( FaultException fault )
 	{
-		writeString( out, fault.faultName() );
-		writeValue( out, fault.value() );
+		writeString( fault.faultName() );
+		writeValue( fault.value() );
 	}
 	
-	private void writeValue( DataOutput out, Value value )
-		throws IOException
+	private void writeValue( Value value )
 	{
 		Object valueObject = value.valueObject();
+		ensureCapacity( 9 );
 		if ( valueObject == null ) {
-			out.writeByte( DataTypeHeaderId.NULL );
+			outputBuffer.put( (byte)DataTypeHeaderId.NULL );
 		} else if ( valueObject instanceof String ) {
-			out.writeByte( DataTypeHeaderId.STRING );
-			writeString( out, (String)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.STRING );
+			writeString( (String)valueObject );
 		} else if ( valueObject instanceof Integer ) {
-			out.writeByte( DataTypeHeaderId.INT );
-			out.writeInt( (Integer)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.INT );
+			outputBuffer.putInt( (Integer)valueObject );
 		} else if ( valueObject instanceof Double ) {
-			out.writeByte( DataTypeHeaderId.DOUBLE );
-			out.writeDouble( (Double)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.DOUBLE );
+			outputBuffer.putDouble( (Double)valueObject );
 		} else if ( valueObject instanceof ByteArray ) {
-			out.writeByte( DataTypeHeaderId.BYTE_ARRAY );
-			writeByteArray( out, (ByteArray)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.BYTE_ARRAY );
+			writeByteArray( (ByteArray)valueObject );
 		} else if ( valueObject instanceof Boolean ) {
-			out.writeByte( DataTypeHeaderId.BOOL );
-			out.writeBoolean( (Boolean)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.BOOL );
+			outputBuffer.put( (Boolean)valueObject ? (byte)1 : (byte)0 );
 		} else if ( valueObject instanceof Long ) {
-			out.writeByte( DataTypeHeaderId.LONG );
-			out.writeLong( (Long)valueObject );
+			outputBuffer.put( (byte)DataTypeHeaderId.LONG );
+			outputBuffer.putLong( (Long)valueObject );
 		} else {
-			out.writeByte( DataTypeHeaderId.NULL );
+			outputBuffer.put( (byte)DataTypeHeaderId.NULL );
 		}
 
-		Map< String, ValueVector > children = value.children();
-		List< Entry< String, ValueVector > > entries =
-					new LinkedList< Entry< String, ValueVector > >();
-		for( Entry< String, ValueVector > entry : children.entrySet() ) {
-			// if ( !entry.getKey().startsWith( "@" ) ) {
-				entries.add( entry );
-			// }
+		if ( !value.hasChildren() ) {
+			// Leaves are the majority of nodes: do not make them create a children map
+			ensureCapacity( 4 );
+			outputBuffer.putInt( 0 );
+			return;
 		}
 
-		out.writeInt( entries.size() );
-		for( Entry< String, ValueVector > entry : entries ) {
-			writeString( out, entry.getKey() );
-			out.writeInt( entry.getValue().size() );
+		Map< String, ValueVector > children = value.children();
+		ensureCapacity( 4 );
+		outputBuffer.putInt( children.size() );
+		for( Entry< String, ValueVector > entry : children.entrySet() ) {
+			writeKey( entry.getKey() );
+			ensureCapacity( 4 );
+			outputBuffer.putInt( entry.getValue().size() );
 			for( Value v : entry.getValue() ) {
-				writeValue( out, v );
+				writeValue( v );
 			}
 		}
 	}
 	
-	private void writeMessage( DataOutput out, CommMessage message )
-		throws IOException
+	private void writeMessage( CommMessage message )
 	{
-		out.writeLong( message.id() );
-		writeString( out, message.resourcePath() );
-		writeString( out, message.operationName() );
+		ensureCapacity( 8 );
+		outputBuffer.putLong( message.id() );
+		writeString( message.resourcePath() );
+		writeString( message.operationName() );
 		FaultException fault = message.fault();
-		if ( fault == null ) {
-			out.writeBoolean( false );
-		} else {
-			out.writeBoolean( true );
-			writeFault( out, fault );
+		int flags = outputDictionaryEnabled ? MessageFlag.DICTIONARY : 0;
+		if ( fault != null ) {
+			flags |= MessageFlag.FAULT;
+		}
+		ensureCapacity( 1 );
+		outputBuffer.put( (byte)flags );
+		if ( fault != null ) {
+			writeFault( fault );
 		}
-		writeValue( out, message.value() );
+		writeValue( message.value() );
 	}
 	
-	private Value readValue( DataInput in )
+	private Value readValue( DataInputStream in )
 		throws IOException
 	{
 		Value value = Value.create();
@@ -217,16 +370,21 @@ public class SodepProtocol extends ConcurrentCommProtocol
 
 		value.setValue( valueObject );
 				
-		Map< String, ValueVector > children = value.children();
 		String s;
 		int n, i, size, k;
 		n = in.readInt(); // How many children?
+		if ( n == 0 ) {
+			return value;
+		}
+
+		Map< String, ValueVector > children = value.children();
 		ValueVector vec;
 		
 		for( i = 0; i < n; i++ ) {
-			s = readString( in );
-			vec = ValueVector.create();
+			s = readKey( in );
 			size = in.readInt();
+			// The size comes from the wire: do not trust it for more than a bounded preallocation
+			vec = ValueVector.create( Math.max( 0, Math.min( size, MAX_PREALLOCATED_VECTOR_SIZE ) ) );
 			for( k = 0; k < size; k++ ) {
 				vec.add( readValue( in ) );
 			}
@@ -235,7 +393,7 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		return value;
 	}
 	
-	private FaultException readFault( DataInput in )
+	private FaultException readFault( DataInputStream in )
 		throws IOException
 	{
 		String faultName = readString( in );
@@ -243,14 +401,19 @@ public class SodepProtocol extends ConcurrentCommProtocol
 		return new FaultException( faultName, value );
 	}
 	
-	private CommMessage readMessage( DataInput in )
+	private CommMessage readMessage( DataInputStream in )
 		throws IOException
 	{
-		Long id = in.readLong();
+		long id = in.readLong();
 		String resourcePath = readString( in );
 		String operationName = readString( in );
+		final int flags = in.readByte();
+		if ( (flags & ~MessageFlag.ALL) != 0 ) {
+			throw new IOException( "Malformed sodep message: unsupported header flags " + flags );
+		}
+		inputDictionaryEnabled = (flags & MessageFlag.DICTIONARY) != 0;
 		FaultException fault = null;
-		if ( in.readBoolean() == true ) {
+		if ( (flags & MessageFlag.FAULT) != 0 ) {
 			fault = readFault( in );
 		}
 		Value value = readValue( in );
@@ -269,11 +432,18 @@ public class SodepProtocol extends ConcurrentCommProtocol
 
 		String charset = getStringParameter( "charset" );
 		if ( !charset.isEmpty() ) {
-			stringCharset = Charset.forName( charset );
+			outputCharset = Charset.forName( charset );
+		}
+
+		outputDictionaryEnabled = checkBooleanParameter( "dictionary", false );
+
+		// The whole message is encoded in our buffer and then written at once
+		outputBuffer.clear();
+		writeMessage( message );
+		ostream.write( outputBuffer.array(), 0, outputBuffer.position() );
+		if ( outputBuffer.capacity() > MAX_RETAINED_BUFFER_SIZE ) {
+			outputBuffer = ByteBuffer.allocate( INITIAL_BUFFER_SIZE );
 		}
-		
-		final DataOutputStream oos = new DataOutputStream( ostream );
-		writeMessage( oos, message );
 	}
 
 	public CommMessage recv( InputStream istream, OutputStream ostream )
@@ -283,10 +453,13 @@ public class SodepProtocol extends ConcurrentCommProtocol
 
 		String charset = getStringParameter( "charset" );
 		if ( !charset.isEmpty() ) {
-			stringCharset = Charset.forName( charset );
+			inputCharset = Charset.forName( charset );
 		}
-		
-		final DataInputStream ios = new DataInputStream( istream );
-		return readMessage( ios );
+
+		if ( istream != lastInputStream ) {
+			lastInputStream = istream;
+			dataInput = new DataInputStream( istream );
+		}
+		return readMessage( dataInput );
 	}
-}
\ No newline at end of file
+}
@@ -42,7 +42,6 @@ import org.w3c.dom.Node;
 import org.xml.sax.SAXException;
 import java.io.ByteArrayInputStream;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.Source;
 import javax.xml.transform.dom.DOMSource;
@@ -52,6 +51,7 @@ import jolie.net.http.HttpUtils;
 import jolie.net.http.Method;
 import jolie.net.http.UnsupportedMethodException;
 import jolie.net.protocols.SequentialCommProtocol;
+import jolie.xml.XmlTools;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.xml.sax.InputSource;
@@ -88,10 +88,8 @@ import org.w3c.dom.NodeList;
 public class XmlRpcProtocol extends SequentialCommProtocol implements HttpUtils.HttpProtocol
 {
 	private String inputId = null;
-	final private Transformer transformer;
 	final private Interpreter interpreter;
-	final private DocumentBuilderFactory docBuilderFactory;
-	final private DocumentBuilder docBuilder;
+	final private XmlTools xmlTools;
 	final private URI uri;
 	private final boolean inInputPort;
 	private boolean received = false;
@@ -124,22 +122,14 @@ public class XmlRpcProtocol extends SequentialCommProtocol implements HttpUtils.
 		VariablePath configurationPath,
 		URI uri,
 		boolean inInputPort,
-		Transformer transformer,
-		DocumentBuilderFactory docBuilderFactory,
-		DocumentBuilder docBuilder,
+		XmlTools xmlTools,
 		Interpreter interpreter )
 	{
 		super( configurationPath );
 		this.uri = uri;
-		this.transformer = transformer;
 		this.inInputPort = inInputPort;
 		this.interpreter = interpreter;
-		this.docBuilderFactory = docBuilderFactory;
-		this.docBuilder = docBuilder;
-
-		transformer.setOutputProperty( OutputKeys.ENCODING, "utf-8" );
-		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "no" );
-		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+		this.xmlTools = xmlTools;
 	}
 
 	private static Element getFirstElement( Element element, String name )
@@ -307,7 +297,14 @@ public class XmlRpcProtocol extends SequentialCommProtocol implements HttpUtils.
 	public void send_internal( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException
 	{
-		Document doc = docBuilder.newDocument();
+		Document doc;
+		try {
+			DocumentBuilder builder = xmlTools.takeDocumentBuilder();
+			doc = builder.newDocument();
+			xmlTools.giveBack( builder );
+		} catch( ParserConfigurationException e ) {
+			throw new IOException( e );
+		}
 		// root element <methodCall>
 		String rootName = "methodCall";
 		if ( received ) {
@@ -382,7 +379,15 @@ public class XmlRpcProtocol extends SequentialCommProtocol implements HttpUtils.
 		ByteArrayOutputStream tmpStream = new ByteArrayOutputStream();
 		Result dest = new StreamResult( tmpStream );
 		try {
-			transformer.transform( src, dest );
+			Transformer transformer = xmlTools.takeTransformer();
+			try {
+				transformer.setOutputProperty( OutputKeys.ENCODING, "utf-8" );
+				transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "no" );
+				transformer.setOutputProperty( OutputKeys.INDENT, "no" );
+				transformer.transform( src, dest );
+			} finally {
+				xmlTools.giveBack( transformer );
+			}
 		} catch ( TransformerException e ) {
 			throw new IOException( e );
 		}
@@ -471,10 +476,14 @@ public class XmlRpcProtocol extends SequentialCommProtocol implements HttpUtils.
 			}
 
 			try {
-				DocumentBuilder builder = docBuilderFactory.newDocumentBuilder();
-				InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
-				src.setEncoding( charset );
-				doc = builder.parse( src );
+				DocumentBuilder builder = xmlTools.takeDocumentBuilder();
+				try {
+					InputSource src = new InputSource( new ByteArrayInputStream( message.content() ) );
+					src.setEncoding( charset );
+					doc = builder.parse( src );
+				} finally {
+					xmlTools.giveBack( builder );
+				}
 				if ( message.isResponse() ) {
 					// test if the message contains a fault
 					try {
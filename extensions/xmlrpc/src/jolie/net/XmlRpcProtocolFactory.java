@@ -28,31 +28,17 @@ import java.net.URI;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.VariablePath;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Transformer;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.OutputKeys;
 import jolie.runtime.AndJarDeps;
+import jolie.xml.XmlTools;
 
 @AndJarDeps( {"jolie-xml.jar"} )
 public class XmlRpcProtocolFactory extends CommProtocolFactory
 {
-	final private Transformer transformer;
-	final private DocumentBuilderFactory docBuilderFactory;
-	final private DocumentBuilder docBuilder;
+	final private XmlTools xmlTools = new XmlTools( true );
 
 	public XmlRpcProtocolFactory( CommCore commCore )
-		throws ParserConfigurationException, TransformerConfigurationException
 	{
 		super( commCore );
-		docBuilderFactory = DocumentBuilderFactory.newInstance();
-		docBuilderFactory.setNamespaceAware( true );
-		docBuilder = docBuilderFactory.newDocumentBuilder();
-		transformer = TransformerFactory.newInstance().newTransformer();
-		transformer.setOutputProperty( OutputKeys.OMIT_XML_DECLARATION, "yes" );
 	}
 
 	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
@@ -62,9 +48,7 @@ public class XmlRpcProtocolFactory extends CommProtocolFactory
 			configurationPath,
 			location,
 			true,
-			transformer,
-			docBuilderFactory,
-			docBuilder,
+			xmlTools,
 			commCore().interpreter()
 		);
 	}
@@ -76,9 +60,7 @@ public class XmlRpcProtocolFactory extends CommProtocolFactory
 			configurationPath,
 			location,
 			false,
-			transformer,
-			docBuilderFactory,
-			docBuilder,
+			xmlTools,
 			commCore().interpreter()
 		);
 	}
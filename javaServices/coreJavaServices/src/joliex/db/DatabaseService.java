@@ -34,13 +34,16 @@ import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TimerTask;
 import jolie.runtime.ByteArray;
 import jolie.runtime.CanUseJars;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
+import jolie.runtime.embedding.FreshReturnValue;
 import jolie.runtime.embedding.RequestResponse;
+import joliex.db.impl.ConnectionPool;
 import joliex.db.impl.NamedStatementParser;
 
 /**
@@ -62,27 +65,29 @@ import joliex.db.impl.NamedStatementParser;
 } )
 public class DatabaseService extends JavaService
 {
-	private Connection connection = null;
-	private String connectionString = null;
-	private String username = null;
-	private String password = null;
+	/*
+	 * Statements run in parallel, each on a connection borrowed from the pool.
+	 * Operations borrow from the pool they read here, and give the connection
+	 * back to the same pool even if connect or close replace it meanwhile.
+	 */
+	private volatile ConnectionPool pool = null;
 	private String driver = null;
 	private static boolean toLowerCase = false;
 	private static boolean toUpperCase = false;
-	private boolean mustCheckConnection = false;
-	private final Object transactionMutex = new Object();
 	private final static String templateField = "_template";
 
+	private final static int DEFAULT_MIN_POOL_SIZE = 1;
+	private final static int DEFAULT_MAX_POOL_SIZE = 10;
+	private final static long DEFAULT_IDLE_TIMEOUT = 60000L; // milliseconds
+	private final static long MIN_MAINTENANCE_INTERVAL = 1000L; // milliseconds
+
 	@Override
 	protected void finalize()
 		throws Throwable
 	{
 		try {
-			if ( connection != null ) {
-				try {
-					connection.close();
-				} catch( SQLException e ) {
-				}
+			if ( pool != null ) {
+				pool.close();
 			}
 		} finally {
 			super.finalize();
@@ -90,26 +95,21 @@ public class DatabaseService extends JavaService
 	}
 
 	@RequestResponse
-	public void close()
+	public synchronized void close()
 	{
-		if ( connection != null ) {
-			try {
-				connectionString = null;
-				username = null;
-				password = null;
-				connection.close();
-			} catch( SQLException e ) {
-			}
+		if ( pool != null ) {
+			pool.close();
+			pool = null;
 		}
 	}
 	
 	@RequestResponse
-	public void connect( Value request )
+	public synchronized void connect( Value request )
 		throws FaultException
 	{
 		close();
 
-		mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
+		final boolean mustCheckConnection = request.getFirstChild( "checkConnection" ).intValue() > 0;
 
 		toLowerCase = request.getFirstChild( "toLowerCase" ).isDefined() && request.getFirstChild( "toLowerCase" ).boolValue();
 
@@ -119,11 +119,13 @@ public class DatabaseService extends JavaService
 		String host = request.getChildren( "host" ).first().strValue();
 		String port = request.getChildren( "port" ).first().strValue();
 		String databaseName = request.getChildren( "database" ).first().strValue();
-		username = request.getChildren( "username" ).first().strValue();
-		password = request.getChildren( "password" ).first().strValue();
+		final String username = request.getChildren( "username" ).first().strValue();
+		final String password = request.getChildren( "password" ).first().strValue();
 		String attributes = request.getFirstChild( "attributes" ).strValue();
 		String separator = "/";
 		boolean isEmbedded = false;
+		String connectionString;
+		int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
 
 		try {
 			if ( "postgresql".equals( driver ) ) {
@@ -135,6 +137,8 @@ public class DatabaseService extends JavaService
 			} else if ( "sqlite".equals( driver ) ) {
 				Class.forName( "org.sqlite.JDBC" );
 				isEmbedded = true;
+				// Each connection to an in-memory SQLite database has its own database
+				maxPoolSize = 1;
 			} else if ( "sqlserver".equals( driver ) ) {
 				Class.forName( "com.microsoft.sqlserver.jdbc.SQLServerDriver" );
 				separator = ";";
@@ -165,29 +169,31 @@ public class DatabaseService extends JavaService
 				if ( !attributes.isEmpty() ) {
 					connectionString += ";" + attributes;
 				}
-				if ( "hsqldb".equals( driver ) ) {
-					connection = DriverManager.getConnection(
-						connectionString,
-						username,
-						password );
-				} else {
-					connection = DriverManager.getConnection( connectionString );
-				}
 			} else {
 				if ( driver.startsWith( "hsqldb" ) ) {
 					connectionString = "jdbc:" + driver + ":" + driver.substring( driver.indexOf( '_' ) + 1 ) + "//" + host + (port.isEmpty() ? "" : ":" + port) + separator + databaseName;
 				} else {
 					connectionString = "jdbc:" + driver + "://" + host + (port.isEmpty() ? "" : ":" + port) + separator + databaseName;
 				}
-				connection = DriverManager.getConnection(
-					connectionString,
-					username,
-					password );
 			}
 
-			if ( connection == null ) {
-				throw new FaultException( "ConnectionError" );
-			}
+			final String url = connectionString;
+			final ConnectionPool.ConnectionFactory factory =
+				( isEmbedded && !"hsqldb".equals( driver ) )
+				? () -> DriverManager.getConnection( url )
+				: () -> DriverManager.getConnection( url, username, password );
+			final String validationDriver = driver;
+			final Value poolConfig = request.getFirstChild( "pool" );
+			final ConnectionPool newPool = new ConnectionPool(
+				factory,
+				mustCheckConnection ? connection -> isValid( validationDriver, connection ) : null,
+				poolConfig.hasChildren( "minSize" ) ? poolConfig.getFirstChild( "minSize" ).intValue() : DEFAULT_MIN_POOL_SIZE,
+				poolConfig.hasChildren( "maxSize" ) ? poolConfig.getFirstChild( "maxSize" ).intValue() : maxPoolSize,
+				poolConfig.hasChildren( "idleTimeout" ) ? poolConfig.getFirstChild( "idleTimeout" ).longValue() : DEFAULT_IDLE_TIMEOUT,
+				poolConfig.getFirstChild( "borrowTimeout" ).longValue()
+			);
+			pool = newPool;
+			scheduleMaintenance( newPool );
 		} catch( ClassNotFoundException e ) {
 			throw new FaultException( "DriverClassNotFound", e );
 		} catch( SQLException e ) {
@@ -195,36 +201,55 @@ public class DatabaseService extends JavaService
 		}
 	}
 
-	private void _checkConnection()
-		throws FaultException
+	private void scheduleMaintenance( final ConnectionPool pool )
 	{
-		if ( connection == null ) {
-			throw new FaultException( "ConnectionError" );
+		if ( pool.idleTimeout() <= 0 ) {
+			return;
 		}
-		if ( mustCheckConnection ) {
-			try {
-				if ( "postgresql".equals( driver ) ) {
-					/* The JDBC4 driver for postgresql does not implemented isValid().
-					 * We fallback to isClosed().
-					 */
-
-					if ( connection.isClosed() ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
-					}
-				} else {
-					if ( !connection.isValid( 0 ) ) {
-						connection = DriverManager.getConnection(
-							connectionString,
-							username,
-							password );
+		final long interval = Math.max( MIN_MAINTENANCE_INTERVAL, pool.idleTimeout() / 2 );
+		interpreter().schedule( new TimerTask() {
+			@Override
+			public void run()
+			{
+				// Opening and closing connections may block: do not hold the timer
+				interpreter().execute( () -> {
+					if ( pool.maintain() ) {
+						scheduleMaintenance( pool );
 					}
-				}
-			} catch( SQLException e ) {
-				throw new FaultException( "ConnectionError", e );
+				} );
 			}
+		}, interval );
+	}
+
+	private static boolean isValid( String driver, Connection connection )
+		throws SQLException
+	{
+		if ( "postgresql".equals( driver ) ) {
+			/* The JDBC4 driver for postgresql does not implemented isValid().
+			 * We fallback to isClosed().
+			 */
+			return !connection.isClosed();
+		}
+		return connection.isValid( 0 );
+	}
+
+	private ConnectionPool getPool()
+		throws FaultException
+	{
+		final ConnectionPool p = pool;
+		if ( p == null ) {
+			throw new FaultException( "ConnectionError" );
+		}
+		return p;
+	}
+
+	private static Connection borrowConnection( ConnectionPool pool )
+		throws FaultException
+	{
+		try {
+			return pool.borrow();
+		} catch( SQLException e ) {
+			throw new FaultException( "ConnectionError", e );
 		}
 	}
 
@@ -232,38 +257,44 @@ public class DatabaseService extends JavaService
 	public void checkConnection()
 		throws FaultException
 	{
+		final ConnectionPool pool = getPool();
+		final Connection connection = borrowConnection( pool );
+		final boolean valid;
 		try {
-			if ( "postgresql".equals( driver ) ) {
-				/* The JDBC4 driver for postgresql does not implemented isValid().
-				 * We fallback to isClosed().
-				 */
-
-				if ( connection == null || connection.isClosed() ) {
-					throw new FaultException( "ConnectionError" );
-				}
-			} else {
-
-				if ( connection == null || !connection.isValid( 0 ) ) {
-					throw new FaultException( "ConnectionError" );
-				}
-			}
+			valid = isValid( driver, connection );
 		} catch( SQLException e ) {
+			pool.invalidate( connection );
 			throw new FaultException( "ConnectionError", e );
 		}
+		if ( valid ) {
+			pool.release( connection );
+		} else {
+			pool.invalidate( connection );
+			throw new FaultException( "ConnectionError" );
+		}
+	}
+
+	/**
+	 * Returns the state of the connection pool and the counters of its activity.
+	 */
+	@RequestResponse
+	public Value poolStats()
+		throws FaultException
+	{
+		return getPool().stats();
 	}
 
 	@RequestResponse
 	public Value update( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool pool = getPool();
+		final Connection connection = borrowConnection( pool );
 		Value resultValue = Value.create();
 		PreparedStatement stm = null;
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				resultValue.setValue( stm.executeUpdate() );
-			}
+			stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
+			resultValue.setValue( stm.executeUpdate() );
 		} catch( SQLException e ) {
 			throw createFaultException( e );
 		} finally {
@@ -273,6 +304,7 @@ public class DatabaseService extends JavaService
 				} catch( SQLException e ) {
 				}
 			}
+			pool.release( connection );
 		}
 		return resultValue;
 	}
@@ -446,13 +478,16 @@ public class DatabaseService extends JavaService
 	}
 
 	@RequestResponse
+	@FreshReturnValue
 	public Value executeTransaction( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool pool = getPool();
+		final Connection connection = borrowConnection( pool );
+		boolean reusable = true;
 		Value resultValue = Value.create();
 		ValueVector resultVector = resultValue.getChildren( "result" );
-		synchronized( transactionMutex ) {
+		try {
 			try {
 				connection.setAutoCommit( false );
 			} catch( SQLException e ) {
@@ -486,7 +521,7 @@ public class DatabaseService extends JavaService
 					try {
 						connection.rollback();
 					} catch( SQLException e1 ) {
-						connection = null;
+						reusable = false;
 					}
 					throw createFaultException( e );
 				} finally {
@@ -503,14 +538,23 @@ public class DatabaseService extends JavaService
 			try {
 				connection.commit();
 			} catch( SQLException e ) {
+				reusable = false;
 				throw createFaultException( e );
-			} finally {
+			}
+		} finally {
+			// Other operations expect auto-commit: do not give back a connection we could not restore
+			if ( reusable ) {
 				try {
 					connection.setAutoCommit( true );
 				} catch( SQLException e ) {
-					throw createFaultException( e );
+					reusable = false;
 				}
 			}
+			if ( reusable ) {
+				pool.release( connection );
+			} else {
+				pool.invalidate( connection );
+			}
 		}
 		return resultValue;
 	}
@@ -528,24 +572,24 @@ public class DatabaseService extends JavaService
 	}
 
 	@RequestResponse
+	@FreshReturnValue
 	public Value query( Value request )
 		throws FaultException
 	{
-		_checkConnection();
+		final ConnectionPool pool = getPool();
+		final Connection connection = borrowConnection( pool );
 		Value resultValue = Value.create();
 		PreparedStatement stm = null;
 
 		try {
-			synchronized( transactionMutex ) {
-				stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
-				ResultSet result = stm.executeQuery();
-				if ( request.hasChildren( templateField ) ) {
-					resultSetToValueVectorWithTemplate( result, resultValue.getChildren( "row" ), request.getFirstChild( templateField ) );
-				} else {
-					resultSetToValueVector( result, resultValue.getChildren( "row" ) );
-				}
-				result.close();
+			stm = new NamedStatementParser( connection, request.strValue(), request ).getPreparedStatement();
+			ResultSet result = stm.executeQuery();
+			if ( request.hasChildren( templateField ) ) {
+				resultSetToValueVectorWithTemplate( result, resultValue.getChildren( "row" ), request.getFirstChild( templateField ) );
+			} else {
+				resultSetToValueVector( result, resultValue.getChildren( "row" ) );
 			}
+			result.close();
 		} catch( SQLException e ) {
 			throw createFaultException( e );
 		} finally {
@@ -555,6 +599,7 @@ public class DatabaseService extends JavaService
 				} catch( SQLException e ) {
 				}
 			}
+			pool.release( connection );
 		}
 
 		return resultValue;
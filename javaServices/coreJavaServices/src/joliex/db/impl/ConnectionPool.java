@@ -0,0 +1,423 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.db.impl;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import jolie.runtime.Value;
+
+/**
+ * A bounded pool of JDBC connections.
+ *
+ * The pool opens connections on demand, up to its maximum size, and keeps the
+ * released ones for reuse. Connections can be validated when they are borrowed:
+ * invalid connections are closed and replaced.
+ * {@link #maintain()} closes the connections that have been idle for too long,
+ * and opens new ones if fewer than the minimum size are open.
+ *
+ * Each borrowed connection must be given back with {@link #release(java.sql.Connection)},
+ * or with {@link #invalidate(java.sql.Connection)} if it is not usable anymore.
+ *
+ * @author agent
+ */
+public class ConnectionPool
+{
+	@FunctionalInterface
+	public interface ConnectionFactory
+	{
+		public Connection create()
+			throws SQLException;
+	}
+
+	@FunctionalInterface
+	public interface ConnectionValidator
+	{
+		public boolean isValid( Connection connection )
+			throws SQLException;
+	}
+
+	private static class IdleConnection
+	{
+		private final Connection connection;
+		private final long releaseTime;
+
+		private IdleConnection( Connection connection, long releaseTime )
+		{
+			this.connection = connection;
+			this.releaseTime = releaseTime;
+		}
+	}
+
+	private final ConnectionFactory factory;
+	private final ConnectionValidator validator;
+	private final int minSize;
+	private final int maxSize;
+	private final long idleTimeout;
+	private final long borrowTimeout;
+
+	// Most recently released first, so that the others can become idle for long enough to be closed
+	private final ArrayDeque< IdleConnection > idle = new ArrayDeque<>();
+	private int size = 0; // open connections, idle or borrowed
+	private int waiting = 0;
+	private boolean closed = false;
+	// Guards the state of the pool. Not a monitor, which would pin the carrier
+	// of virtual threads waiting for a connection.
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = lock.newCondition();
+
+	private long borrowed = 0L;
+	private long opened = 0L;
+	private long evicted = 0L;
+	private long invalidated = 0L;
+	private long timeouts = 0L;
+
+	/**
+	 * Creates a pool, opening its first minSize connections.
+	 * @param factory opens the connections of the pool
+	 * @param validator checks the connections when they are borrowed, or null for no checks
+	 * @param minSize the number of connections to keep open even if they are idle
+	 * @param maxSize the maximum number of open connections
+	 * @param idleTimeout the time (ms) after which an idle connection can be closed,
+	 * or 0 to keep idle connections open
+	 * @param borrowTimeout the maximum time (ms) to wait for a connection when
+	 * maxSize connections are borrowed, or 0 to wait indefinitely
+	 * @throws SQLException if a connection could not be opened
+	 */
+	public ConnectionPool(
+		ConnectionFactory factory,
+		ConnectionValidator validator,
+		int minSize,
+		int maxSize,
+		long idleTimeout,
+		long borrowTimeout
+	)
+		throws SQLException
+	{
+		this.factory = factory;
+		this.validator = validator;
+		this.maxSize = Math.max( 1, maxSize );
+		this.minSize = Math.min( Math.max( 0, minSize ), this.maxSize );
+		this.idleTimeout = Math.max( 0L, idleTimeout );
+		this.borrowTimeout = Math.max( 0L, borrowTimeout );
+
+		try {
+			for( int i = 0; i < this.minSize; i++ ) {
+				idle.addLast( new IdleConnection( open(), System.currentTimeMillis() ) );
+				size++;
+			}
+		} catch( SQLException e ) {
+			close();
+			throw e;
+		}
+	}
+
+	public long idleTimeout()
+	{
+		return idleTimeout;
+	}
+
+	private Connection open()
+		throws SQLException
+	{
+		final Connection connection = factory.create();
+		if ( connection == null ) {
+			throw new SQLException( "Could not open a connection" );
+		}
+		lock.lock();
+		try {
+			opened++;
+		} finally {
+			lock.unlock();
+		}
+		return connection;
+	}
+
+	private static void closeQuietly( Connection connection )
+	{
+		try {
+			connection.close();
+		} catch( SQLException e ) {}
+	}
+
+	/**
+	 * Returns an open connection, waiting for one to be released if
+	 * the maximum number of connections are borrowed.
+	 * @return a connection, which must be given back to this pool
+	 * @throws SQLException if the pool is closed, if a connection could not be opened,
+	 * or if no connection has been released in time
+	 */
+	public Connection borrow()
+		throws SQLException
+	{
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( borrowTimeout );
+		while( true ) {
+			final IdleConnection candidate;
+			lock.lock();
+			try {
+				candidate = takeOrReserve( deadline );
+			} finally {
+				lock.unlock();
+			}
+
+			if ( candidate == null ) {
+				// We reserved room for a new connection
+				final Connection connection;
+				try {
+					connection = open();
+				} catch( SQLException e ) {
+					discard( null );
+					throw e;
+				}
+				countBorrow();
+				return connection;
+			}
+
+			if ( isValid( candidate.connection ) ) {
+				countBorrow();
+				return candidate.connection;
+			}
+			closeQuietly( candidate.connection );
+			discard( candidate.connection );
+		}
+	}
+
+	/**
+	 * Returns an idle connection, or null if there was none but a new one can be opened,
+	 * in which case its room has been reserved.
+	 * Must be called holding lock, which is released while waiting.
+	 */
+	private IdleConnection takeOrReserve( long deadline )
+		throws SQLException
+	{
+		while( true ) {
+			if ( closed ) {
+				throw new SQLException( "The connection pool is closed" );
+			}
+			final IdleConnection candidate = idle.pollFirst();
+			if ( candidate != null ) {
+				return candidate;
+			}
+			if ( size < maxSize ) {
+				size++;
+				return null;
+			}
+
+			long timeout = 0L;
+			if ( borrowTimeout > 0 ) {
+				timeout = TimeUnit.NANOSECONDS.toMillis( deadline - System.nanoTime() );
+				if ( timeout <= 0 ) {
+					timeouts++;
+					throw new SQLException( "No connection has been released within " + borrowTimeout + " ms (pool size: " + maxSize + ")" );
+				}
+			}
+			waiting++;
+			try {
+				if ( timeout > 0 ) {
+					released.await( timeout, TimeUnit.MILLISECONDS );
+				} else {
+					released.await();
+				}
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				throw new SQLException( "Interrupted while waiting for a connection", e );
+			} finally {
+				waiting--;
+			}
+		}
+	}
+
+	private void countBorrow()
+	{
+		lock.lock();
+		try {
+			borrowed++;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private boolean isValid( Connection connection )
+	{
+		if ( validator == null ) {
+			return true;
+		}
+		try {
+			return validator.isValid( connection );
+		} catch( SQLException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Forgets a connection which has been closed, or the room reserved for a connection
+	 * which could not be opened, letting another one be opened.
+	 */
+	private void discard( Connection connection )
+	{
+		lock.lock();
+		try {
+			size--;
+			if ( connection != null ) {
+				invalidated++;
+			}
+			released.signal();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives a borrowed connection back to this pool, for reuse.
+	 * @param connection the connection to give back
+	 */
+	public void release( Connection connection )
+	{
+		lock.lock();
+		try {
+			if ( !closed ) {
+				idle.addFirst( new IdleConnection( connection, System.currentTimeMillis() ) );
+				released.signal();
+				return;
+			}
+			size--;
+		} finally {
+			lock.unlock();
+		}
+		closeQuietly( connection );
+	}
+
+	/**
+	 * Gives back a borrowed connection which is not usable anymore, e.g., because it
+	 * was left in an unknown state by an error. The connection is closed.
+	 * @param connection the connection to give back
+	 */
+	public void invalidate( Connection connection )
+	{
+		closeQuietly( connection );
+		discard( connection );
+	}
+
+	/**
+	 * Closes the connections idle for longer than the idle timeout, keeping at least
+	 * the minimum number of connections open, and opens new connections
+	 * if fewer than the minimum are open.
+	 * @return <code>false</code> if this pool is closed, <code>true</code> otherwise
+	 */
+	public boolean maintain()
+	{
+		final List< Connection > expired = new ArrayList<>();
+		int missing;
+		lock.lock();
+		try {
+			if ( closed ) {
+				return false;
+			}
+			if ( idleTimeout > 0 ) {
+				final long limit = System.currentTimeMillis() - idleTimeout;
+				// The least recently released connections are at the end
+				final Iterator< IdleConnection > it = idle.descendingIterator();
+				while( it.hasNext() && size > minSize ) {
+					final IdleConnection c = it.next();
+					if ( c.releaseTime > limit ) {
+						break;
+					}
+					it.remove();
+					expired.add( c.connection );
+					size--;
+					evicted++;
+				}
+			}
+			missing = minSize - size;
+			size += Math.max( 0, missing );
+		} finally {
+			lock.unlock();
+		}
+
+		for( Connection connection : expired ) {
+			closeQuietly( connection );
+		}
+		for( ; missing > 0; missing-- ) {
+			try {
+				release( open() );
+			} catch( SQLException e ) {
+				// We will try again next time
+				discard( null );
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Closes this pool and its idle connections.
+	 * Borrowed connections are closed when they are given back.
+	 */
+	public void close()
+	{
+		final List< IdleConnection > connections;
+		lock.lock();
+		try {
+			closed = true;
+			connections = new ArrayList<>( idle );
+			size -= idle.size();
+			idle.clear();
+			released.signalAll();
+		} finally {
+			lock.unlock();
+		}
+		for( IdleConnection c : connections ) {
+			closeQuietly( c.connection );
+		}
+	}
+
+	/**
+	 * Returns the current state of this pool and the counters of its activity.
+	 * @return the statistics of this pool
+	 */
+	public Value stats()
+	{
+		lock.lock();
+		try {
+			final Value stats = Value.create();
+			stats.getFirstChild( "minSize" ).setValue( minSize );
+			stats.getFirstChild( "maxSize" ).setValue( maxSize );
+			stats.getFirstChild( "size" ).setValue( size );
+			stats.getFirstChild( "idle" ).setValue( idle.size() );
+			stats.getFirstChild( "active" ).setValue( size - idle.size() );
+			stats.getFirstChild( "waiting" ).setValue( waiting );
+			stats.getFirstChild( "borrowed" ).setValue( borrowed );
+			stats.getFirstChild( "opened" ).setValue( opened );
+			stats.getFirstChild( "evicted" ).setValue( evicted );
+			stats.getFirstChild( "invalidated" ).setValue( invalidated );
+			stats.getFirstChild( "timeouts" ).setValue( timeouts );
+			return stats;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -26,11 +26,13 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.lang.Constants.EmbeddedServiceType;
+import jolie.monitoring.MonitoringEventDispatcher;
 import jolie.net.CommListener;
 import jolie.net.LocalCommChannel;
 import jolie.net.ports.OutputPort;
@@ -84,7 +86,16 @@ public class RuntimeService extends JavaService
 				true );
 		port.optimizeLocation();
 
-		interpreter.setMonitor( port );
+		final Value queueSize = request.getFirstChild( "queueSize" );
+		final Value batchSize = request.getFirstChild( "batchSize" );
+		interpreter.setMonitor(
+			port,
+			queueSize.isDefined() ? queueSize.intValue() : MonitoringEventDispatcher.DEFAULT_CAPACITY,
+			batchSize.isDefined() ? batchSize.intValue() : MonitoringEventDispatcher.DEFAULT_BATCH_SIZE,
+			"oldest".equals( request.getFirstChild( "dropPolicy" ).strValue() )
+				? MonitoringEventDispatcher.DropPolicy.DROP_OLDEST
+				: MonitoringEventDispatcher.DropPolicy.DROP_NEWEST
+		);
 	}
 
 	@RequestResponse
@@ -106,6 +117,7 @@ public class RuntimeService extends JavaService
 			l.setValue( locationValue.strValue() );
 		}
 		r.getFirstChild( name ).getFirstChild( Constants.PROTOCOL_NODE_NAME ).refCopy( protocolValue );
+		interpreter.invalidateSessionStateTemplate();
 
 		r = ExecutionThread.currentThread().state().root();
 		l = r.getFirstChild( name ).getFirstChild( Constants.LOCATION_NODE_NAME );
@@ -314,8 +326,17 @@ public class RuntimeService extends JavaService
 		final Value stats = Value.create();
 		stats_files( stats.getFirstChild( "files" ) );
 		stats_os( stats.getFirstChild( "os" ) );
+		stats_memory( stats.getFirstChild( "memory" ) );
 		return stats;
 	}
+
+	private void stats_memory( Value stats )
+	{
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		stats.setFirstChild( "used", heap.getUsed() );
+		stats.setFirstChild( "committed", heap.getCommitted() );
+		stats.setFirstChild( "max", heap.getMax() );
+	}
 	
 	private void stats_os( Value stats )
 	{
@@ -30,6 +30,7 @@ import jolie.runtime.AndJarDeps;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
 import jolie.runtime.Value;
+import jolie.runtime.embedding.FreshReturnValue;
 import jolie.runtime.typing.Type;
 
 /**
@@ -55,6 +56,7 @@ public class JsonUtilsService extends JavaService
 		return ret;
 	}
 
+	@FreshReturnValue
 	public Value getJsonValue( Value request ) throws FaultException
 	{
 		Value ret = Value.create();
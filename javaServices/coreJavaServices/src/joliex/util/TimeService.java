@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import jolie.net.CommMessage;
 import jolie.runtime.FaultException;
 import jolie.runtime.JavaService;
+import jolie.runtime.TimeoutHandler;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.embedding.RequestResponse;
@@ -65,8 +66,7 @@ public class TimeService extends JavaService
 
 	private TimeThread thread = null;
 	private final DateFormat dateFormat, dateTimeFormat;
-	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-	private final Map<Long, ScheduledFuture> scheduledFutureHashMap = new ConcurrentHashMap<>();
+	private final Map< Long, TimeoutHandler > timeoutHandlers = new ConcurrentHashMap<>();
 	private final AtomicLong atomicLong = new AtomicLong();
 
 	public TimeService()
@@ -441,18 +441,30 @@ public class TimeService extends JavaService
 			operationName = "timeout";
 		}
 
-		ScheduledFuture scheduledFuture = executor.schedule( () -> {
-			sendMessage( CommMessage.createRequest( operationName, "/", request.getFirstChild( "message" ) ) );
-		}, request.intValue(), unit );
-		scheduledFutureHashMap.put(timeoutId, scheduledFuture);
+		final Value message = request.getFirstChild( "message" );
+		// Timeout handlers are held weakly by the interpreter: the map keeps them until they run or are cancelled
+		final TimeoutHandler handler = new TimeoutHandler( unit.toMillis( request.longValue() ) ) {
+			@Override
+			protected void onTimeout()
+			{
+				if ( timeoutHandlers.remove( timeoutId ) != null && !interpreter().isExiting() ) {
+					sendMessage( CommMessage.createRequest( operationName, "/", message ) );
+				}
+			}
+		};
+		timeoutHandlers.put( timeoutId, handler );
+		interpreter().addTimeoutHandler( handler );
 		return timeoutId;
 	}
 
 	@RequestResponse
 	public Boolean cancelTimeout( Value request )
 	{
-		long timeoutId = request.longValue();
-		ScheduledFuture f = scheduledFutureHashMap.remove( timeoutId );
-		return f != null && f.cancel( false );
+		final TimeoutHandler handler = timeoutHandlers.remove( request.longValue() );
+		if ( handler == null ) {
+			return false;
+		}
+		handler.cancel();
+		return true;
 	}
 }
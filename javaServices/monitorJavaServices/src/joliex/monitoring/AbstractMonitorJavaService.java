@@ -23,6 +23,7 @@ package joliex.monitoring;
 
 import jolie.monitoring.MonitoringEvent;
 import jolie.runtime.JavaService;
+import jolie.runtime.Value;
 
 /**
  * Abstract class for implementing a {@link JavaService} supporting monitoring.
@@ -31,4 +32,19 @@ import jolie.runtime.JavaService;
 public abstract class AbstractMonitorJavaService extends JavaService
 {
 	public abstract void pushEvent( MonitoringEvent e );
+
+	/**
+	 * Receives a batch of events from a monitored interpreter.
+	 * The default implementation passes each event to {@link #pushEvent(jolie.monitoring.MonitoringEvent)}.
+	 *
+	 * request:
+	 *     .events*: MonitorEvent
+	 *     .dropped: long (events dropped by the interpreter so far)
+	 */
+	public void pushEvents( Value request )
+	{
+		for( Value event : request.getChildren( "events" ) ) {
+			pushEvent( MonitoringEvent.fromValue( event ) );
+		}
+	}
 }
@@ -41,6 +41,7 @@ public class StandardMonitor extends AbstractMonitorJavaService
 	private int queueMax;
 	private int triggerThreshold;
 	private boolean alert;
+	private long dropped = 0L;
 
 	public StandardMonitor()
 	{
@@ -70,6 +71,15 @@ public class StandardMonitor extends AbstractMonitorJavaService
 		}
 	}
 
+	@Override
+	public void pushEvents( Value request )
+	{
+		synchronized( this ) {
+			super.pushEvents( request );
+			dropped = request.getFirstChild( "dropped" ).longValue();
+		}
+	}
+
 
 	public Value flush() {
 		synchronized( this ) {
@@ -84,6 +94,7 @@ public class StandardMonitor extends AbstractMonitorJavaService
 				response.getChildren( "events" ).get( index ).getFirstChild( "type" ).setValue( e.type() );
 				index++;
 			}
+			response.getFirstChild( "dropped" ).setValue( dropped );
 			q.clear();
 			alert = false;
 			return response;
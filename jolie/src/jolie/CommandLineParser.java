@@ -63,6 +63,8 @@ public class CommandLineParser implements Closeable
 
 	private final int connectionsLimit;
 	private final int connectionsCache;
+	private final long connectionsCacheWait;
+	private final boolean virtualThreads;
 	private final CorrelationEngine.Type correlationAlgorithmType;
 	private final String[] includePaths;
 	private final String[] optionArgs;
@@ -76,6 +78,8 @@ public class CommandLineParser implements Closeable
 	private final boolean isProgramCompiled;
 	private final boolean typeCheck;
 	private final boolean tracer;
+	private final String traceFile;
+	private final int traceLimit;
         private final boolean check;
 	private final Level logLevel;
 	private File programDirectory = null;
@@ -110,6 +114,29 @@ public class CommandLineParser implements Closeable
 	{
 		return tracer;
 	}
+
+	/**
+	 * Returns the path of the file to record traces to, or {@code null} if
+	 * the traceFile option has not been specified.
+	 *
+	 * @return the path of the file to record traces to
+	 * @see jolie.tracer.BinaryTracer
+	 */
+	public String traceFile()
+	{
+		return traceFile;
+	}
+
+	/**
+	 * Returns the maximum number of bytes recorded for each message payload
+	 * in the trace file.
+	 *
+	 * @return the maximum number of bytes recorded for each message payload
+	 */
+	public int traceLimit()
+	{
+		return traceLimit;
+	}
         
         	/**
 	 * Returns
@@ -206,6 +233,26 @@ public class CommandLineParser implements Closeable
 	{
 		return connectionsCache;
 	}
+
+	/**
+	 * Returns the connection cache waiting time parameter
+	 * passed by command line with the --conncachewait option.
+	 * @return the connection cache waiting time parameter passed by command line
+	 */
+	public long connectionsCacheWait()
+	{
+		return connectionsCacheWait;
+	}
+
+	/**
+	 * Returns <code>true</code> if virtual threads were requested
+	 * by command line with the --threads option.
+	 * @return <code>true</code> if virtual threads were requested by command line
+	 */
+	public boolean virtualThreads()
+	{
+		return virtualThreads;
+	}
 	
 	private static String getOptionString( String option, String description )
 	{
@@ -245,7 +292,11 @@ public class CommandLineParser implements Closeable
 		helpBuilder.append(
 				getOptionString( "--connlimit [number]", "Set the maximum number of active connection threads" ) );
 		helpBuilder.append(
-				getOptionString( "--conncache [number]", "Set the maximum number of cached persistent output connections" ) );
+				getOptionString( "--conncache [number]", "Set the maximum number of cached persistent output connections per location" ) );
+		helpBuilder.append(
+				getOptionString( "--conncachewait [milliseconds]", "Set the maximum time to wait for a cached persistent output connection when all of them are busy (default: 0)" ) );
+		helpBuilder.append(
+				getOptionString( "--threads [platform|virtual]", "Set the kind of threads running sessions and connections; virtual threads need a Java runtime supporting them (default: platform)" ) );
 		helpBuilder.append(
 				getOptionString( "--correlationAlgorithm [simple|hash]", "Set the algorithm to use for message correlation" ) );
 		helpBuilder.append(
@@ -256,6 +307,10 @@ public class CommandLineParser implements Closeable
 				getOptionString( "--check", "Check for syntactic and semantic errors." ) );
 		helpBuilder.append(
 				getOptionString( "--trace", "Activate tracer" ) );
+		helpBuilder.append(
+				getOptionString( "--traceFile [file]", "Activate tracer, recording traces in binary form to file.0, file.1, ... instead of printing them (replaces previous traces). Use jolie.tracer.TraceFilePrinter to print them" ) );
+		helpBuilder.append(
+				getOptionString( "--traceLimit [bytes]", "Set the maximum number of bytes recorded for each message payload by --traceFile, 0 to record none (default: 1024)" ) );
 		helpBuilder.append(
 				getOptionString( "--charset [character encoding, eg. UTF-8]", "Character encoding of the source *.ol/*.iol (default: system-dependent, on GNU/Linux UTF-8)" ) );
 		helpBuilder.append(
@@ -368,6 +423,8 @@ public class CommandLineParser implements Closeable
 		String csetAlgorithmName = "simple";
 		List< String > optionsList = new ArrayList<>();
 		boolean bTracer = false;
+		String sTraceFile = null;
+		int iTraceLimit = jolie.tracer.BinaryTracer.DEFAULT_PAYLOAD_LIMIT;
 		boolean bCheck = false;
 		boolean bTypeCheck = false; // Default for typecheck
 		Level lLogLevel = Level.INFO;
@@ -376,6 +433,8 @@ public class CommandLineParser implements Closeable
 		List< String > libList = new ArrayList<>();
 		int cLimit = -1;
 		int cCache = 100;
+		long cCacheWait = 0L;
+		boolean bVirtualThreads = false;
 		String pwd = new File( "" ).getCanonicalPath();
 		includeList.add( pwd );
 		includeList.add( "include" );
@@ -426,6 +485,23 @@ public class CommandLineParser implements Closeable
 				i++;
 				cCache = Integer.parseInt( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if ( "--conncachewait".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cCacheWait = Long.parseLong( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--threads".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				String threadsStr = argsList.get( i );
+				optionsList.add( argsList.get( i ) );
+				if ( "virtual".equals( threadsStr ) ) {
+					bVirtualThreads = true;
+				} else if ( "platform".equals( threadsStr ) ) {
+					bVirtualThreads = false;
+				} else {
+					throw new CommandLineException( "Unrecognized kind of threads: " + threadsStr );
+				}
 			} else if ( "--correlationAlgorithm".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
@@ -447,6 +523,16 @@ public class CommandLineParser implements Closeable
 			} else if ( "--trace".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bTracer = true;
+			} else if ( "--traceFile".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				sTraceFile = argsList.get( i );
+				optionsList.add( argsList.get( i ) );
+			} else if ( "--traceLimit".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				iTraceLimit = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
 			} else if ( "--log".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
@@ -535,6 +621,8 @@ public class CommandLineParser implements Closeable
 	
 		connectionsLimit = cLimit;
 		connectionsCache = cCache;
+		connectionsCacheWait = cCacheWait;
+		virtualThreads = bVirtualThreads;
         
 		List< URL > urls = new ArrayList<>();
 		for( String path : libList ) {
@@ -589,6 +677,8 @@ public class CommandLineParser implements Closeable
 
 		isProgramCompiled = olFilepath.endsWith( ".olc" );
 		tracer = bTracer && !isProgramCompiled;
+		traceFile = isProgramCompiled ? null : sTraceFile;
+		traceLimit = iTraceLimit;
 		check = bCheck && !isProgramCompiled;
 		programFilepath = new File( olResult.source );
 		programStream = olResult.stream;
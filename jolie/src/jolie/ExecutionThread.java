@@ -30,6 +30,8 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import jolie.lang.Constants;
 import jolie.net.CommChannelHandler;
 import jolie.net.SessionMessage;
@@ -165,6 +167,14 @@ public abstract class ExecutionThread extends JolieThread
 	private boolean canBeInterrupted = false;
 	private FaultException killerFault = null;
 	private Future<?> taskFuture;
+	private Consumer< FaultException > inlineKillHandler = null;
+	private Thread runner = null;
+	// Guards the scopes and the killing state. Not a monitor, which
+	// would pin the carrier of virtual threads waiting for it.
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// For threads that cannot refer to an ExecutionThread by themselves, e.g., virtual threads
+	private static final ThreadLocal< ExecutionThread > contextThread = new ThreadLocal<>();
 	
 	private void setTaskFuture( Future<?> taskFuture )
 	{
@@ -207,19 +217,31 @@ public abstract class ExecutionThread extends JolieThread
 	 * Kills this ExecutionThread, interrupting its activity as soon as possible.
 	 * @param fault the fault causing the interruption.
 	 */
-	public synchronized void kill( FaultException fault )
+	public void kill( FaultException fault )
 	{
-		killerFault = fault;
+		final Consumer< FaultException > killHandler;
+		lock.lock();
+		try {
+			killerFault = fault;
+
+			while( !futureToCancel.isEmpty() ) {
+				final WeakReference< Future< ? > > ref = futureToCancel.poll();
+				if ( ref.get() != null ) {
+					ref.get().cancel( true );
+				}
+			}
 
-		while( !futureToCancel.isEmpty() ) {
-			final WeakReference< Future< ? > > ref = futureToCancel.poll();
-			if ( ref.get() != null ) {
-				ref.get().cancel( true );
+			if( canBeInterrupted ) {
+				taskFuture.cancel( canBeInterrupted );
 			}
+			killHandler = inlineKillHandler;
+		} finally {
+			lock.unlock();
 		}
-		
-		if( canBeInterrupted ) {
-			taskFuture.cancel( canBeInterrupted );
+
+		// Outside of our lock, as the handler may kill threads that lock us
+		if ( killHandler != null ) {
+			killHandler.accept( fault );
 		}
 	}
 	
@@ -253,13 +275,18 @@ public abstract class ExecutionThread extends JolieThread
 	 * Returns the compensator of the current executing scope.
 	 * @return the compensator of the current executing scope.
 	 */
-	public synchronized Process getCurrentScopeCompensation()
+	public Process getCurrentScopeCompensation()
 	{
-		if( scopeStack.isEmpty() && parent != null ) {
-			return parent.getCurrentScopeCompensation();
-		}
+		lock.lock();
+		try {
+			if( scopeStack.isEmpty() && parent != null ) {
+				return parent.getCurrentScopeCompensation();
+			}
 		
-		return scopeStack.peek().getSelfCompensation();
+			return scopeStack.peek().getSelfCompensation();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -267,13 +294,18 @@ public abstract class ExecutionThread extends JolieThread
 	 * @param id the scope name owning the compensator to retrieve
 	 * @return the compensator for scope name id.
 	 */
-	public synchronized Process getCompensation( String id )
+	public Process getCompensation( String id )
 	{
-		if ( scopeStack.isEmpty() && parent != null ) {
-			return parent.getCompensation( id );
-		}
+		lock.lock();
+		try {
+			if ( scopeStack.isEmpty() && parent != null ) {
+				return parent.getCompensation( id );
+			}
 		
-		return scopeStack.peek().getCompensation( id );
+			return scopeStack.peek().getCompensation( id );
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -283,35 +315,50 @@ public abstract class ExecutionThread extends JolieThread
 	 * @see #popScope(boolean)
 	 * @return true if this thread is executing inside a scope.
 	 */
-	public synchronized boolean hasScope()
+	public boolean hasScope()
 	{
-		return !scopeStack.isEmpty();
+		lock.lock();
+		try {
+			return !scopeStack.isEmpty();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
 	 * Returns the id of the current executing scope.
 	 * @return the id of the current executing scope.
 	 */
-	public synchronized String currentScopeId()
+	public String currentScopeId()
 	{
-		if( scopeStack.isEmpty() && parent != null ) {
-			return parent.currentScopeId();
-		}
+		lock.lock();
+		try {
+			if( scopeStack.isEmpty() && parent != null ) {
+				return parent.currentScopeId();
+			}
 		
-		return scopeStack.peek().id();
+			return scopeStack.peek().id();
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
 	 * Registers a future to be cancelled when this thread is killed.
 	 * @param f the future to cancel
 	 */
-	public synchronized void cancelIfKilled( Future< ? > f )
+	public void cancelIfKilled( Future< ? > f )
 	{
-		cleanFuturesToKill();
-		if ( isKilled() ) {
-			f.cancel( true );
+		lock.lock();
+		try {
+			cleanFuturesToKill();
+			if ( isKilled() ) {
+				f.cancel( true );
+			}
+			futureToCancel.add( new WeakReference<>( f ) );
+		} finally {
+			lock.unlock();
 		}
-		futureToCancel.add( new WeakReference<>( f ) );
 	}
 	
 	private void cleanFuturesToKill()
@@ -334,22 +381,32 @@ public abstract class ExecutionThread extends JolieThread
 	 *		removed before returning it.
 	 * @return the current fault handler for fault id.
 	 */
-	public synchronized Process getFaultHandler( String id, boolean erase )
+	public Process getFaultHandler( String id, boolean erase )
 	{
-		if ( scopeStack.isEmpty() && parent != null ) {
-			return parent.getFaultHandler( id, erase );
-		}
+		lock.lock();
+		try {
+			if ( scopeStack.isEmpty() && parent != null ) {
+				return parent.getFaultHandler( id, erase );
+			}
 		
-		return scopeStack.peek().getFaultHandler( id, erase );
+			return scopeStack.peek().getFaultHandler( id, erase );
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
 	 * Pushes scope id as the new current executing scope in the scope stack of this thread.
 	 * @param id the id of the scope to push.
 	 */
-	public synchronized void pushScope( String id )
+	public void pushScope( String id )
 	{
-		scopeStack.push( new Scope( id ) );
+		lock.lock();
+		try {
+			scopeStack.push( new Scope( id ) );
+		} finally {
+			lock.unlock();
+		}
 	}
 	
 	/**
@@ -357,11 +414,16 @@ public abstract class ExecutionThread extends JolieThread
 	 * @param merge <code>true</code> if the popped scope compensators
 	 *		should be propagated upstream to the parent scope.
 	 */
-	public synchronized void popScope( boolean merge )
+	public void popScope( boolean merge )
 	{
-		final Scope s = scopeStack.pop();
-		if ( merge ) {
-			mergeCompensations( s );
+		lock.lock();
+		try {
+			final Scope s = scopeStack.pop();
+			if ( merge ) {
+				mergeCompensations( s );
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -369,19 +431,29 @@ public abstract class ExecutionThread extends JolieThread
 	 * Pops the current executing scope from the scope stack of this thread.
 	 * This method is a shortcut for <code>popScope(true)</code>.
 	 */
-	public synchronized void popScope()
+	public void popScope()
 	{
-		popScope( true );
+		lock.lock();
+		try {
+			popScope( true );
+		} finally {
+			lock.unlock();
+		}
 	}
 	
-	private synchronized void mergeCompensations( Scope s )
+	private void mergeCompensations( Scope s )
 	{
-		if ( scopeStack.isEmpty() ) {
-			if ( parent != null ) {
-				parent.mergeCompensations( s );
+		lock.lock();
+		try {
+			if ( scopeStack.isEmpty() ) {
+				if ( parent != null ) {
+					parent.mergeCompensations( s );
+				}
+			} else {
+				scopeStack.peek().mergeCompensations( s );
 			}
-		} else {
-			scopeStack.peek().mergeCompensations( s );
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -389,12 +461,17 @@ public abstract class ExecutionThread extends JolieThread
 	 * Installs process as the compensator for the current scope.
 	 * @param process the process to install as compensator for the current scope
 	 */
-	public synchronized void installCompensation( Process process )
+	public void installCompensation( Process process )
 	{
-		if ( scopeStack.isEmpty() && parent != null ) {
-			parent.installCompensation( process );
-		} else {
-			scopeStack.peek().installCompensation( process );
+		lock.lock();
+		try {
+			if ( scopeStack.isEmpty() && parent != null ) {
+				parent.installCompensation( process );
+			} else {
+				scopeStack.peek().installCompensation( process );
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -403,12 +480,17 @@ public abstract class ExecutionThread extends JolieThread
 	 * @param id the fault to be handled by process
 	 * @param process the Process to be called for handling fault id
 	 */
-	public synchronized void installFaultHandler( String id, Process process )
+	public void installFaultHandler( String id, Process process )
 	{
-		if ( scopeStack.isEmpty() && parent != null ) {
-			parent.installFaultHandler( id, process );
-		} else {
-			scopeStack.peek().installFaultHandler( id, process );
+		lock.lock();
+		try {
+			if ( scopeStack.isEmpty() && parent != null ) {
+				parent.installFaultHandler( id, process );
+			} else {
+				scopeStack.peek().installFaultHandler( id, process );
+			}
+		} finally {
+			lock.unlock();
 		}
 	}
 	
@@ -427,7 +509,51 @@ public abstract class ExecutionThread extends JolieThread
 			return ((CommChannelHandler)currThread).executionThread();
 		}
 
-		return null;
+		return contextThread.get();
+	}
+
+	/**
+	 * Sets the ExecutionThread the current thread should refer to.
+	 * @param ethread the ExecutionThread to refer to, or null to clear it
+	 * @see #currentThread()
+	 */
+	public static void setCurrentThread( ExecutionThread ethread )
+	{
+		Thread currThread = Thread.currentThread();
+		if ( currThread instanceof JolieExecutorThread ) {
+			((JolieExecutorThread)currThread).setExecutionThread( ethread );
+		} else if ( currThread instanceof CommChannelHandler ) {
+			((CommChannelHandler)currThread).setExecutionThread( ethread );
+		} else if ( ethread == null ) {
+			contextThread.remove();
+		} else {
+			contextThread.set( ethread );
+		}
+	}
+
+	/**
+	 * Returns true if this ExecutionThread is being run by the calling thread,
+	 * either because it was started from it or it is being run inline.
+	 * @return true if this ExecutionThread is being run by the calling thread
+	 * @see #runInline(jolie.ExecutionThread, java.util.function.Consumer)
+	 */
+	public boolean isRunByCurrentThread()
+	{
+		return runner == Thread.currentThread();
+	}
+
+	/**
+	 * Returns the SessionThread this ExecutionThread belongs to, i.e., this thread
+	 * or the closest ancestor which is a SessionThread, or null if there is none.
+	 * @return the SessionThread this ExecutionThread belongs to, or null
+	 */
+	public SessionThread sessionThread()
+	{
+		ExecutionThread t = this;
+		while( t != null && !(t instanceof SessionThread) ) {
+			t = t.parent;
+		}
+		return (SessionThread)t;
 	}
 
 	/**
@@ -463,9 +589,9 @@ public abstract class ExecutionThread extends JolieThread
 	@Override
 	public final void run()
 	{
-		JolieExecutorThread t = JolieExecutorThread.currentThread();
-		t.setExecutionThread( this );
-		t.setContextClassLoader( interpreter().getClassLoader() );
+		runner = Thread.currentThread();
+		setCurrentThread( this );
+		runner.setContextClassLoader( interpreter().getClassLoader() );
 		runProcess();
 	}
 	
@@ -473,6 +599,44 @@ public abstract class ExecutionThread extends JolieThread
 	{
 		setTaskFuture( interpreter().runJolieThread( this ) );
 	}
+
+	/**
+	 * Runs child in the calling thread, which must be running this
+	 * ExecutionThread, instead of submitting it to the interpreter executor.
+	 * If this thread is killed while child is running, or has already been
+	 * killed, killHandler is called with the killer fault.
+	 * @param child the thread to run, whose parent must be this thread
+	 * @param killHandler the handler for the killing of this thread
+	 */
+	public void runInline( ExecutionThread child, Consumer< FaultException > killHandler )
+	{
+		final ExecutionThread previous = currentThread();
+		final FaultException fault;
+		child.setTaskFuture( taskFuture );
+		child.runner = runner;
+		lock.lock();
+		try {
+			inlineKillHandler = killHandler;
+			fault = killerFault;
+		} finally {
+			lock.unlock();
+		}
+		if ( fault != null ) {
+			killHandler.accept( fault );
+		}
+		setCurrentThread( child );
+		try {
+			child.runProcess();
+		} finally {
+			setCurrentThread( previous );
+			lock.lock();
+			try {
+				inlineKillHandler = null;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
 	
 	public void join()
 		throws InterruptedException
@@ -27,8 +27,6 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.PrintStream;
-import java.lang.ref.WeakReference;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -37,7 +35,6 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
@@ -65,6 +62,7 @@ import jolie.lang.parse.SemanticVerifier;
 import jolie.lang.parse.TypeChecker;
 import jolie.lang.parse.ast.Program;
 import jolie.monitoring.MonitoringEvent;
+import jolie.monitoring.MonitoringEventDispatcher;
 import jolie.monitoring.events.MonitorAttachedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
 import jolie.monitoring.events.SessionEndedEvent;
@@ -83,6 +81,7 @@ import jolie.runtime.InvalidIdException;
 import jolie.runtime.OneWayOperation;
 import jolie.runtime.RequestResponseOperation;
 import jolie.runtime.TimeoutHandler;
+import jolie.runtime.TimerWheel;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
 import jolie.runtime.correlation.CorrelationEngine;
@@ -90,6 +89,7 @@ import jolie.runtime.correlation.CorrelationError;
 import jolie.runtime.correlation.CorrelationSet;
 import jolie.runtime.embedding.EmbeddedServiceLoader;
 import jolie.runtime.embedding.EmbeddedServiceLoaderFactory;
+import jolie.tracer.BinaryTracer;
 import jolie.tracer.DummyTracer;
 import jolie.tracer.PrintingTracer;
 import jolie.tracer.Tracer;
@@ -125,6 +125,12 @@ public class Interpreter
 				synchronized( correlationEngine ) {
 					try {
 						mainSession = new SessionThread( getDefinition( "main" ), initExecutionThread );
+						/*
+						 * The messages received during init go to the main session before
+						 * any new message can be routed to it, or a new message could
+						 * overtake them in their queue.
+						 */
+						relayMessages( this::relayToMainSession );
 						correlationEngine.onSingleExecutionSessionStart( mainSession );
 						mainSession.addSessionListener( correlationEngine );
 						correlationEngine.onSessionExecuted( this );
@@ -149,26 +155,39 @@ public class Interpreter
 						try {
 							correlationEngine.onMessageReceive( message.message(), message.channel() );
 						} catch( CorrelationError e ) {
-							logWarning( e );
-							try {
-								message.channel().send( CommMessage.createFaultResponse( message.message(), new FaultException( "CorrelationError", "The message you sent can not be correlated with any session and can not be used to start a new session." ) ) );
-							} catch( IOException ioe ) {
-								logSevere( ioe );
-							}
+							sendCorrelationError( message, e );
 						}
 					}
 				}
 
 				public void run()
 				{
-					for( Deque< SessionMessage > queue : messageQueues.values() ) {
+					for( Deque< SessionMessage > queue : messageQueues() ) {
 						pushMessages( queue );
 					}
-					pushMessages( uncorrelatedMessageQueue );
 				}
 			});
 		}
 		
+		private void relayToMainSession( SessionMessage message )
+		{
+			if ( correlationEngine.correlate( mainSession, message.message() ) ) {
+				mainSession.pushMessage( message );
+			} else {
+				sendCorrelationError( message, new CorrelationError() );
+			}
+		}
+
+		private void sendCorrelationError( SessionMessage message, CorrelationError e )
+		{
+			logWarning( e );
+			try {
+				message.channel().send( CommMessage.createFaultResponse( message.message(), new FaultException( "CorrelationError", "The message you sent can not be correlated with any session and can not be used to start a new session." ) ) );
+			} catch( IOException ioe ) {
+				logSevere( ioe );
+			}
+		}
+
 		@Override
 		public boolean isInitialisingThread()
 		{
@@ -246,7 +265,7 @@ public class Interpreter
 	private Interpreter parentInterpreter = null;
 
 	private Map< String, SessionStarter > sessionStarters = new HashMap<>();
-	private boolean exiting = false;
+	private volatile boolean exiting = false;
 	private final Lock exitingLock;
 	private final Condition exitingCondition;
 	private final CorrelationEngine correlationEngine;
@@ -277,20 +296,48 @@ public class Interpreter
 	// private long persistentConnectionTimeout = 2 * 60 * 1000; // 4 minutes
 	// private long persistentConnectionTimeout = 1;
 
-	// 11 is the default initial capacity for PriorityQueue
-	private final Queue< WeakReference< TimeoutHandler > > timeoutHandlerQueue =
-		new PriorityQueue<>( 11, new TimeoutHandler.Comparator() );
-	
 	private final ExecutorService timeoutHandlerExecutor =
-		Executors.newSingleThreadExecutor( new NativeJolieThreadFactory( this ) );
+		Executors.newFixedThreadPool(
+			Math.min( 4, Runtime.getRuntime().availableProcessors() ),
+			new NativeJolieThreadFactory( this )
+		);
+	private final TimerWheel timerWheel = new TimerWheel( new NativeJolieThreadFactory( this ), timeoutHandlerExecutor );
 
 	private final String programFilename;
 	private final File programDirectory;
-	private OutputPort monitor = null;
+	private volatile MonitoringEventDispatcher monitor = null;
 
 	public void setMonitor( OutputPort monitor )
 	{
-		this.monitor = monitor;
+		setMonitor(
+			monitor,
+			MonitoringEventDispatcher.DEFAULT_CAPACITY,
+			MonitoringEventDispatcher.DEFAULT_BATCH_SIZE,
+			MonitoringEventDispatcher.DropPolicy.DROP_NEWEST
+		);
+	}
+
+	/**
+	 * Sets the monitor of this interpreter, replacing the current one if any.
+	 * Events are sent to the monitor asynchronously, see {@link MonitoringEventDispatcher}.
+	 * @param monitor the output port of the monitor
+	 * @param capacity the maximum number of events waiting to be sent
+	 * @param batchSize the maximum number of events sent to the monitor in a single message
+	 * @param dropPolicy what to do with new events when capacity events are already waiting
+	 */
+	public void setMonitor( OutputPort monitor, int capacity, int batchSize, MonitoringEventDispatcher.DropPolicy dropPolicy )
+	{
+		final MonitoringEventDispatcher dispatcher =
+			new MonitoringEventDispatcher( this, monitor, capacity, batchSize, dropPolicy );
+		final MonitoringEventDispatcher old;
+		synchronized( this ) {
+			old = this.monitor;
+			this.monitor = dispatcher;
+		}
+		dispatcher.start();
+		if ( old != null ) {
+			old.shutdown();
+		}
 		fireMonitorEvent( new MonitorAttachedEvent() );
 	}
 	
@@ -298,6 +345,16 @@ public class Interpreter
 	{
 		return monitor != null;
 	}
+
+	/**
+	 * Returns <code>true</code> if this interpreter is in exiting mode.
+	 * @return <code>true</code> if this interpreter is in exiting mode
+	 * @see #exit()
+	 */
+	public boolean isExiting()
+	{
+		return exiting;
+	}
 	
 	/*public long inputMessageTimeout()
 	{
@@ -314,31 +371,16 @@ public class Interpreter
 		return tracer;
 	}
 	
+	/**
+	 * Sends an event to the monitor of this interpreter, if there is one.
+	 * This method does not wait for the event to be delivered.
+	 * @param event the event to send
+	 */
 	public void fireMonitorEvent( MonitoringEvent event )
 	{
-		if ( monitor != null ) {
-			CommMessage m = CommMessage.createRequest( "pushEvent", "/", MonitoringEvent.toValue( event ) );
-			CommChannel channel = null;
-			try {
-				channel = monitor.getCommChannel();
-				channel.send( m );
-				CommMessage response;
-				do {
-					response = channel.recvResponseFor( m );
-				} while( response == null );
-			} catch( URISyntaxException e ) {
-				logWarning( e );
-			} catch( IOException e ) {
-				logWarning( e );
-			} finally {
-				if ( channel != null ) {
-					try {
-						channel.release();
-					} catch( IOException e ) {
-						logWarning( e );
-					}
-				}
-			}
+		final MonitoringEventDispatcher m = monitor;
+		if ( m != null ) {
+			m.fire( event );
 		}
 	}
 
@@ -359,53 +401,26 @@ public class Interpreter
 		}
 	}
 
+	/**
+	 * Adds a handler to be run when its time has come.
+	 * Handlers are held through weak references, so their creator must
+	 * keep them for as long as they are relevant.
+	 * When this interpreter exits, all pending handlers are run immediately.
+	 * @param handler the handler to add
+	 */
 	public void addTimeoutHandler( TimeoutHandler handler )
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.add( new WeakReference< TimeoutHandler >( handler ) );
-			if ( timeoutHandlerQueue.size() == 1 ) {
-				schedule( new TimerTask() {
-					public void run()
-					{
-						synchronized( timeoutHandlerQueue ) {
-							checkForExpiredTimeoutHandlers();
-						}
-					}
-				}, handler.time() - System.currentTimeMillis() + 1 );
-			} else {
-				checkForExpiredTimeoutHandlers();
-			}
-		}
+		timerWheel.add( handler );
 	}
 
-	/*public void removeTimeoutHandler( TimeoutHandler handler )
+	/**
+	 * Removes a handler added with {@link #addTimeoutHandler(jolie.runtime.TimeoutHandler)},
+	 * so that it will not be run.
+	 * @param handler the handler to remove
+	 */
+	public void removeTimeoutHandler( TimeoutHandler handler )
 	{
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.remove( handler );
-			checkForExpiredTimeoutHandlers();
-		}
-	}*/
-
-	private void checkForExpiredTimeoutHandlers()
-	{
-		long currentTime = System.currentTimeMillis();
-		WeakReference< TimeoutHandler > whandler = timeoutHandlerQueue.peek();
-		boolean keepRun = true;
-		TimeoutHandler handler;
-		while( whandler != null && keepRun ) {
-			handler = whandler.get();
-			if ( handler == null ) {
-				timeoutHandlerQueue.remove();
-				whandler = timeoutHandlerQueue.peek();
-			} else if ( handler.time() < currentTime || exiting ) {
-				// final TimeoutHandler h = handler;
-				timeoutHandlerExecutor.execute( handler );
-				timeoutHandlerQueue.poll();
-				whandler = timeoutHandlerQueue.peek();
-			} else {
-				keepRun = false;
-			}
-		}
+		handler.cancel();
 	}
 	
 	/**
@@ -629,10 +644,16 @@ public class Interpreter
 			exitingLock.unlock();
 		}
 		timer.cancel();
-		checkForExpiredTimeoutHandlers();
+		timerWheel.expireAll();
 		processExecutorService.shutdown();
 		nativeExecutorService.shutdown();
 		timeoutHandlerExecutor.shutdown();
+		final MonitoringEventDispatcher m = monitor;
+		if ( m != null ) {
+			// Deliver the pending events while the communication core is still up
+			m.shutdown();
+			m.awaitTermination( terminationTimeout );
+		}
 		commCore.shutdown();
 		try {
 			nativeExecutorService.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
@@ -643,6 +664,7 @@ public class Interpreter
 		try {
 			timeoutHandlerExecutor.awaitTermination( terminationTimeout, TimeUnit.MILLISECONDS );
 		} catch ( InterruptedException e ) {}
+		tracer.close();
 		free();
 	}
 
@@ -794,6 +816,10 @@ public class Interpreter
 		if ( t instanceof InterpreterThread ) {
 			return ((InterpreterThread)t).interpreter();
 		}
+		ExecutionThread ethread = ExecutionThread.currentThread();
+		if ( ethread != null ) {
+			return ethread.interpreter();
+		}
 		return null;
 	}
 	
@@ -843,7 +869,6 @@ public class Interpreter
         
 		this.correlationEngine = cmdParser.correlationAlgorithmType().createInstance( this );
 		
-        commCore = new CommCore( this, cmdParser.connectionsLimit() /*, cmdParser.connectionsCache() */ );
 		includePaths = cmdParser.includePaths();
 
 		StringBuilder builder = new StringBuilder();
@@ -852,14 +877,30 @@ public class Interpreter
 		builder.append( "] " );
 		logPrefix = builder.toString();
 
-		if ( cmdParser.tracer() ) {
+		logger.setLevel( cmdParser.logLevel() );
+
+		final ExecutorService virtualExecutor = cmdParser.virtualThreads()
+			? JolieThreadPoolExecutor.newVirtualThreadPerTaskExecutor( programFilename + "-JolieThread-" )
+			: null;
+		if ( virtualExecutor == null ) {
+			if ( cmdParser.virtualThreads() ) {
+				logWarning( "Virtual threads are not supported by this Java platform, using platform threads instead" );
+			}
+			processExecutorService = new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
+		} else {
+			processExecutorService = virtualExecutor;
+		}
+		
+		commCore = new CommCore( this, cmdParser.connectionsLimit(), cmdParser.connectionsCache(), cmdParser.connectionsCacheWait(), virtualExecutor != null );
+
+		if ( cmdParser.traceFile() != null ) {
+			tracer = new BinaryTracer( this, cmdParser.traceFile(), cmdParser.traceLimit() );
+		} else if ( cmdParser.tracer() ) {
 			tracer = new PrintingTracer( this );
 		} else {
 			tracer = new DummyTracer();
 		}
 		
-		logger.setLevel( cmdParser.logLevel() );
-		
 		timer = new Timer( programFilename + "-Timer" );
 		exitingLock = new ReentrantLock();
 		exitingCondition = exitingLock.newCondition();
@@ -957,6 +998,7 @@ public class Interpreter
 	}
 	
 	private InitSessionThread initExecutionThread;
+	private volatile State sessionStateTemplate = null;
 	private SessionThread mainSession = null;
 	private final Queue< SessionThread > waitingSessionThreads = new LinkedList<>();
 	
@@ -1128,9 +1170,7 @@ public class Interpreter
 	private final ExecutorService nativeExecutorService =
 		new JolieThreadPoolExecutor( new NativeJolieThreadFactory( this ) );
 		// Executors.newCachedThreadPool( new NativeJolieThreadFactory( this ) );
-	private final ExecutorService processExecutorService =
-		new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
-		// Executors.newCachedThreadPool( new JolieExecutionThreadFactory( this ) );
+	private final ExecutorService processExecutorService;
 
 	/**
 	 * Runs an asynchronous task in this Interpreter internal thread pool.
@@ -1287,7 +1327,42 @@ public class Interpreter
 			cmdParser = null; // Free memory
 		}
 	}
-	
+
+	/**
+	 * Returns the state that new sessions start from: a copy of the state
+	 * left by the init procedure, taken when the first session starts.
+	 * Sessions get lazy copies of it, so it is never modified and their
+	 * creation does not depend on how much data init prepared.
+	 * Must be called after the init procedure has terminated.
+	 * @see #invalidateSessionStateTemplate()
+	 */
+	private State sessionStateTemplate()
+	{
+		State template = sessionStateTemplate;
+		if ( template == null ) {
+			synchronized( this ) {
+				template = sessionStateTemplate;
+				if ( template == null ) {
+					template = initExecutionThread.state().clone();
+					sessionStateTemplate = template;
+				}
+			}
+		}
+		return template;
+	}
+
+	/**
+	 * Discards the copy of the init state that new sessions start from,
+	 * so that the next session takes a fresh one.
+	 * Must be called after writing to the state of {@link #initThread()}
+	 * once the init procedure has terminated, or new sessions would not
+	 * see the change.
+	 */
+	public synchronized void invalidateSessionStateTemplate()
+	{
+		sessionStateTemplate = null;
+	}
+
 	/**
 	 * Starts a service session.
 	 * @param message the message triggering the session start
@@ -1314,7 +1389,7 @@ public class Interpreter
 		final SessionThread spawnedSession;
 
 		if ( executionMode == Constants.ExecutionMode.CONCURRENT ) {
-			State state = initExecutionThread.state().clone();
+			State state = sessionStateTemplate().lazyClone();
 			jolie.process.Process sequence = new SequentialProcess( new jolie.process.Process[] {
 				starter.guard.receiveMessage( new SessionMessage( message, channel ), state ),
 				starter.body
@@ -1342,7 +1417,7 @@ public class Interpreter
 			/*
 			 * We use sessionThreads to handle sequential execution of spawn requests
 			 */
-			State state = initExecutionThread.state().clone();
+			State state = sessionStateTemplate().lazyClone();
 			jolie.process.Process sequence = new SequentialProcess( new jolie.process.Process[] {
 				starter.guard.receiveMessage( new SessionMessage( message, channel ), state ),
 				starter.body
@@ -19,6 +19,10 @@
 
 package jolie;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -42,4 +46,26 @@ public final class JolieThreadPoolExecutor extends ThreadPoolExecutor
 			new ThreadPoolExecutor.AbortPolicy()
 		);
 	}
+
+	/**
+	 * Creates an executor that runs each task in a new virtual thread.
+	 * Virtual threads are looked up by reflection, so that Jolie can still
+	 * be built for and run on Java platforms that do not provide them.
+	 * @param namePrefix the prefix for the names of the created threads
+	 * @return the executor, or <code>null</code> if the running Java platform
+	 * does not support virtual threads
+	 */
+	public static ExecutorService newVirtualThreadPerTaskExecutor( String namePrefix )
+	{
+		try {
+			final Class< ? > builderClass = Class.forName( "java.lang.Thread$Builder" );
+			Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+			builder = builderClass.getMethod( "name", String.class, long.class ).invoke( builder, namePrefix, 0L );
+			final ThreadFactory factory = (ThreadFactory) builderClass.getMethod( "factory" ).invoke( builder );
+			final Method newExecutor = Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class );
+			return (ExecutorService) newExecutor.invoke( null, factory );
+		} catch( ClassNotFoundException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e ) {
+			return null;
+		}
+	}
 }
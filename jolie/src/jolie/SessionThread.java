@@ -25,16 +25,17 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import jolie.lang.Constants;
 import jolie.net.SessionMessage;
 import jolie.process.Process;
@@ -55,35 +56,31 @@ import jolie.util.Pair;
  */
 public class SessionThread extends ExecutionThread
 {
-	private class SessionMessageFuture implements Future< SessionMessage >
+	private static class SessionMessageFuture implements Future< SessionMessage >
 	{
-		private final Lock lock;
-		private final Condition condition;
-		private SessionMessage sessionMessage = null;
-		private boolean isDone = false;
-		private boolean isCancelled = false;
+		private static final Object CANCELLED = new Object();
+		private static final AtomicReferenceFieldUpdater< SessionMessageFuture, Object > resultUpdater =
+			AtomicReferenceFieldUpdater.newUpdater( SessionMessageFuture.class, Object.class, "result" );
+
+		private volatile Object result = null;
+		private volatile Thread waiter = null;
 
 		public SessionMessageFuture()
+		{}
+
+		/**
+		 * Creates a future that is already completed with the given message.
+		 * Used when a receive finds its message at the head of its queue.
+		 */
+		public SessionMessageFuture( SessionMessage sessionMessage )
 		{
-			lock = new ReentrantLock();
-			condition = lock.newCondition();
+			result = sessionMessage;
 		}
 
 		@Override
 		public boolean cancel( boolean mayInterruptIfRunning )
 		{
-			lock.lock();
-			try {
-				if ( !isDone ) {
-					this.sessionMessage = null;
-					isDone = true;
-					isCancelled = true;
-					condition.signalAll();
-				}
-			} finally {
-				lock.unlock();
-			}
-			
+			complete( CANCELLED );
 			return true;
 		}
 
@@ -91,83 +88,150 @@ public class SessionThread extends ExecutionThread
 		public SessionMessage get( long timeout, TimeUnit unit )
 			throws InterruptedException, TimeoutException
 		{
+			final long deadline = System.nanoTime() + unit.toNanos( timeout );
+			waiter = Thread.currentThread();
 			try {
-				lock.lock();
-				if ( !isDone ) {
-					if ( !condition.await( timeout, unit ) ) {
+				while( result == null ) {
+					final long remaining = deadline - System.nanoTime();
+					if ( remaining <= 0L ) {
 						throw new TimeoutException();
 					}
+					LockSupport.parkNanos( this, remaining );
+					if ( Thread.interrupted() ) {
+						throw new InterruptedException();
+					}
 				}
 			} finally {
-				lock.unlock();
+				waiter = null;
 			}
-			return sessionMessage;
+			return sessionMessage();
 		}
 
 		@Override
 		public SessionMessage get()
 			throws InterruptedException
 		{
+			waiter = Thread.currentThread();
 			try {
-				lock.lock();
-				if ( !isDone ) {
-					condition.await();
+				while( result == null ) {
+					LockSupport.park( this );
+					if ( Thread.interrupted() ) {
+						throw new InterruptedException();
+					}
 				}
 			} finally {
-				lock.unlock();
+				waiter = null;
 			}
-			return sessionMessage;
+			return sessionMessage();
 		}
 
 		@Override
 		public boolean isCancelled()
 		{
-			return isCancelled;
+			return result == CANCELLED;
 		}
 
 		@Override
 		public boolean isDone()
 		{
-			return isDone;
+			return result != null;
 		}
 
-		protected void setResult( SessionMessage sessionMessage )
+		private SessionMessage sessionMessage()
 		{
-			lock.lock();
-			try {
-				if ( !isDone ) {
-					this.sessionMessage = sessionMessage;
-					isDone = true;
-					condition.signalAll();
+			final Object r = result;
+			return r == CANCELLED ? null : (SessionMessage)r;
+		}
+
+		/**
+		 * Completes this future, unless it has already been completed or cancelled.
+		 * A future waiting on more operations is claimed by the first message
+		 * that completes it; its entries for the other operations become stale
+		 * and are skipped by the queues that still hold them.
+		 * @return <code>true</code> if this call completed the future
+		 */
+		private boolean complete( Object r )
+		{
+			if ( resultUpdater.compareAndSet( this, null, r ) ) {
+				final Thread t = waiter;
+				if ( t != null ) {
+					LockSupport.unpark( t );
 				}
-			} finally {
-				lock.unlock();
+				return true;
 			}
+			return false;
 		}
 	}
 
-	private class SessionMessageNDFuture extends SessionMessageFuture
+	/**
+	 * The message queue of a correlation set (or of uncorrelated messages),
+	 * together with the receives waiting for operations that use it.
+	 * Each queue has its own lock, so messages for different correlation sets
+	 * do not contend with each other.
+	 *
+	 * A lock-free multi-producer single-consumer queue does not fit here.
+	 * Parallel branches of the same session receive from the same queue, so
+	 * there can be more than one consumer. A receive must look at the head
+	 * message and, if it is not for its operation, register as a waiter
+	 * before any producer can push; an input choice must do so on the queues
+	 * of all its operations at once. Both need the queue and its waiters to
+	 * change together, which is what the lock provides.
+	 */
+	private static class MessageQueue
 	{
-		private final String[] operationNames;
+		private final int index;
+		private final Lock lock = new ReentrantLock();
+		private final Deque< SessionMessage > messages = new ArrayDeque<>();
+		private final Map< String, Deque< SessionMessageFuture > > waiters = new HashMap<>();
+		// Set when the messages of this session are handed to another one
+		private Consumer< SessionMessage > relay = null;
+
+		private MessageQueue( int index )
+		{
+			this.index = index;
+		}
 
-		public SessionMessageNDFuture( String[] operationNames )
+		private void addWaiter( String operationName, SessionMessageFuture future )
 		{
-			super();
-			this.operationNames = operationNames;
+			Deque< SessionMessageFuture > waitersList = waiters.get( operationName );
+			if ( waitersList == null ) {
+				waitersList = new ArrayDeque<>();
+				waiters.put( operationName, waitersList );
+			} else {
+				waitersList.removeIf( SessionMessageFuture::isDone );
+			}
+			waitersList.addLast( future );
 		}
-	
-		@Override
-		protected void setResult( SessionMessage sessionMessage )
+
+		/**
+		 * Hands the message to the first waiter for its operation that is still pending.
+		 * @return <code>true</code> if a waiter took the message
+		 */
+		private boolean offerToWaiter( SessionMessage message )
 		{
-			for( String operationName : operationNames ) {
-				if ( operationName.equals( sessionMessage.message().operationName() ) == false ) {
-					Deque< SessionMessageFuture > waitersList = messageWaiters.get( operationName );
-					if ( waitersList != null ) {
-						waitersList.remove( this );
+			final Deque< SessionMessageFuture > waitersList = waiters.get( message.message().operationName() );
+			if ( waitersList != null ) {
+				SessionMessageFuture future;
+				while( (future = waitersList.pollFirst()) != null ) {
+					if ( future.complete( message ) ) {
+						return true;
 					}
 				}
 			}
-			super.setResult( sessionMessage );
+			return false;
+		}
+
+		/**
+		 * Removing the head of the queue may unlock receives waiting
+		 * for the messages behind it.
+		 */
+		private void removeFirst()
+		{
+			messages.removeFirst();
+			SessionMessage message;
+			while( (message = messages.peekFirst()) != null && offerToWaiter( message ) ) {
+				messages.removeFirst();
+			}
 		}
 	}
 
@@ -176,9 +240,8 @@ public class SessionThread extends ExecutionThread
 	private final long id = idCounter.getAndIncrement();
 	private final jolie.State state;
 	private final List< SessionListener > listeners = new ArrayList<>();
-	protected final Map< CorrelationSet, Deque< SessionMessage > > messageQueues = new HashMap<>();
-	protected final Deque< SessionMessage > uncorrelatedMessageQueue = new ArrayDeque<>();
-	private final Map< String, Deque< SessionMessageFuture > > messageWaiters =	new HashMap<>();
+	private final Map< CorrelationSet, MessageQueue > messageQueues = new HashMap<>();
+	private MessageQueue uncorrelatedMessageQueue;
 
 	private final static VariablePath typeMismatchPath;
 	private final static VariablePath ioExceptionPath;
@@ -298,8 +361,28 @@ public class SessionThread extends ExecutionThread
 	private void initMessageQueues()
 	{
 		interpreter().correlationSets().forEach(
-			cset -> messageQueues.put( cset, new ArrayDeque<>() )
+			cset -> messageQueues.put( cset, new MessageQueue( messageQueues.size() ) )
 		);
+		uncorrelatedMessageQueue = new MessageQueue( messageQueues.size() );
+	}
+
+	/**
+	 * Returns the messages queued in this session and not consumed yet,
+	 * one queue for each correlation set followed by the queue of uncorrelated messages.
+	 * @return the message queues of this session
+	 */
+	protected List< Deque< SessionMessage > > messageQueues()
+	{
+		final List< Deque< SessionMessage > > queues = new ArrayList<>( messageQueues.size() + 1 );
+		messageQueues.values().forEach( queue -> queues.add( queue.messages ) );
+		queues.add( uncorrelatedMessageQueue.messages );
+		return queues;
+	}
+
+	private MessageQueue messageQueueFor( String operationName )
+	{
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( operationName );
+		return cset == null ? uncorrelatedMessageQueue : messageQueues.get( cset );
 	}
 	
 	/**
@@ -332,130 +415,102 @@ public class SessionThread extends ExecutionThread
 	@Override
 	public Future< SessionMessage > requestMessage( Map< String, InputOperation > operations, ExecutionThread ethread )
 	{
-		final SessionMessageFuture future = new SessionMessageNDFuture( operations.keySet().toArray( new String[0] ) );
-		ethread.cancelIfKilled( future );
-		synchronized( messageQueues ) {
-			Deque< SessionMessage > queue = null;
-			SessionMessage message = null;
-			InputOperation operation = null;
-
-			Iterator< Deque< SessionMessage > > it = messageQueues.values().iterator();
-			while( operation == null && it.hasNext() ) {
-				queue = it.next();
-				message = queue.peekFirst();
-				if ( message != null ) {
-					operation = operations.get( message.message().operationName() );
-				}
-			}
-			if ( message == null ) {
-				queue = uncorrelatedMessageQueue;
-				message = queue.peekFirst();
-				if ( message != null ) {
-					operation = operations.get( message.message().operationName() );
-				}
+		// Lock the queues of all requested operations, always in the same order
+		final MessageQueue[] queues = new MessageQueue[ messageQueues.size() + 1 ];
+		operations.keySet().forEach( operationName -> {
+			final MessageQueue queue = messageQueueFor( operationName );
+			queues[ queue.index ] = queue;
+		} );
+		for( MessageQueue queue : queues ) {
+			if ( queue != null ) {
+				queue.lock.lock();
 			}
+		}
 
-			if ( message == null || operation == null ) {
-				operations.entrySet().forEach(
-					entry -> addMessageWaiter( entry.getValue(), future )
-				);
-			} else {
-				future.setResult( message );
-				queue.removeFirst();
-
-				// Check if we unlocked other receives
-				boolean keepRun = true;
-				SessionMessageFuture f;
-				while( keepRun && !queue.isEmpty() ) {
-					message = queue.peekFirst();
-					f = getMessageWaiter( message.message().operationName() );
-					if ( f != null ) { // We found a waiter for the unlocked message
-						f.setResult( message );
+		final SessionMessageFuture future;
+		try {
+			for( MessageQueue queue : queues ) {
+				if ( queue != null ) {
+					final SessionMessage message = queue.messages.peekFirst();
+					if ( message != null && operations.containsKey( message.message().operationName() ) ) {
 						queue.removeFirst();
-					} else {
-						keepRun = false;
+						return new SessionMessageFuture( message );
 					}
 				}
 			}
+
+			future = new SessionMessageFuture();
+			operations.keySet().forEach(
+				operationName -> messageQueueFor( operationName ).addWaiter( operationName, future )
+			);
+		} finally {
+			for( int i = queues.length - 1; i >= 0; i-- ) {
+				if ( queues[ i ] != null ) {
+					queues[ i ].lock.unlock();
+				}
+			}
 		}
+		ethread.cancelIfKilled( future );
 		return future;
 	}
 
 	@Override
 	public Future< SessionMessage > requestMessage( InputOperation operation, ExecutionThread ethread )
 	{
-		final SessionMessageFuture future = new SessionMessageFuture();
-		ethread.cancelIfKilled( future );
-		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( operation.id() );
-		final Deque< SessionMessage > queue =
-				cset == null ? uncorrelatedMessageQueue
-				: messageQueues.get( cset );
-		synchronized( messageQueues ) {
-			final SessionMessage message = queue.peekFirst();
-			if ( message == null
-				|| message.message().operationName().equals( operation.id() ) == false
-			) {
-				addMessageWaiter( operation, future );
-			} else {
-				future.setResult( message );
+		final MessageQueue queue = messageQueueFor( operation.id() );
+		final SessionMessageFuture future;
+		queue.lock.lock();
+		try {
+			final SessionMessage message = queue.messages.peekFirst();
+			if ( message != null && message.message().operationName().equals( operation.id() ) ) {
 				queue.removeFirst();
-
-				// Check if we unlocked other receives
-				boolean keepRun = true;
-				while( keepRun && !queue.isEmpty() ) {
-					final SessionMessage otherMessage = queue.peekFirst();
-					final SessionMessageFuture currFuture = getMessageWaiter( otherMessage.message().operationName() );
-					if ( currFuture != null ) { // We found a waiter for the unlocked message
-						currFuture.setResult( otherMessage );
-						queue.removeFirst();
-					} else {
-						keepRun = false;
-					}
-				}
+				return new SessionMessageFuture( message );
 			}
-		}
-		return future;
-	}
 
-	private void addMessageWaiter( InputOperation operation, SessionMessageFuture future )
-	{
-		Deque< SessionMessageFuture > waitersList = messageWaiters.get( operation.id() );
-		if ( waitersList == null ) {
-			waitersList = new ArrayDeque<>();
-			messageWaiters.put( operation.id(), waitersList );
+			future = new SessionMessageFuture();
+			queue.addWaiter( operation.id(), future );
+		} finally {
+			queue.lock.unlock();
 		}
-		waitersList.addLast( future );
+		ethread.cancelIfKilled( future );
+		return future;
 	}
 
-	private SessionMessageFuture getMessageWaiter( String operationName )
+	public void pushMessage( SessionMessage message )
 	{
-		Deque< SessionMessageFuture > waitersList = messageWaiters.get( operationName );
-		if ( waitersList == null || waitersList.isEmpty() ) {
-			return null;
-		}
-
-		if ( waitersList.size() == 1 ) {
-			messageWaiters.remove( operationName );
+		final MessageQueue queue = messageQueueFor( message.message().operationName() );
+		queue.lock.lock();
+		try {
+			if ( queue.relay != null ) {
+				queue.relay.accept( message );
+			} else if ( !queue.messages.isEmpty() || !queue.offerToWaiter( message ) ) {
+				queue.messages.addLast( message );
+			}
+		} finally {
+			queue.lock.unlock();
 		}
-
-		return waitersList.removeFirst();
 	}
 
-	public void pushMessage( SessionMessage message )
+	/**
+	 * Hands the messages queued in this session to relay, in the order they
+	 * were received, and then every message pushed to this session afterwards.
+	 * Used to move the messages received during init to the main session.
+	 * @param relay the receiver of the messages of this session from now on
+	 */
+	protected void relayMessages( Consumer< SessionMessage > relay )
 	{
-		synchronized( messageQueues ) {
-			Deque< SessionMessage > queue;
-			CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.message().operationName() );
-			if ( cset != null ) {
-				queue = messageQueues.get( cset );
-			} else {
-				queue = uncorrelatedMessageQueue;
-			}
-			SessionMessageFuture future = getMessageWaiter( message.message().operationName() );
-			if ( future != null && queue.isEmpty() ) {
-				future.setResult( message );
-			} else {
-				queue.addLast( message );
+		final List< MessageQueue > queues = new ArrayList<>( messageQueues.values() );
+		queues.add( uncorrelatedMessageQueue );
+		for( MessageQueue queue : queues ) {
+			queue.lock.lock();
+			try {
+				queue.relay = relay;
+				SessionMessage message;
+				while( (message = queue.messages.pollFirst()) != null ) {
+					relay.accept( message );
+				}
+			} finally {
+				queue.lock.unlock();
 			}
 		}
 	}
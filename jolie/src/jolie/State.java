@@ -64,6 +64,17 @@ public final class State implements Cloneable
 	{
 		return new State( Value.createClone( root ) );
 	}
+
+	/**
+	 * Returns a copy of this State whose variables are copied only when they are accessed.
+	 * This State must not be modified afterwards.
+	 * @return a lazy copy of this State
+	 * @see Value#createLazyClone(jolie.runtime.Value)
+	 */
+	public State lazyClone()
+	{
+		return new State( Value.createLazyClone( root ) );
+	}
 	
 	/**
 	 * Returns the root Value of this State.
@@ -0,0 +1,133 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded lock-free queue of {@link MonitoringEvent} objects, backed by a ring of slots.
+ *
+ * Each slot carries a sequence number telling whether it is ready to be written
+ * or read in the current lap, so producers and consumers only need a CAS on
+ * their own cursor to claim a slot. Offering to a full buffer fails immediately
+ * instead of blocking: what to do then is up to the caller.
+ *
+ * @author agent
+ */
+class EventRingBuffer
+{
+	private final int mask;
+	private final AtomicReferenceArray< MonitoringEvent > slots;
+	private final AtomicLongArray sequences;
+	private final AtomicLong head = new AtomicLong( 0 ); // The next position to read
+	private final AtomicLong tail = new AtomicLong( 0 ); // The next position to write
+
+	/**
+	 * Constructor.
+	 * @param capacity the minimum number of events the buffer can hold,
+	 * rounded up to a power of two
+	 */
+	EventRingBuffer( int capacity )
+	{
+		int size = Integer.highestOneBit( Math.max( 2, capacity ) - 1 ) << 1;
+		mask = size - 1;
+		slots = new AtomicReferenceArray<>( size );
+		sequences = new AtomicLongArray( size );
+		for( int i = 0; i < size; i++ ) {
+			sequences.set( i, i );
+		}
+	}
+
+	/**
+	 * Returns the number of events this buffer can hold.
+	 */
+	int capacity()
+	{
+		return mask + 1;
+	}
+
+	/**
+	 * Inserts an event, if there is room for it.
+	 * @return <code>true</code> if the event was inserted, <code>false</code> if the buffer is full
+	 */
+	boolean offer( MonitoringEvent event )
+	{
+		long pos = tail.get();
+		while( true ) {
+			final int i = (int)pos & mask;
+			final long diff = sequences.get( i ) - pos;
+			if ( diff == 0 ) {
+				if ( tail.compareAndSet( pos, pos + 1 ) ) {
+					slots.lazySet( i, event );
+					// Publishes the event to the readers of this slot
+					sequences.set( i, pos + 1 );
+					return true;
+				}
+				pos = tail.get();
+			} else if ( diff < 0 ) {
+				// The slot still holds the event of the previous lap
+				return false;
+			} else {
+				pos = tail.get();
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest event.
+	 * @return the removed event, or <code>null</code> if the buffer is empty
+	 */
+	MonitoringEvent poll()
+	{
+		long pos = head.get();
+		while( true ) {
+			final int i = (int)pos & mask;
+			final long diff = sequences.get( i ) - (pos + 1);
+			if ( diff == 0 ) {
+				if ( head.compareAndSet( pos, pos + 1 ) ) {
+					final MonitoringEvent event = slots.get( i );
+					slots.lazySet( i, null );
+					// Hands the slot over to the writers of the next lap
+					sequences.set( i, pos + mask + 1 );
+					return event;
+				}
+				pos = head.get();
+			} else if ( diff < 0 ) {
+				// Nothing has been published in this slot yet
+				return null;
+			} else {
+				pos = head.get();
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if no event has been inserted and not removed yet.
+	 * An event being inserted concurrently counts as present.
+	 */
+	boolean isEmpty()
+	{
+		return head.get() >= tail.get();
+	}
+}
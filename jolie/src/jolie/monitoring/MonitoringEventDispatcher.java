@@ -0,0 +1,278 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import jolie.ExecutionThread;
+import jolie.Interpreter;
+import jolie.NativeJolieThread;
+import jolie.SessionThread;
+import jolie.lang.Constants;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.net.ports.OutputPort;
+import jolie.process.NullProcess;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Delivers {@link MonitoringEvent} objects to a monitor without blocking the threads firing them.
+ *
+ * Events are put in a bounded {@link EventRingBuffer}. A background thread drains it and
+ * sends the events to the monitor in batches, through its <code>pushEvents</code> operation.
+ * If the monitor does not support batches, i.e., it answers <code>pushEvents</code> with an
+ * <code>IOException</code> or <code>InvalidOperation</code> fault, the events are sent one by one
+ * through <code>pushEvent</code>, as the interpreter used to do.
+ *
+ * When the buffer is full, an event is dropped according to the {@link DropPolicy} of the
+ * dispatcher. Dropped events, including those that could not be sent, are counted and the
+ * current count is sent to the monitor with each batch.
+ *
+ * @author agent
+ */
+public class MonitoringEventDispatcher
+{
+	/**
+	 * What to do with a new event when the buffer is full.
+	 */
+	public enum DropPolicy
+	{
+		/** The new event is dropped. */
+		DROP_NEWEST,
+		/** The oldest event in the buffer is dropped to make room for the new one. */
+		DROP_OLDEST
+	}
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_BATCH_SIZE = 64;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos( 100 );
+	private static final String INVALID_OPERATION_FAULT_NAME = "InvalidOperation";
+
+	private final Interpreter interpreter;
+	private final OutputPort monitor;
+	private final EventRingBuffer buffer;
+	private final int batchSize;
+	private final DropPolicy dropPolicy;
+	private final LongAdder droppedEvents = new LongAdder();
+	private final Thread drainer;
+	private volatile boolean waiting = false;
+	private volatile boolean running = true;
+	private boolean batching = true; // Accessed only by the drainer
+
+	/**
+	 * Constructor.
+	 * @param interpreter the interpreter firing the events
+	 * @param monitor the output port of the monitor
+	 * @param capacity the maximum number of events waiting to be sent
+	 * @param batchSize the maximum number of events sent in a single message
+	 * @param dropPolicy what to do with new events when capacity events are already waiting
+	 */
+	public MonitoringEventDispatcher(
+		Interpreter interpreter,
+		OutputPort monitor,
+		int capacity,
+		int batchSize,
+		DropPolicy dropPolicy
+	) {
+		this.interpreter = interpreter;
+		this.monitor = monitor;
+		this.buffer = new EventRingBuffer( capacity );
+		this.batchSize = Math.max( 1, batchSize );
+		this.dropPolicy = dropPolicy;
+		this.drainer = new NativeJolieThread( interpreter, this::drain );
+		drainer.setName( interpreter.programFilename() + "-MonitoringEventDispatcher" );
+		drainer.setDaemon( true );
+	}
+
+	/**
+	 * Starts sending events to the monitor.
+	 */
+	public void start()
+	{
+		drainer.start();
+	}
+
+	/**
+	 * Stops this dispatcher. The events fired before this call are still sent
+	 * to the monitor, those fired after it are not.
+	 */
+	public void shutdown()
+	{
+		running = false;
+		LockSupport.unpark( drainer );
+	}
+
+	/**
+	 * Waits for the events fired before {@link #shutdown()} to be sent.
+	 * @param timeout the maximum time to wait, in milliseconds
+	 */
+	public void awaitTermination( long timeout )
+	{
+		try {
+			drainer.join( timeout );
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns the number of events that were dropped because the buffer was full
+	 * or because they could not be sent to the monitor.
+	 */
+	public long droppedEvents()
+	{
+		return droppedEvents.sum();
+	}
+
+	/**
+	 * Schedules an event to be sent to the monitor. This method never blocks.
+	 * @param event the event to send
+	 */
+	public void fire( MonitoringEvent event )
+	{
+		if ( Thread.currentThread() == drainer ) {
+			// Caused by sending events, e.g., events of the connection pool of the monitor
+			return;
+		}
+
+		if ( !buffer.offer( event ) ) {
+			if ( dropPolicy == DropPolicy.DROP_OLDEST ) {
+				do {
+					if ( buffer.poll() != null ) {
+						droppedEvents.increment();
+					}
+				} while( !buffer.offer( event ) );
+			} else {
+				droppedEvents.increment();
+				return;
+			}
+		}
+
+		if ( waiting ) {
+			LockSupport.unpark( drainer );
+		}
+	}
+
+	private void drain()
+	{
+		// Output ports and channels need an execution context, as in the session threads which used to send events.
+		// The drainer gets its own, so that it does not share the state of the init thread.
+		ExecutionThread.setCurrentThread( new SessionThread( interpreter, NullProcess.getInstance() ) );
+		final List< MonitoringEvent > batch = new ArrayList<>( batchSize );
+		MonitoringEvent event;
+		while( true ) {
+			while( batch.size() < batchSize && (event=buffer.poll()) != null ) {
+				batch.add( event );
+			}
+			if ( batch.isEmpty() ) {
+				if ( !running ) {
+					return;
+				}
+				// Publish waiting before checking the buffer, so that fire cannot miss it
+				waiting = true;
+				if ( running && buffer.isEmpty() ) {
+					LockSupport.parkNanos( this, IDLE_PARK_NANOS );
+				}
+				waiting = false;
+			} else {
+				send( batch );
+				batch.clear();
+			}
+		}
+	}
+
+	private void send( List< MonitoringEvent > batch )
+	{
+		if ( batching ) {
+			final Value request = Value.create();
+			final ValueVector events = request.getChildren( "events" );
+			for( MonitoringEvent e : batch ) {
+				events.add( MonitoringEvent.toValue( e ) );
+			}
+			request.getFirstChild( "dropped" ).setValue( droppedEvents.sum() );
+			final CommMessage response = sendRequest( "pushEvents", request );
+			if ( response == null ) {
+				droppedEvents.add( batch.size() );
+				return;
+			} else if ( !response.isFault() ) {
+				return;
+			} else if ( !isUnsupportedOperation( response ) ) {
+				interpreter.logWarning( "Monitor replied to pushEvents with fault " + response.fault().faultName() + ", dropping " + batch.size() + " events" );
+				droppedEvents.add( batch.size() );
+				return;
+			}
+			// The monitor does not support batches
+			batching = false;
+		}
+
+		for( MonitoringEvent e : batch ) {
+			if ( sendRequest( "pushEvent", MonitoringEvent.toValue( e ) ) == null ) {
+				droppedEvents.increment();
+			}
+		}
+	}
+
+	private static boolean isUnsupportedOperation( CommMessage response )
+	{
+		final String faultName = response.fault().faultName();
+		return Constants.IO_EXCEPTION_FAULT_NAME.equals( faultName )
+			|| INVALID_OPERATION_FAULT_NAME.equals( faultName );
+	}
+
+	/**
+	 * Sends a request to the monitor and waits for its acknowledgement.
+	 * @return the response of the monitor, or <code>null</code> if the request could not be sent
+	 */
+	private CommMessage sendRequest( String operationName, Value value )
+	{
+		final CommMessage m = CommMessage.createRequest( operationName, "/", value );
+		CommChannel channel = null;
+		try {
+			channel = monitor.getCommChannel();
+			channel.send( m );
+			CommMessage response;
+			do {
+				response = channel.recvResponseFor( m );
+			} while( response == null );
+			return response;
+		} catch( URISyntaxException e ) {
+			interpreter.logWarning( e );
+		} catch( IOException e ) {
+			interpreter.logWarning( e );
+		} finally {
+			if ( channel != null ) {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					interpreter.logWarning( e );
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,52 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.monitoring.events;
+
+import jolie.monitoring.MonitoringEvent;
+import jolie.runtime.Value;
+
+/**
+ * {@link MonitoringEvent} reporting the state of the pool of persistent
+ * output channels for a location and a protocol.
+ * 
+ * @author agent
+ */
+public class ConnectionPoolEvent extends MonitoringEvent {
+
+	public static final String EVICTION = "eviction";
+	public static final String EXHAUSTION = "exhaustion";
+
+	public ConnectionPoolEvent( String reason, String location, String protocol, int size, int idle, int maxSize, long waits, long waitTimeouts, long evictions )
+	{
+		super( "ConnectionPool", Value.create() );
+
+		data().getFirstChild( "reason" ).setValue( reason );
+		data().getFirstChild( "location" ).setValue( location );
+		data().getFirstChild( "protocol" ).setValue( protocol );
+		data().getFirstChild( "size" ).setValue( size );
+		data().getFirstChild( "idle" ).setValue( idle );
+		data().getFirstChild( "maxSize" ).setValue( maxSize );
+		data().getFirstChild( "waits" ).setValue( waits );
+		data().getFirstChild( "waitTimeouts" ).setValue( waitTimeouts );
+		data().getFirstChild( "evictions" ).setValue( evictions );
+	}
+}
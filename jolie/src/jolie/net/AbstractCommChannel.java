@@ -27,6 +27,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
@@ -42,12 +45,31 @@ public abstract class AbstractCommChannel extends CommChannel
 	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
 	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
 
-	private final Object responseRecvMutex = new Object();
+	/*
+	 * We use java.util.concurrent locks instead of monitors, as threads
+	 * blocked on a monitor would pin their carrier if they are virtual.
+	 */
+	private final ReentrantLock responseRecvLock = new ReentrantLock();
+	private final Condition responseReceiverCondition = responseRecvLock.newCondition();
 
 	private static class ResponseContainer
 	{
 		private ResponseContainer() {}
+		private final CountDownLatch latch = new CountDownLatch( 1 );
 		private CommMessage response = null;
+
+		private void setResponse( CommMessage response )
+		{
+			this.response = response;
+			latch.countDown();
+		}
+
+		private CommMessage awaitResponse()
+			throws InterruptedException
+		{
+			latch.await();
+			return response;
+		}
 	}
 
 	@Override
@@ -56,21 +78,19 @@ public abstract class AbstractCommChannel extends CommChannel
 	{
 		CommMessage response;
 		ResponseContainer monitor = null;
-		synchronized( responseRecvMutex ) {
+		responseRecvLock.lock();
+		try {
 			response = pendingResponses.remove( request.id() );
 			if ( response == null ) {
 				if ( pendingGenericResponses.isEmpty() ) {
 					assert( waiters.containsKey( request.id() ) == false );
 					monitor = new ResponseContainer();
 					waiters.put( request.id(), monitor );
-					//responseRecvMutex.notify();
 				} else {
 					response = pendingGenericResponses.remove( 0 );
 				}
 			}
-		}
-		if ( response == null ) {
-			synchronized( responseRecvMutex ) {
+			if ( response == null ) {
 				if ( responseReceiver == null ) {
 					responseReceiver = new ResponseReceiver( this, ExecutionThread.currentThread() );
 					Interpreter.getInstance().commCore().startCommChannelHandler( responseReceiver );
@@ -78,15 +98,14 @@ public abstract class AbstractCommChannel extends CommChannel
 					responseReceiver.wakeUp();
 				}
 			}
-			synchronized( monitor ) {
-				if ( monitor.response == null ) {
-					try {
-						monitor.wait();
-					} catch( InterruptedException e ) {
-						Interpreter.getInstance().logSevere( e );
-					}
-				}
-				response = monitor.response;
+		} finally {
+			responseRecvLock.unlock();
+		}
+		if ( response == null ) {
+			try {
+				response = monitor.awaitResponse();
+			} catch( InterruptedException e ) {
+				Interpreter.getInstance().logSevere( e );
 			}
 		}
 		return response;
@@ -103,7 +122,8 @@ public abstract class AbstractCommChannel extends CommChannel
 
 		private void timeout()
 		{
-			synchronized( parent.responseRecvMutex ) {
+			parent.responseRecvLock.lock();
+			try {
 				if ( keepRun == false ) {
 					if ( parent.waiters.isEmpty() ) {
 						timeoutHandler = null;
@@ -111,8 +131,10 @@ public abstract class AbstractCommChannel extends CommChannel
 					} else {
 						keepRun = true;
 					}
-					parent.responseRecvMutex.notify();
+					parent.responseReceiverCondition.signal();
 				}
+			} finally {
+				parent.responseRecvLock.unlock();
 			}
 		}
 
@@ -123,7 +145,7 @@ public abstract class AbstractCommChannel extends CommChannel
 				timeoutHandler.cancel();
 			}
 			keepRun = true;
-			parent.responseRecvMutex.notify();
+			parent.responseReceiverCondition.signal();
 		}
 
 		private void sleep()
@@ -138,7 +160,7 @@ public abstract class AbstractCommChannel extends CommChannel
 			ethread.interpreter().addTimeoutHandler( timeoutHandler );
 			try {
 				keepRun = false;
-				parent.responseRecvMutex.wait();
+				parent.responseReceiverCondition.await();
 			} catch( InterruptedException e ) {
 				Interpreter.getInstance().logSevere( e );
 			}
@@ -162,16 +184,13 @@ public abstract class AbstractCommChannel extends CommChannel
 					parent.waiters.entrySet().iterator().next();
 				monitor = entry.getValue();
 				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
-						entry.getKey(),
-						response.operationName(),
-						response.resourcePath(),
-						response.value(),
-						response.fault()
-					);
-					monitor.notify();
-				}
+				monitor.setResponse( new CommMessage(
+					entry.getKey(),
+					response.operationName(),
+					response.resourcePath(),
+					response.value(),
+					response.fault()
+				) );
 			}
 		}
 
@@ -181,10 +200,7 @@ public abstract class AbstractCommChannel extends CommChannel
 			if ( (monitor=parent.waiters.remove( response.id() )) == null ) {
 				parent.pendingResponses.put( response.id(), response );
 			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
-				}
+				monitor.setResponse( response );
 			}
 		}
 
@@ -194,16 +210,13 @@ public abstract class AbstractCommChannel extends CommChannel
 				ResponseContainer monitor;
 				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
 					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e )
-						);
-						monitor.notify();
-					}
+					monitor.setResponse( new CommMessage(
+						entry.getKey(),
+						"",
+						Constants.ROOT_RESOURCE_PATH,
+						Value.create(),
+						new FaultException( "IOException", e )
+					) );
 				}
 				parent.waiters.clear();
 			}
@@ -217,13 +230,18 @@ public abstract class AbstractCommChannel extends CommChannel
 			 * whole thing is safe iff the CommChannel is used only for outputs,
 			 * otherwise we are messing with correlation set checking.
 			 */
-			CommChannelHandler.currentThread().setExecutionThread( ethread ); // TODO: this is hacky..
+			ExecutionThread.setCurrentThread( ethread ); // TODO: this is hacky..
 
 			CommMessage response;
 			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
+				try {
+					/*
+					 * Multiplexed channels are read without holding their lock,
+					 * so that other requests can be sent in the meantime.
+					 */
+					response = parent.isMultiplexed() ? parent.recvImpl() : parent.recv();
+					parent.responseRecvLock.lock();
 					try {
-						response = parent.recv();
 						if ( response != null ) {
 							if ( response.hasGenericId() ) {
 								handleGenericMessage( response );
@@ -232,15 +250,45 @@ public abstract class AbstractCommChannel extends CommChannel
 							}
 						}
 						if ( parent.waiters.isEmpty() ) {
-							sleep();
+							if ( ethread.interpreter().isExiting() ) {
+								// Timeouts are not scheduled anymore, nobody would wake us up
+								keepRun = false;
+								parent.responseReceiver = null;
+							} else {
+								sleep();
+							}
 						}
-					} catch( IOException e ) {
+					} finally {
+						parent.responseRecvLock.unlock();
+					}
+				} catch( IOException e ) {
+					parent.responseRecvLock.lock();
+					try {
 						throwIOExceptionFault( e );
 						keepRun = false;
 						parent.responseReceiver = null;
+					} finally {
+						parent.responseRecvLock.unlock();
+					}
+					if ( parent.isMultiplexed() ) {
+						closeBrokenChannel();
 					}
 				}
 			}
 		}
+
+		/*
+		 * A broken multiplexed channel may still be in use by other requests,
+		 * so we close it here and let them fail instead of reusing it.
+		 */
+		private void closeBrokenChannel()
+		{
+			parent.setToBeClosed( true );
+			try {
+				parent.close();
+			} catch( IOException e ) {
+				Interpreter.getInstance().logFine( e );
+			}
+		}
 	}
 }
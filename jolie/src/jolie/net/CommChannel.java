@@ -57,6 +57,7 @@ public abstract class CommChannel
 	private long redirectionMessageId = 0L;
 	
 	private TimeoutHandler timeoutHandler = null;
+	private volatile CommCore.PersistentChannelPool persistentChannelPool = null;
 	
 	protected void setTimeoutHandler( TimeoutHandler timeoutHandler )
 	{
@@ -68,6 +69,16 @@ public abstract class CommChannel
 		return timeoutHandler;
 	}
 
+	void setPersistentChannelPool( CommCore.PersistentChannelPool persistentChannelPool )
+	{
+		this.persistentChannelPool = persistentChannelPool;
+	}
+
+	CommCore.PersistentChannelPool persistentChannelPool()
+	{
+		return persistentChannelPool;
+	}
+
 	protected long redirectionMessageId()
 	{
 		return redirectionMessageId;
@@ -182,6 +193,27 @@ public abstract class CommChannel
 		return false;
 	}
 
+	/**
+	 * Returns <code>true</code> if this channel can be shared by concurrent
+	 * requests, <code>false</code> otherwise.
+	 * @return <code>true</code> if this channel can be shared by concurrent requests
+	 */
+	protected boolean isMultiplexed()
+	{
+		return false;
+	}
+
+	/**
+	 * Returns <code>true</code> if the messages sent through this channel reach
+	 * their receiver as they are, without being serialized, <code>false</code> otherwise.
+	 * The values of such messages are shared between the sender and the receiver.
+	 * @return <code>true</code> if this channel does not serialize messages
+	 */
+	public boolean isInMemory()
+	{
+		return false;
+	}
+
 	/**
 	 * Receives a message from the channel. This is a blocking operation.
 	 * @return the received message
@@ -291,6 +323,10 @@ public abstract class CommChannel
 		throws IOException
 	{
 		isOpen = false;
+		final CommCore.PersistentChannelPool pool = persistentChannelPool;
+		if ( pool != null ) {
+			pool.remove( this );
+		}
 		closeImpl();
 	}
 
@@ -38,18 +38,25 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
+import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.JolieThreadPoolExecutor;
 import jolie.NativeJolieThread;
 import jolie.lang.Constants;
+import jolie.monitoring.MonitoringEvent;
+import jolie.monitoring.events.ConnectionPoolEvent;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ext.CommListenerFactory;
 import jolie.net.ext.CommProtocolFactory;
@@ -83,129 +90,327 @@ public class CommCore
 	private static final Logger logger = Logger.getLogger( "JOLIE" );
 
 	private final int connectionsLimit;
-	// private final int connectionCacheSize;
+	private final int connectionsCacheSize;
+	private final long connectionsCacheWait;
 	private final Interpreter interpreter;
 	
 	private final ReadWriteLock channelHandlersLock = new ReentrantReadWriteLock( true );
 
-	// Location URI -> Protocol name -> Persistent CommChannel object
-	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	// Location URI -> Protocol name -> Pool of persistent CommChannel objects
+	private final Map< URI, Map< String, PersistentChannelPool > > persistentChannels = new HashMap<>();
+	// Guards persistentChannels. Not a monitor, which would pin the carrier of virtual threads waiting for a channel.
+	private final Lock persistentChannelsLock = new ReentrantLock();
+	private final Condition channelReleased = persistentChannelsLock.newCondition();
 
-	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels )
-	{		
-		protocolChannels.remove( protocol );
-		if ( protocolChannels.isEmpty() ) {
-			persistentChannels.remove( location );
+	// Avoids pool events being fired while we are already firing one (monitors use output ports, too)
+	private final ThreadLocal< Boolean > firingPoolEvent = new ThreadLocal<>();
+
+	/**
+	 * A bounded pool of persistent channels for a location and a protocol.
+	 * A channel becomes a member of the pool the first time it is cached
+	 * and stops being one when it is closed, so the size of the pool counts
+	 * both the idle channels and the ones that are currently in use.
+	 * Multiplexed channels are never idle: they stay shared among all their
+	 * concurrent users, and we keep track of how many of these there are.
+	 * All accesses are guarded by persistentChannelsLock.
+	 */
+	class PersistentChannelPool
+	{
+		private final URI location;
+		private final String protocol;
+		private final Deque< CommChannel > idleChannels = new ArrayDeque<>();
+		private final Map< CommChannel, Integer > sharedChannels = new HashMap<>();
+		private int size = 0;
+		private long waits = 0L;
+		private long waitTimeouts = 0L;
+		private long evictions = 0L;
+
+		private PersistentChannelPool( URI location, String protocol )
+		{
+			this.location = location;
+			this.protocol = protocol;
+		}
+
+		/**
+		 * Takes the most recently used idle channel that is open and not busy.
+		 */
+		private CommChannel poll()
+		{
+			final Iterator< CommChannel > it = idleChannels.descendingIterator();
+			while( it.hasNext() ) {
+				final CommChannel channel = it.next();
+				// Busy channels are still being put back by their releasing thread
+				if ( channel.lock.tryLock() ) {
+					try {
+						it.remove();
+						// If we return a channel, make sure it will not timeout!
+						channel.setTimeoutHandler( null );
+						if ( channel.isOpen() ) {
+							return channel;
+						}
+						leave( channel );
+					} finally {
+						channel.lock.unlock();
+					}
+				}
+			}
+			return null;
+		}
+
+		/**
+		 * Takes the shared channel with the least users.
+		 * We do not check whether it is still open, as that would interfere
+		 * with its response receiver: broken shared channels are closed,
+		 * and hence removed from this pool, by the receiver itself.
+		 */
+		private CommChannel pollShared()
+		{
+			CommChannel ret = null;
+			int retUsers = Integer.MAX_VALUE;
+			for( Map.Entry< CommChannel, Integer > entry : sharedChannels.entrySet() ) {
+				if ( entry.getValue() < retUsers ) {
+					ret = entry.getKey();
+					retUsers = entry.getValue();
+				}
+			}
+			if ( ret != null ) {
+				sharedChannels.put( ret, retUsers + 1 );
+				// If we return a channel, make sure it will not timeout!
+				ret.setTimeoutHandler( null );
+			}
+			return ret;
+		}
+
+		private void leave( CommChannel channel )
+		{
+			channel.setPersistentChannelPool( null );
+			size--;
+			if ( size == 0 ) {
+				Map< String, PersistentChannelPool > protocolPools = persistentChannels.get( location );
+				if ( protocolPools != null && protocolPools.get( protocol ) == this ) {
+					protocolPools.remove( protocol );
+					if ( protocolPools.isEmpty() ) {
+						persistentChannels.remove( location );
+					}
+				}
+			}
+			channelReleased.signalAll();
+		}
+
+		/**
+		 * Removes a closed channel from this pool.
+		 */
+		void remove( CommChannel channel )
+		{
+			persistentChannelsLock.lock();
+			try {
+				if ( channel.persistentChannelPool() == this ) {
+					idleChannels.remove( channel );
+					sharedChannels.remove( channel );
+					leave( channel );
+				}
+			} finally {
+				persistentChannelsLock.unlock();
+			}
+		}
+
+		private MonitoringEvent createEvent( String reason )
+		{
+			return new ConnectionPoolEvent(
+				reason, location.toString(), protocol,
+				size, idleChannels.size() + sharedChannels.size(), connectionsCacheSize,
+				waits, waitTimeouts, evictions
+			);
 		}
 	}
-	
-	private void removePersistentChannel( URI location, String protocol, CommChannel channel )
+
+	private PersistentChannelPool getPersistentChannelPool( URI location, String protocol )
+	{
+		final Map< String, PersistentChannelPool > protocolPools = persistentChannels.get( location );
+		return ( protocolPools == null ) ? null : protocolPools.get( protocol );
+	}
+
+	private void firePoolEvent( MonitoringEvent event )
 	{
-		if ( persistentChannels.containsKey( location ) ) {
-			if ( persistentChannels.get( location ).get( protocol ) == channel ) {
-				removePersistentChannel( location, protocol, persistentChannels.get( location ) );
+		if ( event != null && firingPoolEvent.get() == null ) {
+			firingPoolEvent.set( Boolean.TRUE );
+			try {
+				interpreter.fireMonitorEvent( event );
+			} finally {
+				firingPoolEvent.remove();
 			}
 		}
 	}
 
+	/**
+	 * Returns an idle persistent channel for the specified location and protocol,
+	 * or <code>null</code> if the caller should open a new channel.
+	 * If the pool for the location is full and all its channels are busy,
+	 * this method waits for one of them to be released for at most the
+	 * time specified with the --conncachewait command line option.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol of the channel
+	 * @return an idle persistent channel, or <code>null</code> if none is available
+	 */
 	public CommChannel getPersistentChannel( URI location, String protocol )
 	{
 		CommChannel ret = null;
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels != null ) {
-				ret = protocolChannels.get( protocol );
-				if ( ret != null ) {
-					if ( ret.lock.tryLock() ) {
-						if ( ret.isOpen() ) {
-							/*
-							 * We are going to return this channel, but first
-							 * check if it supports concurrent use.
-							 * If not, then others should not access this until
-							 * the caller is finished using it.
-							 */
-							//if ( ret.isThreadSafe() == false ) {
-							removePersistentChannel( location, protocol, protocolChannels );
-							//} else {
-							// If we return a channel, make sure it will not timeout!
-							ret.setTimeoutHandler( null );
-							//if ( ret.timeoutHandler() != null ) {
-								//interpreter.removeTimeoutHandler( ret.timeoutHandler() );
-								// ret.setTimeoutHandler( null );
-							//}
-							//}
-							ret.lock.unlock();
-						} else { // Channel is closed
-							removePersistentChannel( location, protocol, protocolChannels );
-							ret.lock.unlock();
-							ret = null;
+		MonitoringEvent event = null;
+		persistentChannelsLock.lock();
+		try {
+			long deadline = 0L;
+			PersistentChannelPool pool;
+			while( ret == null && (pool=getPersistentChannelPool( location, protocol )) != null ) {
+				ret = pool.sharedChannels.isEmpty() ? pool.poll() : pool.pollShared();
+				if ( ret == null ) {
+					if ( pool.size < connectionsCacheSize || connectionsCacheWait <= 0 ) {
+						break;
+					}
+					final long now = System.currentTimeMillis();
+					if ( deadline == 0L ) {
+						deadline = now + connectionsCacheWait;
+						pool.waits++;
+					} else if ( now >= deadline ) {
+						pool.waitTimeouts++;
+						if ( interpreter.isMonitoring() ) {
+							event = pool.createEvent( ConnectionPoolEvent.EXHAUSTION );
 						}
-					} else { // Channel is busy
-						removePersistentChannel( location, protocol, protocolChannels );
-						ret = null;
+						break;
+					}
+					try {
+						channelReleased.await( deadline - now, TimeUnit.MILLISECONDS );
+					} catch( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+						break;
 					}
 				}
 			}
+		} finally {
+			persistentChannelsLock.unlock();
 		}
+		firePoolEvent( event );
 
 		return ret;
 	}
 
-	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol )
+	private void setTimeoutHandler( final CommChannel channel, final PersistentChannelPool pool )
 	{
-		/*if ( channel.timeoutHandler() != null ) {
-			interpreter.removeTimeoutHandler( channel.timeoutHandler() );
-		}*/
-
 		final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
 			@Override
 			public void onTimeout()
 			{
+				MonitoringEvent event = null;
 				try {
-					synchronized( persistentChannels ) {
+					persistentChannelsLock.lock();
+					try {
 						if ( channel.timeoutHandler() == this ) {
-							removePersistentChannel( location, protocol, channel );
-							channel.close();
 							channel.setTimeoutHandler( null );
+							pool.evictions++;
+							channel.close();
+							if ( interpreter.isMonitoring() ) {
+								event = pool.createEvent( ConnectionPoolEvent.EVICTION );
+							}
 						}
+					} finally {
+						persistentChannelsLock.unlock();
 					}
 				} catch( IOException e ) {
 					interpreter.logSevere( e );
 				}
+				firePoolEvent( event );
 			}
 		};
 		channel.setTimeoutHandler( handler );
 		interpreter.addTimeoutHandler( handler );
 	}
 
+	private PersistentChannelPool joinPersistentChannelPool( URI location, String protocol, CommChannel channel )
+	{
+		PersistentChannelPool pool = getPersistentChannelPool( location, protocol );
+		if ( pool == null ) {
+			if ( connectionsCacheSize <= 0 ) {
+				return null;
+			}
+			pool = new PersistentChannelPool( location, protocol );
+			persistentChannels.computeIfAbsent( location, k -> new HashMap<>() ).put( protocol, pool );
+		} else if ( pool.size >= connectionsCacheSize ) {
+			return null;
+		}
+		channel.setPersistentChannelPool( pool );
+		pool.size++;
+		if ( channel.isMultiplexed() ) {
+			pool.sharedChannels.put( channel, 0 );
+		}
+		return pool;
+	}
+
+	/**
+	 * Puts a released channel in the pool for its location and protocol.
+	 * The channel is closed if the pool is already full.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol of the channel
+	 * @param channel the channel to cache
+	 */
 	public void putPersistentChannel( URI location, String protocol, final CommChannel channel )
 	{
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if ( protocolChannels == null ) {
-				protocolChannels = new HashMap<>();
-				persistentChannels.put( location, protocolChannels );
+		persistentChannelsLock.lock();
+		try {
+			PersistentChannelPool pool = channel.persistentChannelPool();
+			if ( pool == null ) {
+				pool = joinPersistentChannelPool( location, protocol, channel );
+				if ( pool == null ) {
+					closePersistentChannel( channel );
+					return;
+				}
+			} else if ( channel.isMultiplexed() ) {
+				final int users = pool.sharedChannels.get( channel ) - 1;
+				pool.sharedChannels.put( channel, users );
+				if ( users > 0 ) {
+					return;
+				}
 			}
 			// Set the timeout
-			setTimeoutHandler( channel, location, protocol );
-			// Put the protocol in the cache (may overwrite another one)
-			protocolChannels.put( protocol, channel );
-			/*if ( protocolChannels.size() <= connectionCacheSize && protocolChannels.containsKey( protocol ) == false ) {
-				// Set the timeout
-				setTimeoutHandler( channel );
-				// Put the protocol in the cache
-				protocolChannels.put( protocol, channel );
-			} else {
-				try {
-					if ( protocolChannels.get( protocol ) != channel ) {
-						channel.close();
-					} else {
-						setTimeoutHandler( channel );
+			setTimeoutHandler( channel, pool );
+			if ( !channel.isMultiplexed() ) {
+				pool.idleChannels.addLast( channel );
+				channelReleased.signalAll();
+			}
+		} finally {
+			persistentChannelsLock.unlock();
+		}
+	}
+
+	/**
+	 * Makes a freshly created channel available to concurrent requests
+	 * for its location and protocol, if the channel supports multiplexing.
+	 * The caller counts as the first user of the channel.
+	 * @param location the location of the channel
+	 * @param protocol the name of the protocol of the channel
+	 * @param channel the channel to share
+	 */
+	public void sharePersistentChannel( URI location, String protocol, CommChannel channel )
+	{
+		if ( channel.isMultiplexed() ) {
+			persistentChannelsLock.lock();
+			try {
+				if ( channel.persistentChannelPool() == null ) {
+					final PersistentChannelPool pool = joinPersistentChannelPool( location, protocol, channel );
+					if ( pool != null ) {
+						pool.sharedChannels.put( channel, 1 );
 					}
-				} catch( IOException e ) {
-					interpreter.logWarning( e );
 				}
-			}*/
+			} finally {
+				persistentChannelsLock.unlock();
+			}
+		}
+	}
+
+	private void closePersistentChannel( CommChannel channel )
+	{
+		try {
+			channel.close();
+		} catch( IOException e ) {
+			interpreter.logWarning( e );
 		}
 	}
 
@@ -222,15 +427,19 @@ public class CommCore
 	 * Constructor.
 	 * @param interpreter the Interpreter to refer to for this CommCore operations
 	 * @param connectionsLimit if more than zero, specifies an upper bound to the connections handled in parallel.
+	 * @param connectionsCacheSize the maximum number of persistent output channels to keep for each location.
+	 * @param connectionsCacheWait if more than zero, the maximum time (in milliseconds) to wait for a persistent output channel when all those of its location are busy.
+	 * @param virtualThreads if true, connections are handled by virtual threads when the Java platform supports them.
 	 * @throws java.io.IOException
 	 */
-	public CommCore( Interpreter interpreter, int connectionsLimit /*, int connectionsCacheSize */ )
+	public CommCore( Interpreter interpreter, int connectionsLimit, int connectionsCacheSize, long connectionsCacheWait, boolean virtualThreads )
 		throws IOException
 	{
 		this.interpreter = interpreter;
 		this.localListener = LocalListener.create( interpreter );
 		this.connectionsLimit = connectionsLimit;
-		// this.connectionCacheSize = connectionsCacheSize;
+		this.connectionsCacheSize = connectionsCacheSize;
+		this.connectionsCacheWait = connectionsCacheWait;
 		this.threadGroup = new ThreadGroup( "CommCore-" + interpreter.hashCode() );
 		/* if ( connectionsLimit > 0 ) {
 			executorService = Executors.newFixedThreadPool( connectionsLimit, new CommThreadFactory() );
@@ -238,7 +447,14 @@ public class CommCore
 			executorService = Executors.newCachedThreadPool( new CommThreadFactory() );
 		}
 		*/
-		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		final ExecutorService virtualExecutor = virtualThreads
+			? JolieThreadPoolExecutor.newVirtualThreadPerTaskExecutor( interpreter.programFilename() + "-CommThread-" )
+			: null;
+		if ( virtualExecutor == null ) {
+			executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		} else {
+			executorService = virtualExecutor;
+		}
 		
 		selectorThreads = new SelectorThread[ Runtime.getRuntime().availableProcessors() ];
 		for( int i = 0; i < selectorThreads.length; i++ ) {
@@ -287,16 +503,30 @@ public class CommCore
 		return listenersMap.get( serviceName );
 	}
 	
-	private final Map< String, CommChannelFactory > channelFactories = new HashMap<>();
+	// Read by every output port creating a channel or a protocol, hence lock-free
+	private final Map< String, CommChannelFactory > channelFactories = new ConcurrentHashMap<>();
 
-	private CommChannelFactory getCommChannelFactory( String name )
+	/**
+	 * Returns the factory of the channels for the specified medium,
+	 * or <code>null</code> if the medium is not supported.
+	 * @param name the name of the medium, e.g., the scheme of a location URI
+	 * @return the factory of the channels for the specified medium
+	 * @throws IOException
+	 */
+	public CommChannelFactory getCommChannelFactory( String name )
 		throws IOException
 	{
+		if ( name == null ) {
+			return null; // e.g., the scheme of a location URI without one
+		}
 		CommChannelFactory factory = channelFactories.get( name );
 		if ( factory == null ) {
 			factory = interpreter.getClassLoader().createCommChannelFactory( name, this );
 			if ( factory != null ) {
-				channelFactories.put( name, factory );
+				final CommChannelFactory other = channelFactories.putIfAbsent( name, factory );
+				if ( other != null ) {
+					factory = other;
+				}
 			}
 		}
 		return factory;
@@ -314,16 +544,22 @@ public class CommCore
 		return factory.createChannel( uri, port );
 	}
 	
-	private final Map< String, CommProtocolFactory > protocolFactories = new HashMap<>();
+	private final Map< String, CommProtocolFactory > protocolFactories = new ConcurrentHashMap<>();
 	
 	public CommProtocolFactory getCommProtocolFactory( String name )
 		throws IOException
 	{
+		if ( name == null ) {
+			return null; // e.g., a port without a protocol
+		}
 		CommProtocolFactory factory = protocolFactories.get( name );
 		if ( factory == null ) {
 			factory = interpreter.getClassLoader().createCommProtocolFactory( name, this );
 			if ( factory != null ) {
-				protocolFactories.put( name, factory );
+				final CommProtocolFactory other = protocolFactories.putIfAbsent( name, factory );
+				if ( other != null ) {
+					factory = other;
+				}
 			}
 		}
 		return factory;
@@ -533,7 +769,9 @@ public class CommCore
 				InputOperation operation =
 					interpreter.getInputOperation( message.operationName() );
 				try {
-					operation.requestType().check( message.value() );
+					if ( !operation.isRequestTypeEquivalentTo( message.checkedType() ) ) {
+						operation.requestType().check( message.value() );
+					}
 					interpreter.correlationEngine().onMessageReceive( message, channel );
 					if ( operation instanceof OneWayOperation ) {
 						// We need to send the acknowledgement
@@ -594,8 +832,7 @@ public class CommCore
 		@Override
 		public void run()
 		{
-			final CommChannelHandler thread = CommChannelHandler.currentThread();
-			thread.setExecutionThread( interpreter().initThread() );
+			ExecutionThread.setCurrentThread( interpreter().initThread() );
 			channel.lock.lock();
 			channelHandlersLock.readLock().lock();
 			try {
@@ -633,7 +870,7 @@ public class CommCore
 				if ( channel.lock.isHeldByCurrentThread() ) {
 					channel.lock.unlock();
 				}
-				thread.setExecutionThread( null );
+				ExecutionThread.setCurrentThread( null );
 			}
 		}
 	}
@@ -699,6 +936,9 @@ public class CommCore
 	
 	private class PollingThread extends Thread {
 		private final Set< CommChannel > channels = new HashSet<>();
+		// Not a monitor: registering channels may be virtual threads
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Condition channelAdded = lock.newCondition();
 
 		private PollingThread()
 		{
@@ -711,11 +951,12 @@ public class CommCore
 			Iterator< CommChannel > it;
 			CommChannel channel;
 			while( active ) {
-				synchronized( this ) {
+				lock.lock();
+				try {
 					if ( channels.isEmpty() ) {
 						// Do not busy-wait for no reason
 						try {
-							this.wait();
+							channelAdded.await();
 						} catch( InterruptedException e ) {}
 					}
 					it = channels.iterator();
@@ -730,6 +971,8 @@ public class CommCore
 							e.printStackTrace();
 						}
 					}
+				} finally {
+					lock.unlock();
 				}
 				try {
 					Thread.sleep( 50 ); // msecs
@@ -752,11 +995,14 @@ public class CommCore
 				throw new IOException( "Channels registering for polling must implement PollableCommChannel interface");
 			}
 			
-			synchronized( this ) {
+			lock.lock();
+			try {
 				channels.add( channel );
 				if ( channels.size() == 1 ) { // set was empty
-					this.notify();
+					channelAdded.signal();
 				}
+			} finally {
+				lock.unlock();
 			}
 		}
 	}
@@ -778,11 +1024,13 @@ public class CommCore
 	private final SelectorThread[] selectorThreads;
 
 	private class SelectorThread extends NativeJolieThread {
-		// We use a custom class for debugging purposes (the profiler gives us the class name)
-		private class SelectorMutex extends Object {}
-		
+		// Locks, not monitors: connection handlers (un)registering their channels
+		// may be virtual threads, whose carriers would be pinned while waiting for a monitor
 		private final Selector selector;
-		private final SelectorMutex selectingMutex = new SelectorMutex();
+		// Held while selecting
+		private final ReentrantLock selectingLock = new ReentrantLock();
+		// Held while (un)registering channels and running the selected keys
+		private final ReentrantLock registrationLock = new ReentrantLock();
 		private final Deque< Runnable > selectorTasks = new ArrayDeque<>();
 		
 		public SelectorThread( Interpreter interpreter )
@@ -796,7 +1044,8 @@ public class CommCore
 			throws IOException
 		{
 			boolean keepRun;
-			synchronized( this ) {
+			registrationLock.lock();
+			try {
 				do {
 					for( final SelectionKey key : selectedKeys ) {
 						if ( key.isValid() ) {
@@ -834,7 +1083,8 @@ public class CommCore
 							}
 						}
 					}
-					synchronized( selectingMutex ) {
+					selectingLock.lock();
+					try {
 						if ( selector.selectNow() > 0 ) { // Clean up the cancelled keys
 							// If some new channels are selected, run again
 							selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
@@ -842,8 +1092,12 @@ public class CommCore
 						} else {
 							keepRun = false;
 						}
+					} finally {
+						selectingLock.unlock();
 					}
 				} while( keepRun );
+			} finally {
+				registrationLock.unlock();
 			}
 			return selectorTasks;
 		}
@@ -863,9 +1117,12 @@ public class CommCore
 			while( active ) {
 				try {
 					SelectionKey[] selectedKeys;
-					synchronized( selectingMutex ) {
+					selectingLock.lock();
+					try {
 						selector.select();
 						selectedKeys = selector.selectedKeys().toArray( new SelectionKey[0] );
+					} finally {
+						selectingLock.unlock();
 					}
 					final Deque< Runnable > tasks = runKeys( selectedKeys );
 					runTasks( tasks );
@@ -874,7 +1131,8 @@ public class CommCore
 				}
 			}
 
-			synchronized( this ) {
+			registrationLock.lock();
+			try {
 				for( SelectionKey key : selector.keys() ) {
 					try {
 						((SelectableStreamingCommChannel)key.attachment()).closeImpl();
@@ -882,6 +1140,8 @@ public class CommCore
 						interpreter.logWarning( e );
 					}
 				}
+			} finally {
+				registrationLock.unlock();
 			}
 		}
 		
@@ -893,17 +1153,23 @@ public class CommCore
 					return;
 				}
 
-				synchronized( this ) {
+				registrationLock.lock();
+				try {
 					if ( !isSelecting( channel ) ) {
 						selector.wakeup();
 						SelectableChannel c = channel.selectableChannel();
 						c.configureBlocking( false );
-						synchronized( selectingMutex ) {
+						selectingLock.lock();
+						try {
 							c.register( selector, SelectionKey.OP_READ, channel );
 							selector.wakeup();
 							channel.setSelectorIndex( index );
+						} finally {
+							selectingLock.unlock();
 						}
 					}
+				} finally {
+					registrationLock.unlock();
 				}
 			} catch( ClosedChannelException e ) {
 				interpreter.logWarning( e );
@@ -915,18 +1181,24 @@ public class CommCore
 		public void unregister( SelectableStreamingCommChannel channel )
 			throws IOException
 		{
-			synchronized( this ) {
+			registrationLock.lock();
+			try {
 				if ( isSelecting( channel ) ) {
 					selector.wakeup();
-					synchronized( selectingMutex ) {
+					selectingLock.lock();
+					try {
 						SelectionKey key = channel.selectableChannel().keyFor( selector );
 						if ( key != null ) {
 							key.cancel();
 						}
 						selector.selectNow();
+					} finally {
+						selectingLock.unlock();
 					}
 					channel.selectableChannel().configureBlocking( true );
 				}
+			} finally {
+				registrationLock.unlock();
 			}
 		}
 	}
@@ -974,7 +1246,19 @@ public class CommCore
 	}
 
 	/** Shutdowns the communication core, interrupting every communication-related thread. */
-	public synchronized void shutdown()
+	public void shutdown()
+	{
+		// Not a monitor: the caller may be a virtual thread, which would pin its carrier while
+		// waiting for the handlers of connections, themselves virtual threads, to terminate
+		shutdownLock.lock();
+		try {
+			shutdownImpl();
+		} finally {
+			shutdownLock.unlock();
+		}
+	}
+
+	private void shutdownImpl()
 	{
 		if ( active ) {
 			active = false;
@@ -1000,5 +1284,6 @@ public class CommCore
 		}
 	}
 
+	private final ReentrantLock shutdownLock = new ReentrantLock();
 	private boolean active = false;
 }
@@ -28,6 +28,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import jolie.lang.Constants;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
+import jolie.runtime.typing.Type;
 
 /**
  * A <code>CommMessage</code> represents a generic communication message.
@@ -63,6 +64,8 @@ public class CommMessage implements Serializable
 	private final String resourcePath;
 	private final Value value;
 	private final FaultException fault;
+	private transient Type checkedType = null;
+	private transient boolean copyOnWrite = false;
 
 	/**
 	 * Returns the resource path of this message.
@@ -114,6 +117,42 @@ public class CommMessage implements Serializable
 		return new CommMessage( getNewMessageId(), operationName, resourcePath, Value.createDeepCopy( value ), null );
 	}
 
+	/**
+	 * Creates a request message equipped with a lazy copy of snapshot
+	 * (see {@link Value#createLazyClone(jolie.runtime.Value)}), to be sent through an
+	 * {@link CommChannel#isInMemory() in-memory} channel: the receiver copies
+	 * only the nodes it accesses.
+	 * The responses to copy-on-write requests can also be copy-on-write,
+	 * see {@link #isCopyOnWrite()}.
+	 * @param operationName the name of the operation this request is meant for
+	 * @param resourcePath the resource path of this message
+	 * @param snapshot the message data, which must not be modified by anybody afterwards,
+	 * e.g., a {@link Value#createSnapshot(jolie.runtime.Value) snapshot}
+	 * @return a copy-on-write request message
+	 */
+	public static CommMessage createCopyOnWriteRequest( String operationName, String resourcePath, Value snapshot )
+	{
+		final CommMessage request = new CommMessage( getNewMessageId(), operationName, resourcePath, Value.createLazyClone( snapshot ), null );
+		request.copyOnWrite = true;
+		return request;
+	}
+
+	/**
+	 * Creates a response for the passed copy-on-write request, equipped with
+	 * a lazy copy of snapshot.
+	 * @param request the request message that caused this response
+	 * @param snapshot the data to equip the response with, which must not be modified
+	 * by anybody afterwards
+	 * @return a copy-on-write response for the passed request
+	 * @see #createCopyOnWriteRequest(java.lang.String, java.lang.String, jolie.runtime.Value)
+	 */
+	public static CommMessage createCopyOnWriteResponse( CommMessage request, Value snapshot )
+	{
+		final CommMessage response = createResponseTakingOwnership( request, Value.createLazyClone( snapshot ) );
+		response.copyOnWrite = true;
+		return response;
+	}
+
 	/**
 	 * Creates an empty (i.e. without data) response for the passed request.
 	 * @param request the request message that caused this response
@@ -121,19 +160,35 @@ public class CommMessage implements Serializable
 	 */
 	public static CommMessage createEmptyResponse( CommMessage request )
 	{
-		return createResponse( request, Value.create() );
+		return createResponseTakingOwnership( request, Value.create() );
 	}
 
 	/**
 	 * Creates a response for the passed request.
+	 * The response is equipped with a copy of value.
 	 * @param request the request message that caused this response
 	 * @param value the data to equip the response with
 	 * @return a response for the passed request
+	 * @see #createResponseTakingOwnership(jolie.net.CommMessage, jolie.runtime.Value)
 	 */
 	public static CommMessage createResponse( CommMessage request, Value value )
+	{
+		return createResponseTakingOwnership( request, Value.createDeepCopy( value ) );
+	}
+
+	/**
+	 * Creates a response for the passed request, equipped with value itself instead of a copy.
+	 * Use this only if value is not used by anybody else after this call, e.g., because
+	 * it has just been created: if the response is sent through an
+	 * {@link CommChannel#isInMemory() in-memory} channel, its receiver may keep and modify it.
+	 * @param request the request message that caused this response
+	 * @param value the data to equip the response with
+	 * @return a response for the passed request
+	 */
+	public static CommMessage createResponseTakingOwnership( CommMessage request, Value value )
 	{
 		//TODO support resourcePath
-		return new CommMessage( request.id, request.operationName, "/", Value.createDeepCopy( value ), null );
+		return new CommMessage( request.id, request.operationName, "/", value, null );
 	}
 
 	/**
@@ -217,6 +272,39 @@ public class CommMessage implements Serializable
 		return value;
 	}
 
+	/**
+	 * Records that the value of this message has been checked against type.
+	 * In-memory channels deliver this very message object to the receiver,
+	 * which can then skip checking the value against an equivalent type again.
+	 * @param type the type the value of this message has been checked against
+	 */
+	public void setCheckedType( Type type )
+	{
+		checkedType = type;
+	}
+
+	/**
+	 * Returns <code>true</code> if the value of this message is a lazy copy of the value
+	 * of its sender, i.e., if this message has been created with
+	 * {@link #createCopyOnWriteRequest(java.lang.String, java.lang.String, jolie.runtime.Value)}
+	 * or {@link #createCopyOnWriteResponse(jolie.net.CommMessage, jolie.runtime.Value)}.
+	 * @return <code>true</code> if the value of this message is a lazy copy
+	 */
+	public boolean isCopyOnWrite()
+	{
+		return copyOnWrite;
+	}
+
+	/**
+	 * Returns the type the value of this message has been checked against,
+	 * or <code>null</code> if it is unknown.
+	 * @return the type the value of this message has been checked against
+	 */
+	public Type checkedType()
+	{
+		return checkedType;
+	}
+
 	/**
 	 * The operation name of this message.
 	 * @return the operation name of this message
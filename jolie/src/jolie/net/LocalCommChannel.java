@@ -74,6 +74,12 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 			throw new IOException( "Unsupported operation" );
 		}
 
+		@Override
+		public boolean isInMemory()
+		{
+			return true;
+		}
+
 		@Override
 		protected void disposeForInputImpl()
 			throws IOException
@@ -137,6 +143,12 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		return m;
 	}
 	
+	@Override
+	public boolean isInMemory()
+	{
+		return true;
+	}
+
 	@Override
 	public boolean isReady()
 	{
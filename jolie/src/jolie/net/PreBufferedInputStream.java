@@ -21,20 +21,40 @@
  ***************************************************************************/
 
 
+
+
 package jolie.net;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
-public class PreBufferedInputStream extends BufferedInputStream
+/**
+ * A buffered input stream whose buffer can also be filled by its owner,
+ * see {@link #append(java.nio.ByteBuffer)}.
+ *
+ * Unlike {@link java.io.BufferedInputStream}, whose subclasses synchronize
+ * on their monitor, this stream does not synchronize: a virtual thread blocked
+ * reading while holding a monitor would pin its carrier.
+ * Channels read their streams from one thread at a time anyway.
+ */
+public class PreBufferedInputStream extends InputStream
 {
 	private final static int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+	private final static int DEFAULT_BUFFER_SIZE = 8192;
+
+	private final InputStream in;
+	private byte[] buf = new byte[ DEFAULT_BUFFER_SIZE ];
+	// Bytes in [pos, count) have not been read yet
+	private int pos = 0;
+	private int count = 0;
+	// Bytes from markpos on are kept until marklimit bytes have been read after it
+	private int markpos = -1;
+	private int marklimit = 0;
 	
 	public PreBufferedInputStream( InputStream istream )
 	{
-		super( istream );
+		this.in = istream;
 	}
 
 	public boolean hasCachedData()
@@ -53,6 +73,8 @@ public class PreBufferedInputStream extends BufferedInputStream
 	private void enlargeIfNecessary( int toBeWritten )
 	{
 		if ( count + toBeWritten >= buf.length ) {
+			// Keep the marked bytes, too
+			final int start = ( markpos < 0 ) ? pos : markpos;
 			int tentative = Math.max( count * 2, count + toBeWritten );
 			if ( tentative >= MAX_BUFFER_SIZE ) {
 				if ( count + toBeWritten < MAX_BUFFER_SIZE ) {
@@ -63,10 +85,13 @@ public class PreBufferedInputStream extends BufferedInputStream
 			}
 			
 			final byte nbuf[] = new byte[tentative];
-			final int remaining = count - pos;
-			System.arraycopy( buf, pos, nbuf, 0, remaining );
+			final int remaining = count - start;
+			System.arraycopy( buf, start, nbuf, 0, remaining );
 			buf = nbuf;
-			pos = 0;
+			pos -= start;
+			if ( markpos >= 0 ) {
+				markpos = 0;
+			}
 			count = remaining;
 		}
 	}
@@ -76,4 +101,141 @@ public class PreBufferedInputStream extends BufferedInputStream
 		enlargeIfNecessary( 1 );
 		buf[ count++ ] = b;
 	}
+
+	/**
+	 * Reads more bytes from the underlying stream into the buffer,
+	 * which must have been consumed (pos == count).
+	 * Works as in {@link java.io.BufferedInputStream}.
+	 */
+	private void fill()
+		throws IOException
+	{
+		if ( markpos < 0 ) {
+			pos = 0;
+		} else if ( pos >= buf.length ) {
+			if ( markpos > 0 ) {
+				// Drop the bytes before the mark
+				final int kept = pos - markpos;
+				System.arraycopy( buf, markpos, buf, 0, kept );
+				pos = kept;
+				markpos = 0;
+			} else if ( buf.length >= marklimit ) {
+				// The mark has expired
+				markpos = -1;
+				pos = 0;
+			} else {
+				final int size = (int) Math.min( Math.max( (long) pos * 2, DEFAULT_BUFFER_SIZE ), Math.min( marklimit, MAX_BUFFER_SIZE ) );
+				final byte nbuf[] = new byte[ size ];
+				System.arraycopy( buf, 0, nbuf, 0, pos );
+				buf = nbuf;
+			}
+		}
+		count = pos;
+		final int n = in.read( buf, pos, buf.length - pos );
+		if ( n > 0 ) {
+			count = pos + n;
+		}
+	}
+
+	@Override
+	public int read()
+		throws IOException
+	{
+		if ( pos >= count ) {
+			fill();
+			if ( pos >= count ) {
+				return -1;
+			}
+		}
+		return buf[ pos++ ] & 0xff;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len )
+		throws IOException
+	{
+		if ( (off | len | (off + len) | (b.length - (off + len))) < 0 ) {
+			throw new IndexOutOfBoundsException();
+		} else if ( len == 0 ) {
+			return 0;
+		}
+		int avail = count - pos;
+		if ( avail <= 0 ) {
+			if ( len >= buf.length && markpos < 0 ) {
+				// Do not bother copying through the buffer
+				return in.read( b, off, len );
+			}
+			fill();
+			avail = count - pos;
+			if ( avail <= 0 ) {
+				return -1;
+			}
+		}
+		final int n = Math.min( avail, len );
+		System.arraycopy( buf, pos, b, off, n );
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public long skip( long n )
+		throws IOException
+	{
+		if ( n <= 0 ) {
+			return 0;
+		}
+		long avail = count - pos;
+		if ( avail <= 0 ) {
+			if ( markpos < 0 ) {
+				return in.skip( n );
+			}
+			fill();
+			avail = count - pos;
+			if ( avail <= 0 ) {
+				return 0;
+			}
+		}
+		final long skipped = Math.min( avail, n );
+		pos += (int) skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available()
+		throws IOException
+	{
+		final int n = count - pos;
+		final int avail = in.available();
+		return n > (Integer.MAX_VALUE - avail) ? Integer.MAX_VALUE : n + avail;
+	}
+
+	@Override
+	public void mark( int readlimit )
+	{
+		marklimit = readlimit;
+		markpos = pos;
+	}
+
+	@Override
+	public void reset()
+		throws IOException
+	{
+		if ( markpos < 0 ) {
+			throw new IOException( "Resetting to invalid mark" );
+		}
+		pos = markpos;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return true;
+	}
+
+	@Override
+	public void close()
+		throws IOException
+	{
+		in.close();
+	}
 }
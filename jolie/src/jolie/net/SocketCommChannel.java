@@ -48,6 +48,89 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 	private final OutputStream ostream;
 	
 	private static final int SO_LINGER = 10000;
+
+	/*
+	 * The streams provided by java.nio.channels.Channels hold the blocking lock
+	 * of the socket channel while reading or writing, so a thread blocked
+	 * reading a response would prevent any other thread from sending requests
+	 * through a multiplexed channel. These streams only rely on the read and
+	 * write locks of the socket channel itself. They are used only for
+	 * multiplexed channels, where sending and receiving overlap.
+	 */
+	private static class SocketChannelInputStream extends InputStream
+	{
+		private final SocketChannel socketChannel;
+		private final byte[] singleByte = new byte[ 1 ];
+
+		private SocketChannelInputStream( SocketChannel socketChannel )
+		{
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public int read()
+			throws IOException
+		{
+			final int n = read( singleByte, 0, 1 );
+			return ( n < 1 ) ? -1 : ( singleByte[ 0 ] & 0xFF );
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+			throws IOException
+		{
+			if ( len == 0 ) {
+				return 0;
+			}
+			if ( socketChannel.isBlocking() == false ) {
+				throw new IllegalBlockingModeException();
+			}
+			return socketChannel.read( ByteBuffer.wrap( b, off, len ) );
+		}
+
+		@Override
+		public void close()
+			throws IOException
+		{
+			socketChannel.close();
+		}
+	}
+
+	private static class SocketChannelOutputStream extends OutputStream
+	{
+		private final SocketChannel socketChannel;
+
+		private SocketChannelOutputStream( SocketChannel socketChannel )
+		{
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public void write( int b )
+			throws IOException
+		{
+			write( new byte[] { (byte)b }, 0, 1 );
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len )
+			throws IOException
+		{
+			final ByteBuffer buffer = ByteBuffer.wrap( b, off, len );
+			while( buffer.hasRemaining() ) {
+				if ( socketChannel.write( buffer ) == 0 && socketChannel.isBlocking() == false ) {
+					throw new IllegalBlockingModeException();
+				}
+			}
+		}
+
+		@Override
+		public void close()
+			throws IOException
+		{
+			socketChannel.close();
+		}
+	}
 	
 	/** Constructor.
 	 * 
@@ -65,8 +148,13 @@ public class SocketCommChannel extends SelectableStreamingCommChannel
 		this.socketChannel = socketChannel;
 		socketChannel.socket().setSoLinger( true, SO_LINGER );
 		// this.istream = new PreBufferedInputStream( new BufferedInputStream( Channels.newInputStream( socketChannel ) ) );
-		this.istream = new PreBufferedInputStream( Channels.newInputStream( socketChannel ) );
-		this.ostream = new BufferedOutputStream( Channels.newOutputStream( socketChannel ) );
+		if ( isMultiplexed() ) {
+			this.istream = new PreBufferedInputStream( new SocketChannelInputStream( socketChannel ) );
+			this.ostream = new BufferedOutputStream( new SocketChannelOutputStream( socketChannel ) );
+		} else {
+			this.istream = new PreBufferedInputStream( Channels.newInputStream( socketChannel ) );
+			this.ostream = new BufferedOutputStream( Channels.newOutputStream( socketChannel ) );
+		}
 		setToBeClosed( false ); // Socket connections are kept open by default
 	}
 	
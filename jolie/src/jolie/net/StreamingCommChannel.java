@@ -36,6 +36,7 @@ public abstract class StreamingCommChannel extends AbstractCommChannel
 {
 	private final URI location;
 	private final CommProtocol protocol;
+	private Boolean multiplexed = null;
 	public StreamingCommChannel( URI location, CommProtocol protocol )
 	{
 		this.location = location;
@@ -54,6 +55,16 @@ public abstract class StreamingCommChannel extends AbstractCommChannel
 		return protocol.isThreadSafe();
 	}
 
+	@Override
+	protected boolean isMultiplexed()
+	{
+		// The protocol configuration is read only once, by the first caller
+		if ( multiplexed == null ) {
+			multiplexed = protocol.isThreadSafe() && protocol.isMultiplexed();
+		}
+		return multiplexed;
+	}
+
 	@Override
 	protected void releaseImpl()
 		throws IOException
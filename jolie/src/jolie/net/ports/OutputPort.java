@@ -26,12 +26,14 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.WeakHashMap;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.net.UnsupportedCommMediumException;
+import jolie.net.UnsupportedCommProtocolException;
+import jolie.net.ext.CommChannelFactory;
+import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.process.AssignmentProcess;
 import jolie.process.NullProcess;
@@ -57,6 +59,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 	private final Process configurationProcess;
 	private Expression locationExpression;
 	private final VariablePath locationVariablePath, protocolVariablePath;
+	private final VariablePath copyOnWriteVariablePath;
 	private final boolean isConstant;
 	private final Interface iface;
 
@@ -80,6 +83,8 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 					.add( Constants.LOCATION_NODE_NAME, 0 )
 					.toVariablePath();
 
+		this.copyOnWriteVariablePath = createCopyOnWriteVariablePath( id );
+
 		this.locationExpression = this.locationVariablePath;
 
 		this.configurationProcess = null;
@@ -101,6 +106,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		this.interpreter = interpreter;
 		this.locationVariablePath = locationVariablePath;
 		this.protocolVariablePath = protocolVariablePath;
+		this.copyOnWriteVariablePath = createCopyOnWriteVariablePath( id );
 		this.iface = iface;
 		this.locationExpression = locationVariablePath;
 		this.configurationProcess = NullProcess.getInstance();
@@ -142,6 +148,8 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 					.add( Constants.LOCATION_NODE_NAME, 0 )
 					.toVariablePath();
 
+		this.copyOnWriteVariablePath = createCopyOnWriteVariablePath( id );
+
 		this.locationExpression = locationVariablePath;
 		
 		// Create the configuration Process
@@ -157,6 +165,14 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		this.configurationProcess = new SequentialProcess( children.toArray( new Process[ children.size() ] ) );
 	}
 	
+	private static VariablePath createCopyOnWriteVariablePath( String id )
+	{
+		return new VariablePathBuilder( false )
+			.add( id, 0 )
+			.add( Constants.COPY_ON_WRITE_NODE_NAME, 0 )
+			.toVariablePath();
+	}
+
 	/**
 	 * Returns a new message with same operation and value, but resourcePath
 	 * updated to the current one of this output port.
@@ -208,10 +224,18 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		if ( protocolId.isEmpty() ) {
 			throw new IOException( "Unspecified protocol for output port " + id() );
 		}
-		return interpreter.commCore().createOutputCommProtocol(
-			protocolId,
+		ProtocolBinding binding = protocolBinding;
+		if ( binding == null || !binding.protocolId.equals( protocolId ) ) {
+			final CommProtocolFactory factory = interpreter.commCore().getCommProtocolFactory( protocolId );
+			if ( factory == null ) {
+				throw new UnsupportedCommProtocolException( protocolId );
+			}
+			binding = new ProtocolBinding( protocolId, factory );
+			protocolBinding = binding;
+		}
+		return binding.factory.createOutputProtocol(
 			protocolVariablePath,
-			new URI( locationExpression.evaluate().strValue() )
+			getEndpoint( locationExpression.evaluate() ).uri
 		);
 	}
 
@@ -228,16 +252,17 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 				ret = ret.createDuplicate();
 			}
 		} else {
-			URI uri = getLocation( loc );
+			Endpoint endpoint = getEndpoint( loc );
 			if ( forceNew ) {
 				// A fresh channel was requested
-				ret = interpreter.commCore().createCommChannel( uri, this );
+				ret = endpoint.createChannel( this );
 			} else {
 				// Try reusing an existing channel first
 				String protocol = protocolVariablePath.getValue().strValue();
-				ret = interpreter.commCore().getPersistentChannel( uri, protocol );
+				ret = interpreter.commCore().getPersistentChannel( endpoint.uri, protocol );
 				if ( ret == null ) {
-					ret = interpreter.commCore().createCommChannel( uri, this );
+					ret = endpoint.createChannel( this );
+					interpreter.commCore().sharePersistentChannel( endpoint.uri, protocol, ret );
 				}
 			}
 		}
@@ -246,12 +271,59 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		return ret;
 	}
 
-	private static class LazyLocalUriHolder {
-		private LazyLocalUriHolder() {}
-		private static final URI uri = URI.create( "local" );
+	/**
+	 * A location of this port, resolved: its parsed URI, resource path and,
+	 * once this port creates a channel for it, the factory for its medium.
+	 */
+	private static class Endpoint
+	{
+		private final String location;
+		private final URI uri;
+		private final String resourcePath;
+		private volatile CommChannelFactory channelFactory = null;
+
+		private Endpoint( String location )
+			throws URISyntaxException
+		{
+			this.location = location;
+			this.uri = new URI( location );
+			this.resourcePath = LocationParser.getResourcePath( uri );
+		}
+
+		private CommChannel createChannel( OutputPort port )
+			throws IOException
+		{
+			CommChannelFactory factory = channelFactory;
+			if ( factory == null ) {
+				factory = port.interpreter.commCore().getCommChannelFactory( uri.getScheme() );
+				if ( factory == null ) {
+					throw new UnsupportedCommMediumException( uri.getScheme() );
+				}
+				channelFactory = factory;
+			}
+			return factory.createChannel( uri, port );
+		}
+	}
+
+	private static class ProtocolBinding
+	{
+		private final String protocolId;
+		private final CommProtocolFactory factory;
+
+		private ProtocolBinding( String protocolId, CommProtocolFactory factory )
+		{
+			this.protocolId = protocolId;
+			this.factory = factory;
+		}
 	}
 
-	private static final Map< String, URI > uriCache = new WeakHashMap<>();
+	/*
+	 * The location and the protocol this port has been used with most recently.
+	 * They are replaced, without locking, whenever the location or protocol variables
+	 * hold a different value than the one they were resolved for.
+	 */
+	private volatile Endpoint endpoint = null;
+	private volatile ProtocolBinding protocolBinding = null;
 
 	/**
 	 * Returns the resource path of the location of this output port.
@@ -265,22 +337,17 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		if ( location.isChannel() ) {
 			return "/";
 		}
-		return LocationParser.getResourcePath( getLocation( location ) );
+		return getEndpoint( location ).resourcePath;
 	}
 
-	private URI getLocation( Value location )
+	private Endpoint getEndpoint( Value location )
 		throws URISyntaxException
 	{
-		if ( location.isChannel() ) {
-			return LazyLocalUriHolder.uri;
-		}
-		String s = location.strValue();
-		URI ret;
-		synchronized( uriCache ) {
-			if ( (ret=uriCache.get( s )) == null ) {
-				ret = new URI( s );
-				uriCache.put( s, ret );
-			}
+		final String s = location.strValue();
+		Endpoint ret = endpoint;
+		if ( ret == null || !ret.location.equals( s ) ) {
+			ret = new Endpoint( s );
+			endpoint = ret;
 		}
 		return ret;
 	}
@@ -319,6 +386,21 @@ public class OutputPort extends AbstractIdentifiableObject implements Port
 		return locationVariablePath;
 	}
 
+	/**
+	 * Returns <code>true</code> if the messages exchanged through the in-memory channels
+	 * of this output port (e.g., with an embedded service) can share their values with
+	 * their senders instead of being copied, i.e., if
+	 * <code>port.copyOnWrite</code> is <code>true</code>.
+	 * Shared values are copied node by node, when they are accessed.
+	 * @return <code>true</code> if copy-on-write is enabled for this output port
+	 * @see jolie.net.CommMessage#createCopyOnWriteRequest(java.lang.String, java.lang.String, jolie.runtime.Value)
+	 */
+	public boolean isCopyOnWrite()
+	{
+		final Value flag = copyOnWriteVariablePath.getValueOrNull();
+		return flag != null && flag.boolValue();
+	}
+
 	/**
 	 * Returns the protocol configuration process of this output port.
 	 * @return the protocol configuration process of this output port
@@ -220,4 +220,15 @@ public abstract class CommProtocol
 		throws IOException;
 
 	abstract public boolean isThreadSafe();
+
+	/**
+	 * Returns <code>true</code> if a channel using this protocol can be shared
+	 * by concurrent requests, whose responses are then dispatched to their
+	 * callers by message id. Multiplexed protocols must also be thread safe.
+	 * @return <code>true</code> if this protocol supports request multiplexing
+	 */
+	public boolean isMultiplexed()
+	{
+		return false;
+	}
 }
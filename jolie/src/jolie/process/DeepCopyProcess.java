@@ -54,6 +54,8 @@ public class DeepCopyProcess implements Process
 		} else {
 			leftPath.getValue().deepCopy( rightExpression.evaluate() );
 		}
+		// The copy may replace the nodes in the sub-tree of leftPath
+		leftPath.valueReplaced();
 	}
 	
 	public boolean isKillable()
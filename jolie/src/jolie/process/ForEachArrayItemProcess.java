@@ -57,6 +57,7 @@ public class ForEachArrayItemProcess implements Process
 		for( int i = 0; i < size; i++ ) {
 			target.path()[ length - 1 ] = new Pair<>( target.path()[ length - 1 ].key(), Value.create( i ) );
 			keyPath.makePointer( target );
+			keyPath.valueReplaced();
 			process.run();
 		}
 	}
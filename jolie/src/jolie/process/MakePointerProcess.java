@@ -48,6 +48,7 @@ public class MakePointerProcess implements Process
 			return;
 
 		leftPath.makePointer( rightPath );
+		leftPath.valueReplaced();
 	}
 	
 	public boolean isKillable()
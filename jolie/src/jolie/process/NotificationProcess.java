@@ -88,21 +88,38 @@ public class NotificationProcess implements Process
 
 		CommChannel channel = null;
 		try {
-			CommMessage message =
-				( outputExpression == null ) ?
+			CommMessage message = null;
+			// The value to check, which is not the value of copy-on-write requests:
+			// reading those would copy them
+			Value requestValue = null;
+			if ( outputPort.isCopyOnWrite() ) {
+				channel = outputPort.getCommChannel();
+				if ( channel.isInMemory() ) {
+					requestValue = RequestResponseProcess.snapshotOf( outputExpression );
+					message = CommMessage.createCopyOnWriteRequest( operationId, outputPort.getResourcePath(), requestValue );
+				}
+			}
+			if ( message == null ) {
+				message =
+					( outputExpression == null ) ?
 						CommMessage.createRequest( operationId, outputPort.getResourcePath(), Value.UNDEFINED_VALUE ) :
 						CommMessage.createRequest( operationId, outputPort.getResourcePath(), outputExpression.evaluate() );
+				requestValue = message.value();
+			}
 			if ( oneWayDescription != null ) {
 				try  {
-				oneWayDescription.requestType().check( message.value() );
+				oneWayDescription.requestType().check( requestValue );
+				message.setCheckedType( oneWayDescription.requestType() );
 				} catch( TypeCheckingException e ) {
 					if ( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
+						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), requestValue ) );
 					}
 					throw( e );
 				}
 			}
-			channel = outputPort.getCommChannel();
+			if ( channel == null ) {
+				channel = outputPort.getCommChannel();
+			}
 
 			log( "SENDING", message );
 			
@@ -110,7 +127,7 @@ public class NotificationProcess implements Process
 			
 			log( "SENT", message );
 			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.SUCCESS, "", outputPort.id(), requestValue ) );
 			}
 			
 			CommMessage response = null;
@@ -76,6 +76,7 @@ public class OneWayProcess implements InputOperationProcess
 		log( "RECEIVED", sessionMessage.message() );
 		if ( varPath != null ) {
 			varPath.getValue( state.root() ).refCopy( sessionMessage.message().value() );
+			varPath.valueReplaced();
 		}
 
 		return NullProcess.getInstance();
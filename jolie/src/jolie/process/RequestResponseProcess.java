@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.concurrent.Future;
 import jolie.ExecutionThread;
 import jolie.Interpreter;
+import jolie.TransparentExecutionThread;
 import jolie.lang.Constants;
 import jolie.monitoring.events.OperationEndedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
@@ -108,6 +109,7 @@ public class RequestResponseProcess implements InputOperationProcess
 		log( "RECEIVED", sessionMessage.message() );
 		if ( inputVarPath != null ) {
 			inputVarPath.getValue( state.root() ).refCopy( sessionMessage.message().value() );
+			inputVarPath.valueReplaced();
 		}
 
 		return new Process() {
@@ -174,6 +176,31 @@ public class RequestResponseProcess implements InputOperationProcess
 		return CommMessage.createFaultResponse( request, f );
 	}
 	
+	/**
+	 * Returns a copy of the value of outputExpression that nobody else modifies,
+	 * e.g., for sending it.
+	 * If the value is a variable that only the current thread can access,
+	 * i.e., it belongs to this session, it is not reached through links,
+	 * and no other branch of this session is running, the copy is a
+	 * {@link Value#createSnapshot(jolie.runtime.Value) snapshot}; otherwise it is a deep copy.
+	 */
+	static Value snapshotOf( Expression outputExpression )
+	{
+		if ( outputExpression == null ) {
+			return Value.UNDEFINED_VALUE;
+		}
+		if (
+			outputExpression instanceof VariablePath
+			&& !(ExecutionThread.currentThread() instanceof TransparentExecutionThread)
+		) {
+			final Value localOutput = ((VariablePath)outputExpression).getSessionLocalValueOrNull();
+			if ( localOutput != null ) {
+				return Value.createSnapshot( localOutput );
+			}
+		}
+		return Value.createDeepCopy( outputExpression.evaluate() );
+	}
+
 	private void runBehaviour( CommChannel channel, CommMessage message )
 		throws FaultException
 	{
@@ -201,16 +228,29 @@ public class RequestResponseProcess implements InputOperationProcess
 					details = typeMismatch.faultName();
 				}
 			} else {
-				response =
-					CommMessage.createResponse(
-						message,
-						( outputExpression == null ) ? Value.UNDEFINED_VALUE : outputExpression.evaluate()
-					);
+				// The value to check, which is not the value of copy-on-write responses:
+				// reading those would copy them
+				Value responseValue;
+				if ( outputExpression == null ) {
+					response = CommMessage.createEmptyResponse( message );
+					responseValue = response.value();
+				} else if ( channel.isInMemory() && !message.isCopyOnWrite() ) {
+					// The receiver may keep and modify the value of in-memory channels
+					response = CommMessage.createResponse( message, outputExpression.evaluate() );
+					responseValue = response.value();
+				} else {
+					// Serialized, or copied by the receiver on write
+					responseValue = snapshotOf( outputExpression );
+					response = channel.isInMemory() ?
+						CommMessage.createCopyOnWriteResponse( message, responseValue ) :
+						CommMessage.createResponseTakingOwnership( message, responseValue );
+				}
 					responseStatus = OperationEndedEvent.SUCCESS;
 					details = "";
 				if ( operation.typeDescription().responseType() != null ) {
 					try {
-						operation.typeDescription().responseType().check( response.value() );
+						operation.typeDescription().responseType().check( responseValue );
+						response.setCheckedType( operation.typeDescription().responseType() );
 					} catch( TypeCheckingException e ) {						
 						typeMismatch = new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Request-Response input operation output value TypeMismatch (operation " + operation.id() + "): " + e.getMessage() );						
 						response = CommMessage.createFaultResponse( message, new FaultException( Constants.TYPE_MISMATCH_FAULT_NAME, "Internal server error (TypeMismatch)" ) );
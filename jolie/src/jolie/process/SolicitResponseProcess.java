@@ -99,32 +99,49 @@ public class SolicitResponseProcess implements Process
 		CommChannel channel = null;
 		try {
 
-			CommMessage message =
-				CommMessage.createRequest(
-					operationId,
-					outputPort.getResourcePath(),
-					( outputExpression == null ) ? Value.UNDEFINED_VALUE : outputExpression.evaluate()
-				);
+			CommMessage message = null;
+			// The value to check, which is not the value of copy-on-write requests:
+			// reading those would copy them
+			Value requestValue = null;
+			if ( outputPort.isCopyOnWrite() ) {
+				channel = outputPort.getCommChannel();
+				if ( channel.isInMemory() ) {
+					requestValue = RequestResponseProcess.snapshotOf( outputExpression );
+					message = CommMessage.createCopyOnWriteRequest( operationId, outputPort.getResourcePath(), requestValue );
+				}
+			}
+			if ( message == null ) {
+				message =
+					CommMessage.createRequest(
+						operationId,
+						outputPort.getResourcePath(),
+						( outputExpression == null ) ? Value.UNDEFINED_VALUE : outputExpression.evaluate()
+					);
+				requestValue = message.value();
+			}
 
 			log( "SENDING", message );
 			if ( types.requestType() != null ) {
 				try {
-					types.requestType().check( message.value() );
+					types.requestType().check( requestValue );
+					message.setCheckedType( types.requestType() );
 				} catch ( TypeCheckingException e ) {
 					if ( Interpreter.getInstance().isMonitoring() ) {
-						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), message.value() ) );
+						Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( message.id()).toString(), OperationCallEvent.FAULT, "TypeMismatch:" + e.getMessage(), outputPort.id(), requestValue ) );
 					}
 
 					throw( e );
 				}
 			}
 
-			channel = outputPort.getCommChannel();
+			if ( channel == null ) {
+				channel = outputPort.getCommChannel();
+			}
 			channel.send( message );
 			//channel.release(); TODO release channel if possible (i.e. it will not be closed)
 			log( "SENT", message );
 			if ( Interpreter.getInstance().isMonitoring() ) {
-				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), message.value() ) );
+				Interpreter.getInstance().fireMonitorEvent( new OperationCallEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.toString ( message.id() ), OperationCallEvent.SUCCESS, "", outputPort.id(), requestValue ) );
 			}
 
 			CommMessage response = null;
@@ -135,6 +152,7 @@ public class SolicitResponseProcess implements Process
 
 			if ( inputVarPath != null )	 {
 				inputVarPath.setValue( response.value() );
+				inputVarPath.valueReplaced();
 			}
 
 			if ( response.isFault() ) {
@@ -160,7 +178,9 @@ public class SolicitResponseProcess implements Process
 			} else {
 				if ( types.responseType() != null ) {
 					try {
-						types.responseType().check( response.value() );
+						if ( !types.isResponseTypeEquivalentTo( response.checkedType() ) ) {
+							types.responseType().check( response.value() );
+						}
 						if ( Interpreter.getInstance().isMonitoring() ) {
 							Interpreter.getInstance().fireMonitorEvent( new OperationReplyEvent( operationId, ExecutionThread.currentThread().getSessionId(), Long.valueOf( response.id()).toString(), OperationReplyEvent.SUCCESS, "", outputPort.id(), response.value() ) );
 						}
@@ -44,6 +44,7 @@ public class UndefProcess implements Process
 			return;
 		
 		varPath.undef();
+		varPath.valueReplaced();
 	}
 	
 	public boolean isKillable()
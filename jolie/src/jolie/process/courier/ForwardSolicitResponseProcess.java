@@ -121,6 +121,7 @@ public class ForwardSolicitResponseProcess implements Process
 			
 			if ( inputVariablePath != null )	 {
 				inputVariablePath.setValue( response.value() );
+				inputVariablePath.valueReplaced();
 			}
 			
 			if ( response.isFault() ) {
@@ -61,4 +61,11 @@ public class ClosedVariablePath extends VariablePath
 	{
 		return rootValue;
 	}
+
+	@Override
+	public Value getSessionLocalValueOrNull()
+	{
+		// The root is not the state of a session
+		return null;
+	}
 }
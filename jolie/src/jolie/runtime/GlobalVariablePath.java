@@ -43,6 +43,12 @@ public class GlobalVariablePath extends VariablePath
 		return true;
 	}
 
+	@Override
+	public Value getSessionLocalValueOrNull()
+	{
+		return null;
+	}
+
 	@Override
 	protected VariablePath _createVariablePath( Pair< Expression, Expression >[] path )
 	{
@@ -23,6 +23,9 @@
 package jolie.runtime;
 
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 import jolie.runtime.typing.Type;
 
 /**
@@ -42,6 +45,29 @@ public abstract class InputOperation extends AbstractIdentifiableObject
 
 	public abstract Type requestType();
 
+	// Types known to be (or not to be) equivalent to the request type, see isRequestTypeEquivalentTo
+	private final Map< Type, Boolean > equivalentRequestTypes =
+		Collections.synchronizedMap( new WeakHashMap<>() );
+
+	/**
+	 * Returns <code>true</code> if a message value that has already been checked against type
+	 * does not need to be checked again against the request type of this operation.
+	 * The structural comparison of the two types is made only once for each type.
+	 * @param type the type to compare with the request type of this operation, may be <code>null</code>
+	 * @return <code>true</code> if type is equivalent to the request type of this operation
+	 */
+	public boolean isRequestTypeEquivalentTo( Type type )
+	{
+		if ( type == null ) {
+			return false;
+		}
+		final Type requestType = requestType();
+		if ( type == requestType ) {
+			return true;
+		}
+		return equivalentRequestTypes.computeIfAbsent( type, requestType::isEquivalentTo );
+	}
+
 	/**
 	 * Receives a message from CommCore and passes it to the right InputProcess.
 	 * If no suitable InputProcess is found, the message is enqueued in memory.
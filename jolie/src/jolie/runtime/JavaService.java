@@ -23,7 +23,9 @@
 package jolie.runtime;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Collections;
@@ -34,10 +36,15 @@ import jolie.lang.Constants;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.LocalCommChannel;
+import jolie.runtime.embedding.FreshReturnValue;
 import jolie.runtime.embedding.JavaServiceHelpers;
 import jolie.runtime.embedding.RequestResponse;
 
 /**
+ * The base class of services implemented in Java.
+ *
+ * The value returned by an operation is copied before it is sent to the caller,
+ * unless the operation is annotated with {@link FreshReturnValue}.
  *
  * @author Fabrizio Montesi
  */
@@ -51,25 +58,56 @@ public abstract class JavaService
 	
 	public interface ValueConverter {}
 
+	/*
+	 * Operations are invoked through method handles, adapted to the generic types below
+	 * so that they can be called with invokeExact:
+	 * method is (JavaService)Object or (JavaService,Object)Object,
+	 * parameterConstructor is (Value)Object and returnValueConstructor is (Object)Value.
+	 */
+	private static final MethodType PARAMETER_CONSTRUCTOR_TYPE = MethodType.methodType( Object.class, Value.class );
+	private static final MethodType RETURN_VALUE_CONSTRUCTOR_TYPE = MethodType.methodType( Value.class, Object.class );
+
 	private static class JavaOperation {
-		private final Method method;
-		private final Method parameterConstructor;
-		private final Method returnValueConstructor;
+		private final MethodHandle method;
+		private final MethodHandle parameterConstructor;
+		private final MethodHandle returnValueConstructor;
 		private final JavaOperationCallable callable;
+		private final boolean freshReturnValue;
 
 		private JavaOperation(
-				Method method,
-				Method parameterConstructor,
-				Method returnValueConstructor,
-				JavaOperationCallable callable
+				MethodHandle method,
+				MethodHandle parameterConstructor,
+				MethodHandle returnValueConstructor,
+				JavaOperationCallable callable,
+				boolean freshReturnValue
 		) {
 			this.method = method;
 			this.parameterConstructor = parameterConstructor;
 			this.returnValueConstructor = returnValueConstructor;
 			this.callable = callable;
+			this.freshReturnValue = freshReturnValue;
+		}
+
+		private Object invoke( JavaService service, Object[] args )
+			throws Throwable
+		{
+			return ( parameterConstructor == null )
+				? (Object)method.invokeExact( service )
+				: (Object)method.invokeExact( service, args[0] );
 		}
 	}
 
+	/*
+	 * The operation table of each JavaService class, built once and shared by all its instances.
+	 */
+	private static final ClassValue< Map< String, JavaOperation > > operationTables = new ClassValue< Map< String, JavaOperation > >() {
+		@Override
+		protected Map< String, JavaOperation > computeValue( Class<?> serviceClass )
+		{
+			return createOperationTable( serviceClass );
+		}
+	};
+
 	protected static class Embedder
 	{
 		private final Interpreter interpreter;
@@ -111,11 +149,16 @@ public abstract class JavaService
 	private final Map< String, JavaOperation > operations;
 
 	public JavaService()
+	{
+		this.operations = operationTables.get( this.getClass() );
+	}
+
+	private static Map< String, JavaOperation > createOperationTable( Class<?> serviceClass )
 	{
 		Map< String, JavaOperation > ops  = new HashMap<>();
 		
 		Class<?>[] params;
-		for( Method method : this.getClass().getDeclaredMethods() ) {
+		for( Method method : serviceClass.getDeclaredMethods() ) {
 			if ( Modifier.isPublic( method.getModifiers() ) ) {
 				params = method.getParameterTypes();
 				if ( params.length == 1 ) {
@@ -125,7 +168,7 @@ public abstract class JavaService
 				}
 			}
 		}
-		this.operations = Collections.unmodifiableMap( ops );
+		return Collections.unmodifiableMap( ops );
 	}
 
 	private static String getMethodName( Method method )
@@ -227,10 +270,9 @@ public abstract class JavaService
 		final Object[] args = getArguments( javaOperation, message );
 		javaService.interpreter.execute( () -> {
 			try {
-				javaOperation.method.invoke( javaService, args );
-			} catch( InvocationTargetException | IllegalAccessException e ) {
-				// This should never happen, as we filtered this out in the constructor.
-				javaService.interpreter.logSevere( e );
+				javaOperation.invoke( javaService, args );
+			} catch( Throwable t ) {
+				javaService.interpreter.logSevere( t );
 			}
 		} );
 		return CommMessage.createEmptyResponse( message );
@@ -240,26 +282,62 @@ public abstract class JavaService
 		throws IllegalAccessException
 	{
 		final Object[] args = getArguments( javaOperation, message );
+		final Object retObject;
 		try {
-			final Object retObject = javaOperation.method.invoke( javaService, args );
-			if ( retObject == null ) {
-				return CommMessage.createEmptyResponse( message );
-			} else {
-				return CommMessage.createResponse( message, (Value)javaOperation.returnValueConstructor.invoke( null, retObject ) );
-			}
-		} catch( InvocationTargetException e ) {
+			retObject = javaOperation.invoke( javaService, args );
+		} catch( Throwable t ) {
 			final FaultException fault =
-				( e.getCause() instanceof FaultException )
-				? (FaultException)e.getCause()
-				: new FaultException( e.getCause() );
+				( t instanceof FaultException )
+				? (FaultException)t
+				: new FaultException( t );
 			return CommMessage.createFaultResponse(
 				message,
 				fault
 			);
 		}
+		if ( retObject == null ) {
+			return CommMessage.createEmptyResponse( message );
+		} else {
+			try {
+				final Value retValue = (Value)javaOperation.returnValueConstructor.invokeExact( retObject );
+				return javaOperation.freshReturnValue
+					? CommMessage.createResponseTakingOwnership( message, retValue )
+					: CommMessage.createResponse( message, retValue );
+			} catch( Throwable t ) {
+				return CommMessage.createFaultResponse( message, new FaultException( t ) );
+			}
+		}
 	}
 
-	private void checkMethod( Map< String, JavaOperation > ops, Method method, Method parameterConstructor )
+	/*
+	 * Returns a method handle for a static converter method, adapted to type.
+	 */
+	private static MethodHandle converterHandle( Method converter, MethodType type )
+		throws IllegalAccessException
+	{
+		return ( converter == null ) ? null : MethodHandles.publicLookup().unreflect( converter ).asType( type );
+	}
+
+	private static void checkMethod( Map< String, JavaOperation > ops, Method method, Method parameterConstructor )
+	{
+		try {
+			putOperation( ops, method, parameterConstructor );
+		} catch( IllegalAccessException e ) {
+			// The method is not accessible from here (e.g., its class is not public): it cannot be an operation
+		}
+	}
+
+	private static MethodHandle operationHandle( Method method, Method parameterConstructor )
+		throws IllegalAccessException
+	{
+		final MethodType type = ( parameterConstructor == null )
+			? MethodType.methodType( Object.class, JavaService.class )
+			: MethodType.methodType( Object.class, JavaService.class, Object.class );
+		return MethodHandles.publicLookup().unreflect( method ).asType( type );
+	}
+
+	private static void putOperation( Map< String, JavaOperation > ops, Method method, Method parameterConstructor )
+		throws IllegalAccessException
 	{
 		final Class<?> returnType;
 		final Class<?>[] exceptions;
@@ -273,20 +351,22 @@ public abstract class JavaService
 				ops.put(
 					method.getName(),
 					new JavaOperation(
-						method,
-						parameterConstructor,
+						operationHandle( method, parameterConstructor ),
+						converterHandle( parameterConstructor, PARAMETER_CONSTRUCTOR_TYPE ),
 						null,
-						JavaService::requestResponseCallable
+						JavaService::requestResponseCallable,
+						false
 					)
 				);
 			} else if ( exceptions.length == 0 ) {
 				ops.put(
 					method.getName(),
 					new JavaOperation(
-						method,
-						parameterConstructor,
+						operationHandle( method, parameterConstructor ),
+						converterHandle( parameterConstructor, PARAMETER_CONSTRUCTOR_TYPE ),
 						null,
-						JavaService::oneWayCallable
+						JavaService::oneWayCallable,
+						false
 					)
 				);
 			}
@@ -301,10 +381,12 @@ public abstract class JavaService
 					ops.put(
 						getMethodName( method ),
 						new JavaOperation(
-							method,
-							parameterConstructor,
-							returnValueConstructor,
-							JavaService::requestResponseCallable
+							operationHandle( method, parameterConstructor ),
+							converterHandle( parameterConstructor, PARAMETER_CONSTRUCTOR_TYPE ),
+							converterHandle( returnValueConstructor, RETURN_VALUE_CONSTRUCTOR_TYPE ),
+							JavaService::requestResponseCallable,
+							method.getAnnotation( FreshReturnValue.class ) != null
+								|| method.getDeclaringClass().getAnnotation( FreshReturnValue.class ) != null
 						)
 					);
 				}
@@ -312,16 +394,18 @@ public abstract class JavaService
 		}
 	}
 
+	private static final Object[] NO_ARGUMENTS = new Object[0];
+
 	private static Object[] getArguments( final JavaOperation javaOperation, final CommMessage message )
 		throws IllegalAccessException
 	{
 		if ( javaOperation.parameterConstructor == null ) {
-			return new Object[0];
+			return NO_ARGUMENTS;
 		} else {
 			try {
-				return new Object[] { javaOperation.parameterConstructor.invoke( null, message.value() ) };
-			} catch( InvocationTargetException e ) {
-				throw new IllegalAccessException( e.getMessage() );
+				return new Object[] { (Object)javaOperation.parameterConstructor.invokeExact( message.value() ) };
+			} catch( Throwable t ) {
+				throw new IllegalAccessException( t.getMessage() );
 			}
 		}
 	}
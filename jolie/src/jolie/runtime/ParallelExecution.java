@@ -23,11 +23,19 @@ package jolie.runtime;
 
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import jolie.ExecutionThread;
 import jolie.TransparentExecutionThread;
 import jolie.process.Process;
 
+/**
+ * Executes a set of processes in parallel, each one in its own ExecutionThread.
+ * The first branch is run by the calling thread, the other ones are submitted
+ * to the interpreter executor.
+ */
 public class ParallelExecution
 {
 	private class ParallelThread extends TransparentExecutionThread
@@ -51,90 +59,95 @@ public class ParallelExecution
 		}
 	}
 	
-	final private Collection< ParallelThread > threads = new HashSet< ParallelThread >();
-	private FaultException fault = null;
-	private boolean isKilled = false;
+	final private Collection< ParallelThread > threads = ConcurrentHashMap.newKeySet();
+	final private ParallelThread[] branches;
+	final private AtomicReference< FaultException > fault = new AtomicReference<>();
+	final private AtomicBoolean isKilled = new AtomicBoolean( false );
+	final private Thread joiner = Thread.currentThread();
 
 	public ParallelExecution( Process[] procs )
 	{
-		for( Process proc : procs ) {
-			threads.add( new ParallelThread( proc ) );
+		branches = new ParallelThread[ procs.length ];
+		for( int i = 0; i < procs.length; i++ ) {
+			branches[ i ] = new ParallelThread( procs[ i ] );
+			threads.add( branches[ i ] );
 		}
 	}
 	
 	public void run()
 		throws FaultException
 	{
-		synchronized( this ) {
-			for( ParallelThread t : threads ) {
-				t.start();
-			}
+		final ExecutionThread ethread = ExecutionThread.currentThread();
 
-			ExecutionThread ethread;
-			while ( fault == null && !threads.isEmpty() ) {
-				ethread = ExecutionThread.currentThread();
-				try {
-					ethread.setCanBeInterrupted( true );
-					wait();
-					ethread.setCanBeInterrupted( false );
-				} catch( InterruptedException e ) {
-					synchronized( this ) {
-						if ( ethread.isKilled() && !threads.isEmpty() ) {
-							isKilled = true;
-							for( ParallelThread t : threads ) {
-								t.kill( ethread.killerFault() );
-							}
-							try {
-								wait();
-							} catch( InterruptedException ie ) {}
-						}
-					}
-				}
-			}
+		// We can run a branch ourselves only if we are the thread running ethread
+		final boolean runInline = branches.length > 0 && ethread.isRunByCurrentThread();
+		for( int i = runInline ? 1 : 0; i < branches.length; i++ ) {
+			branches[ i ].start();
+		}
+		if ( runInline ) {
+			ethread.runInline( branches[ 0 ], this::kill );
+		}
 
-			if ( fault != null ) {
-				for( ParallelThread t : threads ) {
-					t.kill( fault );
-				}
-				while ( !threads.isEmpty() ) {
-					try {
-						wait();
-					} catch( InterruptedException e ) {}
-				}
-				throw fault;
+		while( fault.get() == null && !threads.isEmpty() ) {
+			ethread.setCanBeInterrupted( true );
+			if ( ethread.isKilled() ) {
+				ethread.setCanBeInterrupted( false );
+				kill( ethread.killerFault() );
+				awaitTermination();
+			} else {
+				LockSupport.park( this );
+				ethread.setCanBeInterrupted( false );
+				Thread.interrupted();
 			}
 		}
+
+		final FaultException f = fault.get();
+		if ( f != null ) {
+			awaitTermination();
+			throw f;
+		}
+	}
+
+	private void kill( FaultException f )
+	{
+		// Branches are killed only once, as termination handlers clear their kill
+		if ( isKilled.compareAndSet( false, true ) ) {
+			killAll( f );
+		}
+	}
+
+	private void killAll( FaultException f )
+	{
+		for( ParallelThread t : threads ) {
+			t.kill( f );
+		}
+	}
+
+	private void awaitTermination()
+	{
+		while( !threads.isEmpty() ) {
+			LockSupport.park( this );
+			Thread.interrupted();
+		}
 	}
 	
 	private void terminationNotify( ParallelThread thread )
 	{
-		synchronized( this ) {
-			threads.remove( thread );
-			
-			if ( threads.isEmpty() ) {
-				notify();
-			}
+		threads.remove( thread );
+		if ( threads.isEmpty() ) {
+			LockSupport.unpark( joiner );
 		}
 	}
 	
-		
 	private void signalFault( ParallelThread thread, FaultException f )
 	{
-		synchronized( this ) {
-			threads.remove( thread );
-			if ( isKilled ) {
-				if ( threads.isEmpty() ) {
-					notify();
-				}
-			} else {
-				if ( fault == null ) {
-					fault = f;
-					notify();
-				} else if ( threads.isEmpty() ) {
-					notify();
-				}
-			}
+		threads.remove( thread );
+		if ( !isKilled.get() && fault.compareAndSet( null, f ) ) {
+			// The joiner may be busy running a branch, so we stop the others here
+			killAll( f );
+			LockSupport.unpark( joiner );
+		} else if ( threads.isEmpty() ) {
+			LockSupport.unpark( joiner );
 		}
 	}
-
 }
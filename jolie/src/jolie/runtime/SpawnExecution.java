@@ -104,6 +104,10 @@ public class SpawnExecution
 		} catch( InterruptedException e ) {
 			Interpreter.getInstance().logWarning( e );
 		}
+		if ( parentSpawnProcess.inPath() != null ) {
+			// The results replaced the previous value of inPath
+			parentSpawnProcess.inPath().valueReplaced();
+		}
 	}
 	
 	private void terminationNotify( SpawnedThread thread )
@@ -21,15 +21,15 @@
 
 package jolie.runtime;
 
-import java.lang.ref.WeakReference;
-
 /**
+ * A task to be run after a timeout, see {@link jolie.Interpreter#addTimeoutHandler(jolie.runtime.TimeoutHandler)}.
  * @author Fabrizio Montesi
  */
 public abstract class TimeoutHandler implements Runnable
 {
 	private final long time;
 	private volatile boolean cancelled = false;
+	private volatile TimerWheel.Entry entry = null;
 
 	public TimeoutHandler( long timeout )
 	{
@@ -40,10 +40,27 @@ public abstract class TimeoutHandler implements Runnable
 	{
 		return time;
 	}
+
+	void setEntry( TimerWheel.Entry entry )
+	{
+		this.entry = entry;
+	}
+
+	boolean isCancelled()
+	{
+		return cancelled;
+	}
 	
+	/**
+	 * Cancels this handler, removing it from the timer wheel it was added to.
+	 */
 	public void cancel()
 	{
 		cancelled = true;
+		final TimerWheel.Entry e = entry;
+		if ( e != null ) {
+			e.cancel();
+		}
 	}
 	
 	public void run()
@@ -54,32 +71,4 @@ public abstract class TimeoutHandler implements Runnable
 	}
 
 	protected abstract void onTimeout();
-
-	/**
-	 * Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	public static class Comparator implements java.util.Comparator< WeakReference< TimeoutHandler > >
-	{
-		@Override
-		public int compare( WeakReference< TimeoutHandler > wt1, WeakReference< TimeoutHandler > wt2 )
-		{
-			TimeoutHandler t1 = ( wt1 != null ) ? wt1.get() : null;
-			TimeoutHandler t2 = ( wt2 != null ) ? wt2.get() : null;
-			if ( t1 == null ) {
-				return -1;
-			} else if ( t2 == null ) {
-				return 1;
-			}
-			
-			// Both are not null after this
-
-			if ( t1.time < t2.time ) {
-				return -1;
-			} else if ( t1.time == t2.time ) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
-	}
 }
@@ -0,0 +1,348 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.runtime;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A hashed hierarchical timer wheel for {@link TimeoutHandler} objects.
+ *
+ * The wheel is owned by a single ticker thread. Other threads only enqueue
+ * additions and cancellations, so adding and cancelling a handler take
+ * constant time and no shared lock. Expired handlers are run by the
+ * executor passed to the constructor.
+ *
+ * Handlers are referenced weakly: a handler that is not referenced
+ * anywhere else is dropped without being run.
+ *
+ * @author agent
+ */
+public class TimerWheel
+{
+	private static final long TICK = 10; // msecs
+	private static final int ROOT_BITS = 8;
+	private static final int LEVEL_BITS = 6;
+	private static final int LEVELS = 4;
+	private static final int ROOT_MASK = (1 << ROOT_BITS) - 1;
+	private static final int LEVEL_MASK = (1 << LEVEL_BITS) - 1;
+	// Farther deadlines are parked in the last level and cascaded again later
+	private static final long MAX_TICKS = (1L << (ROOT_BITS + (LEVELS - 1) * LEVEL_BITS)) - 1;
+
+	static class Entry extends WeakReference< TimeoutHandler >
+	{
+		private final TimerWheel wheel;
+		private final long deadline; // in ticks
+		private Bucket bucket = null;
+		private Entry prev = null;
+		private Entry next = null;
+
+		private Entry( TimerWheel wheel, TimeoutHandler handler, long deadline )
+		{
+			super( handler, wheel.collected );
+			this.wheel = wheel;
+			this.deadline = deadline;
+		}
+
+		void cancel()
+		{
+			// An idle or stopped wheel has no entry to unlink
+			if ( !wheel.idle && !wheel.stopped ) {
+				wheel.cancellations.add( this );
+			}
+		}
+	}
+
+	private static class Bucket
+	{
+		private Entry head = null;
+
+		private void add( Entry entry )
+		{
+			entry.bucket = this;
+			entry.prev = null;
+			entry.next = head;
+			if ( head != null ) {
+				head.prev = entry;
+			}
+			head = entry;
+		}
+
+		private void remove( Entry entry )
+		{
+			if ( entry.prev == null ) {
+				head = entry.next;
+			} else {
+				entry.prev.next = entry.next;
+			}
+			if ( entry.next != null ) {
+				entry.next.prev = entry.prev;
+			}
+			entry.bucket = null;
+			entry.prev = null;
+			entry.next = null;
+		}
+
+		private Entry clear()
+		{
+			final Entry ret = head;
+			head = null;
+			return ret;
+		}
+	}
+
+	private final Bucket[][] levels = new Bucket[ LEVELS ][];
+	private final Queue< Entry > additions = new ConcurrentLinkedQueue<>();
+	private final Queue< Entry > cancellations = new ConcurrentLinkedQueue<>();
+	private final ReferenceQueue< TimeoutHandler > collected = new ReferenceQueue<>();
+	private final Executor executor;
+	private final Thread ticker;
+	private final long startTime = System.currentTimeMillis();
+	private long currentTick = 0; // The next tick to process
+	private int size = 0;
+	private volatile boolean idle = false;
+	private volatile boolean stopped = false;
+
+	/**
+	 * Constructor.
+	 * @param threadFactory the factory for the ticker thread
+	 * @param executor the executor running the expired handlers
+	 */
+	public TimerWheel( ThreadFactory threadFactory, Executor executor )
+	{
+		this.executor = executor;
+		levels[ 0 ] = new Bucket[ ROOT_MASK + 1 ];
+		for( int i = 1; i < LEVELS; i++ ) {
+			levels[ i ] = new Bucket[ LEVEL_MASK + 1 ];
+		}
+		for( Bucket[] level : levels ) {
+			for( int i = 0; i < level.length; i++ ) {
+				level[ i ] = new Bucket();
+			}
+		}
+		ticker = threadFactory.newThread( this::runTicker );
+		ticker.setDaemon( true );
+		ticker.start();
+	}
+
+	/**
+	 * Adds a handler, to be run when its time has come.
+	 * If the wheel has been stopped, the handler is run immediately.
+	 * @param handler the handler to add
+	 */
+	public void add( TimeoutHandler handler )
+	{
+		final Entry entry = new Entry( this, handler, toTicks( handler.time() ) );
+		handler.setEntry( entry );
+		additions.add( entry );
+		if ( stopped ) {
+			// The ticker may have already gone through its last additions
+			expireAdditions();
+		} else if ( idle ) {
+			LockSupport.unpark( ticker );
+		}
+	}
+
+	/**
+	 * Stops this wheel, running all of its handlers regardless of their time.
+	 * Returns after the ticker thread has terminated.
+	 */
+	public void expireAll()
+	{
+		stopped = true;
+		LockSupport.unpark( ticker );
+		boolean interrupted = false;
+		while( ticker.isAlive() ) {
+			try {
+				ticker.join();
+			} catch( InterruptedException e ) {
+				interrupted = true;
+			}
+		}
+		if ( interrupted ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private long toTicks( long time )
+	{
+		final long delta = time - startTime;
+		return ( delta <= 0 ) ? 0 : ( delta + TICK - 1 ) / TICK;
+	}
+
+	private long now()
+	{
+		return ( System.currentTimeMillis() - startTime ) / TICK;
+	}
+
+	private void runTicker()
+	{
+		while( !stopped ) {
+			processQueues();
+			if ( size == 0 ) {
+				idle = true;
+				if ( additions.isEmpty() && !stopped ) {
+					LockSupport.park( this );
+				}
+				idle = false;
+				// An empty wheel does not need to go through the elapsed ticks
+				currentTick = Math.max( currentTick, now() );
+			} else {
+				final long now = now();
+				while( currentTick <= now ) {
+					processTick();
+				}
+				LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( ( currentTick * TICK ) + startTime - System.currentTimeMillis() ) );
+			}
+		}
+
+		// stopped is set before these, so later additions are handled by add
+		processQueues();
+		for( Bucket[] level : levels ) {
+			for( Bucket bucket : level ) {
+				Entry entry = bucket.clear();
+				while( entry != null ) {
+					final Entry next = entry.next;
+					entry.bucket = null;
+					fire( entry );
+					entry = next;
+				}
+			}
+		}
+		size = 0;
+	}
+
+	private void processQueues()
+	{
+		Entry entry;
+		while( (entry=additions.poll()) != null ) {
+			final TimeoutHandler handler = entry.get();
+			if ( handler != null && !handler.isCancelled() ) {
+				insert( entry );
+			}
+		}
+		while( (entry=cancellations.poll()) != null ) {
+			unlink( entry );
+		}
+		Reference< ? extends TimeoutHandler > ref;
+		while( (ref=collected.poll()) != null ) {
+			unlink( (Entry) ref );
+		}
+	}
+
+	private void unlink( Entry entry )
+	{
+		if ( entry.bucket != null ) {
+			entry.bucket.remove( entry );
+			size--;
+		}
+	}
+
+	private void insert( Entry entry )
+	{
+		long expires = entry.deadline;
+		long delta = expires - currentTick;
+		final Bucket bucket;
+		if ( delta < 0 ) {
+			bucket = levels[ 0 ][ (int)( currentTick & ROOT_MASK ) ];
+		} else if ( delta <= ROOT_MASK ) {
+			bucket = levels[ 0 ][ (int)( expires & ROOT_MASK ) ];
+		} else {
+			if ( delta > MAX_TICKS ) {
+				expires = currentTick + MAX_TICKS;
+				delta = MAX_TICKS;
+			}
+			int level = 1;
+			while( delta >= ( 1L << ( ROOT_BITS + level * LEVEL_BITS ) ) ) {
+				level++;
+			}
+			bucket = levels[ level ][ (int)( ( expires >> ( ROOT_BITS + ( level - 1 ) * LEVEL_BITS ) ) & LEVEL_MASK ) ];
+		}
+		bucket.add( entry );
+		size++;
+	}
+
+	private void processTick()
+	{
+		final int index = (int)( currentTick & ROOT_MASK );
+		if ( index == 0 ) {
+			// Move the entries of the next slot of each upper level down
+			for( int level = 1; level < LEVELS; level++ ) {
+				final int slot = (int)( ( currentTick >> ( ROOT_BITS + ( level - 1 ) * LEVEL_BITS ) ) & LEVEL_MASK );
+				Entry entry = levels[ level ][ slot ].clear();
+				while( entry != null ) {
+					final Entry next = entry.next;
+					entry.bucket = null;
+					size--;
+					insert( entry );
+					entry = next;
+				}
+				if ( slot != 0 ) {
+					break;
+				}
+			}
+		}
+
+		Entry entry = levels[ 0 ][ index ].clear();
+		currentTick++;
+		while( entry != null ) {
+			final Entry next = entry.next;
+			entry.bucket = null;
+			size--;
+			if ( entry.deadline < currentTick ) {
+				fire( entry );
+			} else {
+				// Parked beyond the range of the wheel
+				insert( entry );
+			}
+			entry = next;
+		}
+	}
+
+	private void fire( Entry entry )
+	{
+		final TimeoutHandler handler = entry.get();
+		if ( handler != null && !handler.isCancelled() ) {
+			try {
+				executor.execute( handler );
+			} catch( RejectedExecutionException e ) {
+				// The interpreter is shutting down
+			}
+		}
+	}
+
+	private void expireAdditions()
+	{
+		Entry entry;
+		while( (entry=additions.poll()) != null ) {
+			fire( entry );
+		}
+	}
+}
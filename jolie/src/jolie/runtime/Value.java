@@ -27,13 +27,13 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import jolie.net.CommChannel;
 import jolie.process.TransformationReason;
+import jolie.runtime.correlation.CorrelationValueListener;
 import jolie.runtime.expression.Expression;
 import jolie.runtime.typing.TypeCastingException;
 
@@ -50,6 +50,11 @@ class ValueLink extends Value implements Cloneable
 		return getLinkedValue().getChildren( childId );
 	}
 
+	public ValueVector getChildrenOrNull( String childId )
+	{
+		return getLinkedValue().getChildrenOrNull( childId );
+	}
+
 /*	private void writeObject( ObjectOutputStream out )
 		throws IOException
 	{
@@ -124,8 +129,35 @@ class ValueImpl extends Value implements Cloneable, Serializable
 {
 	private static final long serialVersionUID = 1L;
 	
+	@SuppressWarnings( "rawtypes" )
+	private static final AtomicReferenceFieldUpdater< ValueImpl, Map > CHILDREN =
+		AtomicReferenceFieldUpdater.newUpdater( ValueImpl.class, Map.class, "children" );
+
+	/*
+	 * Primitive values stay boxed. Unboxed storage would need a long and a type tag
+	 * in every node, i.e., 16 more bytes per node, to save a box of 16 bytes only in
+	 * the leaves holding numbers (booleans, and ints and longs from -128 to 127, are cached anyway).
+	 * Subclasses per primitive type are not an option either, since a node keeps
+	 * its identity while its value changes type. See test/benchmarks/value_heap.ol.
+	 */
 	private volatile Object valueObject = null;
-	private final AtomicReference< Map< String, ValueVector > > children = new AtomicReference<>();
+	/*
+	 * Created on demand: most nodes of a tree are leaves and never need a map.
+	 * A plain volatile field with an updater instead of an AtomicReference
+	 * saves an object per node.
+	 */
+	private volatile Map< String, ValueVector > children = null;
+	/*
+	 * For lazy copies (see createLazyCopy): the value whose children this value
+	 * has not copied yet. The children are copied, lazily in turn,
+	 * the first time they are accessed.
+	 */
+	private volatile Value shared = null;
+	/*
+	 * Put in shared by _refCopy, in both values: their children map is used by
+	 * another value too, so detach cannot move it. Such values always have a children map.
+	 */
+	private static final Value ALIASED = new ValueImpl();
 	
 	public void setValueObject( Object object )
 	{
@@ -134,7 +166,136 @@ class ValueImpl extends Value implements Cloneable, Serializable
 
 	public ValueVector getChildren( String childId )
 	{
-		return children().computeIfAbsent( childId, k -> ValueVector.create() );
+		return getChildren( childId, children() );
+	}
+
+	public ValueVector getChildrenOrNull( String childId )
+	{
+		final Map< String, ValueVector > c = childrenOrNull();
+		return ( c == null ? null : c.get( childId ) );
+	}
+
+	private Map< String, ValueVector > childrenOrNull()
+	{
+		final Map< String, ValueVector > c = children;
+		return ( c == null && shared != null ) ? copySharedChildren() : c;
+	}
+
+	private Map< String, ValueVector > copySharedChildren()
+	{
+		final Value s = shared;
+		if ( s != null && s != ALIASED ) {
+			CHILDREN.compareAndSet( this, null, lazyCopyChildren( s ) );
+		}
+		return children;
+	}
+
+	/**
+	 * Returns an empty node for a copy of value. Copies of correlation values notify
+	 * the same listener: they replace the original ones, e.g., in the lazy copy left
+	 * in a session by a snapshot of its state, and must keep the correlation engine
+	 * up to date.
+	 */
+	static ValueImpl createNodeFor( Value value )
+	{
+		return value.isUsedInCorrelation() ? new CSetValue( ((CSetValue)value).listener() ) : new ValueImpl();
+	}
+
+	/**
+	 * Returns a copy of value which shares the sub-tree of value until it is accessed.
+	 * @see Value#createLazyClone(jolie.runtime.Value)
+	 */
+	static ValueImpl createLazyCopy( Value value )
+	{
+		final ValueImpl ret = createNodeFor( value );
+		ret.valueObject = value.valueObject();
+		if ( value.hasChildren() ) {
+			ret.shared = value;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns true if the sub-tree of value contains no links and shares no children map
+	 * with other values (see _refCopy), so that it can be moved by detach.
+	 * This visits the whole sub-tree: lazy copies are scanned without copying their nodes.
+	 */
+	static boolean isSelfContained( Value value )
+	{
+		if ( !(value instanceof ValueImpl) ) {
+			// Links, or the root of a state
+			return false;
+		}
+		final ValueImpl v = (ValueImpl)value;
+		final Value s = v.shared;
+		if ( s == ALIASED ) {
+			return false;
+		}
+		final Map< String, ValueVector > c = v.children;
+		if ( c == null ) {
+			return s == null || isSelfContained( s );
+		}
+		for( ValueVector vector : c.values() ) {
+			if ( !(vector instanceof ValueVectorImpl) || !((ValueVectorImpl)vector).allElementsMatch( ValueImpl::isSelfContained ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the value object and the sub-tree of value to a new value, which is returned,
+	 * and makes value a lazy copy of it.
+	 * value must be self-contained, see isSelfContained.
+	 * @see Value#createSnapshot(jolie.runtime.Value)
+	 */
+	static Value detach( ValueImpl value )
+	{
+		final Map< String, ValueVector > c = value.children;
+		final Value s = value.shared;
+		if ( c == null && s != null && s.valueObject() == value.valueObject ) {
+			// value is a lazy copy whose children have not been accessed since:
+			// its source is already a snapshot of it. Returning it avoids chaining
+			// lazy copies, and copying the nodes of the new snapshot when it is read.
+			return s;
+		}
+		final ValueImpl ret = new ValueImpl( value.valueObject );
+		if ( c != null || s != null ) {
+			ret.children = c;
+			ret.shared = s;
+			// Set shared first: readers look at it only when children is null
+			value.shared = ret;
+			value.children = null;
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns a lazy copy of value, which is a link if value is a link,
+	 * as in {@link #clone()}.
+	 */
+	static Value lazyCopy( Value value )
+	{
+		return value.isLink() ? ((ValueLink)value).clone() : createLazyCopy( value );
+	}
+
+	/**
+	 * Returns a copy of the children of value, made of lazy copies of its vectors.
+	 * Links are copied as links, as in {@link #clone()}.
+	 */
+	static Map< String, ValueVector > lazyCopyChildren( Value value )
+	{
+		final Map< String, ValueVector > otherChildren = value.children();
+		final Map< String, ValueVector > copy =
+			new ConcurrentHashMap<>( Math.max( SMALL_CAPACITY, otherChildren.size() ), LOAD_FACTOR );
+		for( Entry< String, ValueVector > entry : otherChildren.entrySet() ) {
+			if ( entry.getValue().isLink() ) {
+				copy.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
+			} else {
+				copy.put( entry.getKey(), ValueVectorImpl.createLazyCopy( entry.getValue() ) );
+			}
+		}
+		return copy;
 	}
 
 	public ValueImpl clone()
@@ -147,7 +308,13 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	protected void _refCopy( Value value )
 	{
 		setValueObject( value.valueObject() );
-		this.children.set( value.children() );
+		this.children = value.children();
+		// From now on, writes to either value show in the other one
+		this.shared = ALIASED;
+		final Value source = value.evaluate();
+		if ( source instanceof ValueImpl ) {
+			((ValueImpl)source).shared = ALIASED;
+		}
 	}
 
 	public final Value evaluate()
@@ -158,7 +325,8 @@ class ValueImpl extends Value implements Cloneable, Serializable
 	public void erase()
 	{
 		valueObject = null;
-		children.set( null );
+		shared = null;
+		children = null;
 	}
 	
 	protected ValueImpl() {}
@@ -170,14 +338,23 @@ class ValueImpl extends Value implements Cloneable, Serializable
 
 	public boolean hasChildren()
 	{
-		Map< String, ValueVector > c = children.get();
-		return ( c == null ? false : !c.isEmpty() );
+		final Map< String, ValueVector > c = children;
+		if ( c == null ) {
+			// No need to copy the shared children to answer
+			final Value s = shared;
+			return ( s != null && s.hasChildren() );
+		}
+		return !c.isEmpty();
 	}
 
 	public boolean hasChildren( String childId )
 	{
-		Map< String, ValueVector > c = children.get();
-		return ( c != null && c.containsKey( childId ) );
+		final Map< String, ValueVector > c = children;
+		if ( c == null ) {
+			final Value s = shared;
+			return ( s != null && s.hasChildren( childId ) );
+		}
+		return c.containsKey( childId );
 	}
 	
 	protected void _deepCopy( Value value, boolean copyLinks )
@@ -188,6 +365,12 @@ class ValueImpl extends Value implements Cloneable, Serializable
 		assignValue( value );
 
 		if ( value.hasChildren() ) {
+			// Fast path for values without children, e.g. those made by createDeepCopy:
+			// build the whole copy of the children map and then publish it
+			if ( childrenOrNull() == null && CHILDREN.compareAndSet( this, null, copyChildren( value, copyLinks ) ) ) {
+				return;
+			}
+
 			int i;
 			ValueImpl newValue;
 			Map< String, ValueVector > myChildren = children();
@@ -195,14 +378,14 @@ class ValueImpl extends Value implements Cloneable, Serializable
 				if ( copyLinks && entry.getValue().isLink() ) {
 					myChildren.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
 				} else {
-					List< Value > otherVector = entry.getValue().valuesCopy();
+					final Value[] otherVector = entry.getValue().toArray();
 					ValueVector vec = getChildren( entry.getKey(), myChildren );
 					i = 0;
 					for( Value v : otherVector ) {
 						if ( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink)v).clone() );
 						} else {
-							newValue = ( v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl() );
+							newValue = createNodeFor( v );
 							newValue._deepCopy( v, copyLinks );
 							vec.set( i, newValue );
 						}
@@ -213,19 +396,58 @@ class ValueImpl extends Value implements Cloneable, Serializable
 		}
 	}
 	
+	/**
+	 * Returns a deep copy of the children of value, for a value which has no children yet.
+	 * Unlike the merging copy in _deepCopy, the vectors are created with their final size
+	 * and are filled before anybody else can see them.
+	 */
+	private static Map< String, ValueVector > copyChildren( Value value, boolean copyLinks )
+	{
+		final Map< String, ValueVector > otherChildren = value.children();
+		final Map< String, ValueVector > copy =
+			new ConcurrentHashMap<>( Math.max( SMALL_CAPACITY, otherChildren.size() ), LOAD_FACTOR );
+		for( Entry< String, ValueVector > entry : otherChildren.entrySet() ) {
+			if ( copyLinks && entry.getValue().isLink() ) {
+				copy.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
+			} else {
+				// The snapshot is ours: replace its elements with their copies and make it the new vector
+				final Value[] values = entry.getValue().toArray();
+				for( int i = 0; i < values.length; i++ ) {
+					final Value v = values[ i ];
+					if ( copyLinks && v.isLink() ) {
+						values[ i ] = ((ValueLink)v).clone();
+					} else {
+						final ValueImpl newValue = createNodeFor( v );
+						newValue._deepCopy( v, copyLinks );
+						values[ i ] = newValue;
+					}
+				}
+				copy.put( entry.getKey(), new ValueVectorImpl( values ) );
+			}
+		}
+		return copy;
+	}
+
 	private static ValueVector getChildren( String childId, Map< String, ValueVector > children )
 	{
-		return children.computeIfAbsent( childId, k -> ValueVector.create() );
+		// Look up first, computeIfAbsent locks the bin even when the child exists
+		final ValueVector vec = children.get( childId );
+		return vec != null ? vec : children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
-	private final static int INITIAL_CAPACITY = 8;
+	// Most records have a handful of fields: start with a small table and let it grow
+	private final static int SMALL_CAPACITY = 4;
 	private final static float LOAD_FACTOR = 0.75f;
 	
 	public Map< String, ValueVector > children()
 	{
-		// Create the map if not present
-		children.getAndUpdate( v -> v == null ? new ConcurrentHashMap<> ( INITIAL_CAPACITY, LOAD_FACTOR ) : v );
-		return children.get();
+		// Create the map if not present, without writing to the reference when it is
+		final Map< String, ValueVector > c = childrenOrNull();
+		if ( c != null ) {
+			return c;
+		}
+		CHILDREN.compareAndSet( this, null, new ConcurrentHashMap<>( SMALL_CAPACITY, LOAD_FACTOR ) );
+		return children;
 	}
 	
 	public Object valueObject()
@@ -252,8 +474,17 @@ class RootValueImpl extends Value implements Cloneable
 	private final static int INITIAL_CAPACITY = 8;
 	private final static float LOAD_FACTOR = 0.75f;
 
-	private final Map< String, ValueVector > children =
-		new ConcurrentHashMap<> ( INITIAL_CAPACITY, LOAD_FACTOR );
+	private final Map< String, ValueVector > children;
+
+	RootValueImpl()
+	{
+		children = new ConcurrentHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
+	}
+
+	RootValueImpl( Map< String, ValueVector > children )
+	{
+		this.children = children;
+	}
 
 	public RootValueImpl clone()
 	{
@@ -271,7 +502,12 @@ class RootValueImpl extends Value implements Cloneable
 
 	public ValueVector getChildren( String childId )
 	{
-		return children.computeIfAbsent( childId, k -> ValueVector.create() );
+		return getChildren( childId, children );
+	}
+
+	public ValueVector getChildrenOrNull( String childId )
+	{
+		return children.get( childId );
 	}
 
 	public final Value evaluate()
@@ -313,14 +549,14 @@ class RootValueImpl extends Value implements Cloneable
 				if ( copyLinks && entry.getValue().isLink() ) {
 					children.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
 				} else {
-					List< Value > otherVector = entry.getValue().valuesCopy();
+					final Value[] otherVector = entry.getValue().toArray();
 					ValueVector vec = getChildren( entry.getKey(), children );
 					i = 0;
 					for( Value v : otherVector ) {
 						if ( copyLinks && v.isLink() ) {
 							vec.set( i, ((ValueLink)v).clone() );
 						} else {
-							newValue = ( v.isUsedInCorrelation() ? new CSetValue() : new ValueImpl() );
+							newValue = ValueImpl.createNodeFor( v );
 							newValue._deepCopy( v, copyLinks );
 							vec.set( i, newValue );
 						}
@@ -333,7 +569,9 @@ class RootValueImpl extends Value implements Cloneable
 
 	private static ValueVector getChildren( String childId, Map< String, ValueVector > children )
 	{
-		return children.computeIfAbsent( childId, k -> ValueVector.create() );
+		// Look up first, computeIfAbsent locks the bin even when the child exists
+		final ValueVector vec = children.get( childId );
+		return vec != null ? vec : children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
 	public Object valueObject()
@@ -344,21 +582,36 @@ class RootValueImpl extends Value implements Cloneable
 
 class CSetValue extends ValueImpl
 {
+	private final CorrelationValueListener listener;
+
+	public CSetValue()
+	{
+		this( null );
+	}
+
+	public CSetValue( CorrelationValueListener listener )
+	{
+		this.listener = listener;
+	}
+
 	@Override
 	public void setValueObject( Object object )
 	{
-		//CommCore commCore = Interpreter.getInstance().commCore();
-		//synchronized( commCore.correlationLock() )
-			//removeFromRadixTree();
-			super.setValueObject( object );
-			//addToRadixTree();
-		//}
+		super.setValueObject( object );
+		if ( listener != null ) {
+			listener.onCorrelationValueChange();
+		}
+	}
+
+	CorrelationValueListener listener()
+	{
+		return listener;
 	}
 
 	@Override
 	public CSetValue clone()
 	{
-		CSetValue ret = new CSetValue();
+		CSetValue ret = new CSetValue( listener );
 		ret._deepCopy( this, true );
 		return ret;
 	}
@@ -406,6 +659,17 @@ public abstract class Value implements Expression, Cloneable
 	{
 		return new CSetValue();
 	}
+
+	/**
+	 * Creates a correlation value that notifies the passed listener
+	 * every time it is assigned.
+	 * @param listener the listener to notify
+	 * @return the new correlation value
+	 */
+	public final static Value createCSetValue( CorrelationValueListener listener )
+	{
+		return new CSetValue( listener );
+	}
 	
 	public final static Value create( Boolean bool )
 	{
@@ -446,6 +710,53 @@ public abstract class Value implements Expression, Cloneable
 	{
 		return value.clone();
 	}
+
+	/**
+	 * Returns a copy of value whose nodes are copied from value only when
+	 * they are accessed, so that creating the copy does not depend on the size of value.
+	 * Nodes are copied the first time their children are accessed, whether for
+	 * reading or writing, because accessed nodes may be modified through references
+	 * kept by the caller.
+	 *
+	 * value is shared with the copy, so it must not be modified afterwards.
+	 * @param value the value to copy
+	 * @return a lazy copy of value
+	 * @see #createClone(jolie.runtime.Value)
+	 */
+	public final static Value createLazyClone( Value value )
+	{
+		if ( value instanceof RootValueImpl ) {
+			return new RootValueImpl( ValueImpl.lazyCopyChildren( value ) );
+		}
+		return ValueImpl.createLazyCopy( value );
+	}
+	
+	/**
+	 * Returns a copy of value which later changes to value do not affect, without copying its nodes.
+	 * The sub-tree of value is moved to the returned value, and value becomes a lazy copy
+	 * of it (see {@link #createLazyClone(jolie.runtime.Value)}), so that value can still
+	 * be read and modified as usual.
+	 * Checking that the sub-tree can be moved visits all of its nodes, so this takes
+	 * time linear in the size of value, but it allocates nothing.
+	 *
+	 * The returned value is shared with value, so it must not be modified:
+	 * it is meant to be read once, e.g., for sending it.
+	 * Nobody else may be modifying value meanwhile, e.g., another thread.
+	 *
+	 * Values whose sub-tree contains links, or nodes whose children are also
+	 * the children of other values (see {@link #refCopy(jolie.runtime.Value)}),
+	 * are deep copied instead: the snapshot would miss the changes made
+	 * through them, and they could still modify it.
+	 * @param value the value to copy
+	 * @return a snapshot of value
+	 */
+	public final static Value createSnapshot( Value value )
+	{
+		if ( ValueImpl.isSelfContained( value ) ) {
+			return ValueImpl.detach( (ValueImpl)value );
+		}
+		return createDeepCopy( value );
+	}
 	
 	public final static Value createDeepCopy( Value value )
 	{
@@ -478,6 +789,15 @@ public abstract class Value implements Expression, Cloneable
 	public abstract boolean hasChildren();
 	public abstract boolean hasChildren( String childId );
 	public abstract ValueVector getChildren( String childId );
+
+	/**
+	 * Returns the children of this value with the given name, or null if there are none.
+	 * Unlike {@link #getChildren(java.lang.String)} and {@link #children()}, this does not
+	 * create anything, so it is the way to look children up without modifying the tree.
+	 * @param childId the name of the children
+	 * @return the children named childId, or null
+	 */
+	public abstract ValueVector getChildrenOrNull( String childId );
 	
 	@Override
 	public abstract Value clone();
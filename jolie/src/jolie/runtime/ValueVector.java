@@ -22,9 +22,12 @@
 package jolie.runtime;
 
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
 
 class ValueVectorLink extends ValueVector implements Cloneable
 {
@@ -46,6 +49,12 @@ class ValueVectorLink extends ValueVector implements Cloneable
 		getLinkedValueVector().set( i, value );
 	}
 
+	public Value getOrNull( int i )
+	{
+		ValueVector vector = linkPath.getValueVectorOrNull();
+		return ( vector == null ) ? null : vector.getOrNull( i );
+	}
+
 	public ValueVectorLink( VariablePath path )
 	{
 		linkPath = path;
@@ -81,65 +90,344 @@ class ValueVectorLink extends ValueVector implements Cloneable
 
 class ValueVectorImpl extends ValueVector implements Serializable
 {
-	private final ArrayList< Value > values;
+	private static final long serialVersionUID = 1L;
+
+	/*
+	 * Elements live in [0, size). Slots from size on are always null, so a non-null
+	 * slot can be read without locking: this is what the fast paths of get and getOrNull do.
+	 * Writes happen under the lock of this vector.
+	 */
+	private volatile Value[] elements;
+	private volatile int size = 0;
+	/*
+	 * For lazy copies (see createLazyCopy): the elements of the copied vector.
+	 * A slot still holding the same element as here has not been copied yet,
+	 * and is copied the first time it is read. Cleared by the operations that
+	 * move elements to other slots, after copying all the remaining ones.
+	 * Readers must read this before the slot, see get.
+	 * Until the first write, elements is this same array, which belongs to the
+	 * copied vector: writers must get the array to write to from ensureCapacity.
+	 */
+	private volatile Value[] shared = null;
+
+	/**
+	 * A List view of this vector, for the generic code in ValueVector and links.
+	 * Created on demand, as the methods used in the common paths are overridden.
+	 */
+	private class ListView extends AbstractList< Value >
+	{
+		@Override
+		public Value get( int i )
+		{
+			if ( i >= size ) {
+				throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + size );
+			}
+			return ValueVectorImpl.this.get( i );
+		}
+
+		@Override
+		public Value set( int i, Value value )
+		{
+			synchronized( ValueVectorImpl.this ) {
+				final Value old = get( i );
+				ValueVectorImpl.this.set( i, value );
+				return old;
+			}
+		}
+
+		@Override
+		public void add( int i, Value value )
+		{
+			ValueVectorImpl.this.add( i, value );
+		}
+
+		@Override
+		public Value remove( int i )
+		{
+			return ValueVectorImpl.this.remove( i );
+		}
+
+		@Override
+		public int size()
+		{
+			return size;
+		}
+	}
 	
 	@Override
 	protected List< Value > values()
 	{
-		return values;
+		return new ListView();
 	}
 	
 	@Override
-	public synchronized int size()
+	public int size()
 	{
-		return values().size();
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Makes room for at least capacity elements and returns the array to write them to.
+	 * Must be called holding the lock of this vector.
+	 */
+	private Value[] ensureCapacity( int capacity )
+	{
+		Value[] e = elements;
+		if ( capacity > e.length ) {
+			// Grow by half plus a small chunk, so that small vectors do not reallocate at every append
+			e = Arrays.copyOf( e, Math.max( capacity, e.length + (e.length >> 1) + GROWTH_CHUNK ) );
+			elements = e;
+		} else if ( e == shared ) {
+			e = e.clone();
+			elements = e;
+		}
+		return e;
+	}
+
+	private static boolean isShared( Value[] sh, int i, Value v )
+	{
+		return sh != null && i < sh.length && sh[ i ] == v;
+	}
+
+	/**
+	 * Returns the element in slot i, copying it first if it is shared.
+	 * Must be called holding the lock of this vector, with i < size.
+	 */
+	private Value copyShared( int i )
+	{
+		Value v = elements[ i ];
+		if ( isShared( shared, i, v ) ) {
+			v = ValueImpl.lazyCopy( v );
+			ensureCapacity( size )[ i ] = v;
+		}
+		return v;
+	}
+
+	/**
+	 * Copies all the shared elements, so that elements can be moved between slots.
+	 * Must be called holding the lock of this vector.
+	 */
+	private void copyAllShared()
+	{
+		if ( shared != null ) {
+			ensureCapacity( size );
+			for( int i = 0; i < size; i++ ) {
+				copyShared( i );
+			}
+			shared = null;
+		}
 	}
 
 	@Override
 	public Value get( int i )
 	{
-		if ( i >= values.size() ) {
-			synchronized( this ) {
-				if ( i >= values.size() ) {
-					values.ensureCapacity( i + 1 );
-					for( int k = values.size(); k <= i; k++ ) {
-						values.add( Value.create() );
-					}
+		// Read shared first: if it is null, the copies of the shared slots are visible
+		final Value[] sh = shared;
+		final Value[] e = elements;
+		if ( i < e.length ) {
+			final Value v = e[ i ];
+			if ( v != null && !isShared( sh, i, v ) ) {
+				return v;
+			}
+		}
+		synchronized( this ) {
+			if ( i >= size ) {
+				final Value[] grown = ensureCapacity( i + 1 );
+				for( int k = size; k <= i; k++ ) {
+					grown[ k ] = Value.create();
 				}
+				size = i + 1;
 			}
+			return copyShared( i );
 		}
-		return values.get( i );
+	}
+
+	/**
+	 * Returns true if all the elements of this vector satisfy predicate.
+	 * The elements of lazy copies are passed without copying them,
+	 * so predicate must not modify them.
+	 */
+	boolean allElementsMatch( Predicate< Value > predicate )
+	{
+		final int s = size;
+		final Value[] e = elements;
+		for( int i = 0; i < s && i < e.length; i++ ) {
+			final Value v = e[ i ];
+			if ( v != null && !predicate.test( v ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public Value getOrNull( int i )
+	{
+		// Same unsynchronized read as the fast path of get
+		final Value[] sh = shared;
+		final Value[] e = elements;
+		final Value v = i < e.length ? e[ i ] : null;
+		if ( v != null && isShared( sh, i, v ) ) {
+			synchronized( this ) {
+				return i < size ? copyShared( i ) : null;
+			}
+		}
+		return v;
 	}
 
 	@Override
 	public synchronized void set( int i, Value value )
 	{
-		if ( i >= values.size() ) {
-			values.ensureCapacity( i + 1 );
-			for( int k = values.size(); k < i; k++ ) {
-				values.add( Value.create() );
+		if ( i >= size ) {
+			final Value[] e = ensureCapacity( i + 1 );
+			for( int k = size; k < i; k++ ) {
+				e[ k ] = Value.create();
 			}
-			values.add( value );
+			e[ i ] = value;
+			size = i + 1;
 		} else {
-			values.set( i, value );
+			ensureCapacity( size )[ i ] = value;
 		}
 	}
-	
+
+	@Override
+	public synchronized void add( Value value )
+	{
+		final int s = size;
+		ensureCapacity( s + 1 )[ s ] = value;
+		size = s + 1;
+	}
+
+	private synchronized void add( int i, Value value )
+	{
+		copyAllShared();
+		final int s = size;
+		if ( i < 0 || i > s ) {
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + s );
+		}
+		final Value[] e = ensureCapacity( s + 1 );
+		System.arraycopy( e, i, e, i + 1, s - i );
+		e[ i ] = value;
+		size = s + 1;
+	}
+
+	@Override
+	public synchronized Value remove( int i )
+	{
+		final int s = size;
+		if ( i >= s ) {
+			throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + s );
+		}
+		copyAllShared();
+		final Value[] e = ensureCapacity( s );
+		final Value ret = e[ i ];
+		// Shrink first, so that lock-free readers never see the freed slot as an element
+		size = s - 1;
+		System.arraycopy( e, i + 1, e, i, s - i - 1 );
+		e[ s - 1 ] = null;
+		return ret;
+	}
+
+	@Override
+	public Iterator< Value > iterator()
+	{
+		// Weakly consistent, like the iterators of the children maps
+		return new Iterator< Value >() {
+			private int next = 0;
+			private Value current = getOrNull( 0 );
+
+			@Override
+			public boolean hasNext()
+			{
+				return current != null;
+			}
+
+			@Override
+			public Value next()
+			{
+				if ( current == null ) {
+					throw new NoSuchElementException();
+				}
+				final Value ret = current;
+				current = getOrNull( ++next );
+				return ret;
+			}
+
+			@Override
+			public void remove()
+			{
+				ValueVectorImpl.this.remove( next - 1 );
+				current = getOrNull( --next );
+			}
+		};
+	}
+
+	@Override
+	public synchronized Value[] toArray()
+	{
+		copyAllShared();
+		return Arrays.copyOf( elements, size );
+	}
+
 	@Override
 	public boolean isLink()
 	{
 		return false;
 	}
 	
-	public synchronized List< Value > valuesCopy()
+	public List< Value > valuesCopy()
 	{
-		return (List< Value >)values.clone();
+		return Arrays.asList( toArray() );
 	}
 	
 	public ValueVectorImpl()
 	{
-		values = new ArrayList<>( 1 );
+		this( 1 );
 	}
+
+	ValueVectorImpl( int initialCapacity )
+	{
+		elements = new Value[ initialCapacity ];
+	}
+
+	/**
+	 * Creates a vector which takes ownership of the passed array.
+	 */
+	ValueVectorImpl( Value[] elements )
+	{
+		this.elements = elements;
+		this.size = elements.length;
+	}
+
+	/**
+	 * Returns a copy of vector whose elements are lazy copies, made when they are first read.
+	 * vector is shared with the copy, so it must not be modified afterwards.
+	 * @see Value#createLazyClone(jolie.runtime.Value)
+	 */
+	static ValueVectorImpl createLazyCopy( ValueVector vector )
+	{
+		final ValueVectorImpl ret;
+		if ( vector instanceof ValueVectorImpl && ((ValueVectorImpl)vector).shared == null ) {
+			// Share the array of vector until the first write, as vector does not change
+			final ValueVectorImpl other = (ValueVectorImpl)vector;
+			synchronized( other ) {
+				ret = new ValueVectorImpl( other.elements );
+				ret.size = other.size;
+			}
+		} else {
+			ret = new ValueVectorImpl( vector.toArray() );
+		}
+		ret.shared = ret.elements;
+		return ret;
+	}
+
+	private static final int GROWTH_CHUNK = 2;
 }
 
 public abstract class ValueVector implements Iterable< Value >
@@ -148,6 +436,17 @@ public abstract class ValueVector implements Iterable< Value >
 	{
 		return new ValueVectorImpl();
 	}
+
+	/**
+	 * Creates an empty vector with room for the given number of elements,
+	 * for when the size is known in advance, e.g. when decoding a message.
+	 * @param initialCapacity the number of elements the vector can hold before growing
+	 * @return a new empty vector
+	 */
+	public static ValueVector create( int initialCapacity )
+	{
+		return new ValueVectorImpl( initialCapacity );
+	}
 	
 	public synchronized Value remove( int i )
 	{
@@ -166,10 +465,11 @@ public abstract class ValueVector implements Iterable< Value >
 		if ( vec.isLink() ) {
 			retVec = ((ValueVectorLink)vec).clone();
 		} else {
-			retVec = create();
-			for( Value v : vec ) {
-				retVec.add( Value.createClone( v ) );
+			final Value[] values = vec.toArray();
+			for( int i = 0; i < values.length; i++ ) {
+				values[ i ] = Value.createClone( values[ i ] );
 			}
+			retVec = new ValueVectorImpl( values );
 		}
 		
 		return retVec;
@@ -191,6 +491,14 @@ public abstract class ValueVector implements Iterable< Value >
 	}
 	
 	public abstract Value get( int i );
+
+	/**
+	 * Returns the element at index i, or <code>null</code> if this vector
+	 * has no such element. Unlike {@link #get(int)}, this never grows the vector.
+	 * @param i the index of the element
+	 * @return the element at index i, or <code>null</code>
+	 */
+	public abstract Value getOrNull( int i );
 	public abstract void set( int i, Value value );
 	public abstract int size();
 	public abstract List< Value > valuesCopy();
@@ -200,6 +508,15 @@ public abstract class ValueVector implements Iterable< Value >
 	{
 		values().add( value );
 	}
+
+	/**
+	 * Returns a snapshot of the elements of this vector.
+	 * @return a new array containing the elements of this vector
+	 */
+	public synchronized Value[] toArray()
+	{
+		return values().toArray( new Value[ 0 ] );
+	}
 	
 	// TODO: improve performance
 	public synchronized void deepCopy( ValueVector vec )
@@ -40,6 +40,8 @@ public class VariablePath implements Expression, Cloneable
 	}
 
 	private final Pair< Expression, Expression >[] path; // Right Expression may be null
+	private final String[] keys; // Precomputed constant keys, null where the key must be evaluated
+	private final int[] indexes; // Precomputed constant indexes, -1 where the index must be evaluated
 
 	public final Pair< Expression, Expression >[] path()
 	{
@@ -51,6 +53,56 @@ public class VariablePath implements Expression, Cloneable
 		return false;
 	}
 
+	/**
+	 * Returns true if this path and otherPath may point to the same value, or one of them
+	 * may point to a value in the sub-tree of the value pointed by the other.
+	 * Keys and indexes which are not constants are assumed to match,
+	 * and so are the missing indexes of the last keys, which may stand for the whole vector.
+	 * @param otherPath the path to compare with this one
+	 * @return false if the two paths surely point to unrelated values, true otherwise
+	 */
+	public final boolean mayOverlap( VariablePath otherPath )
+	{
+		if ( isGlobal() != otherPath.isGlobal() ) {
+			return false;
+		}
+		final int length = Math.min( path.length, otherPath.path.length );
+		for( int i = 0; i < length; i++ ) {
+			if ( keys[i] != null && otherPath.keys[i] != null && !keys[i].equals( otherPath.keys[i] ) ) {
+				return false;
+			}
+			final int index = constantIndexAt( i, length );
+			final int otherIndex = otherPath.constantIndexAt( i, length );
+			if ( index >= 0 && otherIndex >= 0 && index != otherIndex ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the constant index at position i, or -1 if it is not known.
+	 */
+	private int constantIndexAt( int i, int length )
+	{
+		if ( path[i].value() == null ) {
+			return ( i == length - 1 ) ? -1 : 0;
+		}
+		return indexes[i];
+	}
+
+	/**
+	 * Tells the correlation engine that the value pointed by this path has been replaced
+	 * or removed, e.g., by an undef or by receiving a message in it.
+	 */
+	public final void valueReplaced()
+	{
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		if ( ethread != null ) {
+			ethread.interpreter().correlationEngine().onVariableReplaced( this );
+		}
+	}
+
 	protected static Pair< Expression, Expression >[] cloneExpressionHelper( Pair< Expression, Expression >[] path, TransformationReason reason )
 	{
 		Pair< Expression, Expression >[] clonedPath = new Pair[ path.length ];
@@ -66,7 +118,7 @@ public class VariablePath implements Expression, Cloneable
 	@Override
 	public VariablePath clone()
 	{
-		return new VariablePath( path );
+		return new VariablePath( path, keys, indexes );
 	}
 	
 	public Expression cloneExpression( TransformationReason reason )
@@ -92,15 +144,15 @@ public class VariablePath implements Expression, Cloneable
 			otherPair = otherVarPath.path[i];
 			
 			// *.element_name is not a subpath of *.other_name
-			if ( !pair.key().evaluate().strValue().equals( otherPair.key().evaluate().strValue() ) )
+			if ( !keyAt( i ).equals( otherVarPath.keyAt( i ) ) )
 				return null;
 			
 			// If element name is equal, check for the same index
 			expr = pair.value();
 			otherExpr = otherPair.value();
 			
-			myIndex = ( expr == null ) ? 0 : expr.evaluate().intValue();
-			otherIndex = ( otherExpr == null ) ? 0 : otherExpr.evaluate().intValue();
+			myIndex = ( expr == null ) ? 0 : indexAt( i );
+			otherIndex = ( otherExpr == null ) ? 0 : otherVarPath.indexAt( i );
 			if ( myIndex != otherIndex )
 				return null;
 		}
@@ -124,6 +176,44 @@ public class VariablePath implements Expression, Cloneable
 	public VariablePath( Pair< Expression, Expression >[] path )
 	{
 		this.path = path;
+		keys = new String[ path.length ];
+		indexes = new int[ path.length ];
+		for( int i = 0; i < path.length; i++ ) {
+			final Expression key = path[i].key();
+			if ( isConstant( key ) ) {
+				keys[i] = key.evaluate().strValue();
+			}
+			final Expression index = path[i].value();
+			indexes[i] = isConstant( index ) ? Math.max( -1, index.evaluate().intValue() ) : -1;
+		}
+	}
+
+	private VariablePath( Pair< Expression, Expression >[] path, String[] keys, int[] indexes )
+	{
+		this.path = path;
+		this.keys = keys;
+		this.indexes = indexes;
+	}
+
+	/*
+	 * Literals in paths (e.g., the "a" and "3" in a.b[3]) are built as plain Values,
+	 * so they can be evaluated once here instead of at every access.
+	 */
+	private static boolean isConstant( Expression expression )
+	{
+		return expression instanceof Value && !((Value)expression).isLink();
+	}
+
+	private String keyAt( int i )
+	{
+		final String key = keys[i];
+		return key == null ? path[i].key().evaluate().strValue() : key;
+	}
+
+	private int indexAt( int i )
+	{
+		final int index = indexes[i];
+		return index < 0 ? path[i].value().evaluate().intValue() : index;
 	}
 	
 	protected Value getRootValue()
@@ -141,8 +231,8 @@ public class VariablePath implements Expression, Cloneable
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[i];
-			keyStr = pair.key().evaluate().strValue();
-			currVector = currValue.children().get( keyStr );
+			keyStr = keyAt( i );
+			currVector = currValue.getChildrenOrNull( keyStr );
 			if ( currVector == null ) {
 				return;
 			} else if ( currVector.size() < 1 ) {
@@ -158,7 +248,7 @@ public class VariablePath implements Expression, Cloneable
 					currValue.children().remove( keyStr );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = indexAt( i );
 				if ( (i+1) < path.length ) {
 					if ( currVector.size() <= index ) {
 						return;
@@ -180,12 +270,12 @@ public class VariablePath implements Expression, Cloneable
 
 	public final Value getValue( Value currValue )
 	{
-		for( Pair< Expression, Expression > pair : path ) {
-			final String keyStr = pair.key().evaluate().strValue();
+		for( int i = 0; i < path.length; i++ ) {
+			final String keyStr = keyAt( i );
 			currValue =
-				pair.value() == null
+				path[i].value() == null
 				? currValue.getFirstChild( keyStr )
-				: currValue.getChildren( keyStr ).get( pair.value().evaluate().intValue() );
+				: currValue.getChildren( keyStr ).get( indexAt( i ) );
 		}
 
 		return currValue;
@@ -204,7 +294,7 @@ public class VariablePath implements Expression, Cloneable
 		} else {
 			for( int i = 0; i < path.length; i++ ) {
 				pair = path[i];
-				keyStr = pair.key().evaluate().strValue();
+				keyStr = keyAt( i );
 				currVector = currValue.getChildren( keyStr );
 				if ( pair.value() == null ) {
 					if ( (i+1) < path.length ) {
@@ -217,7 +307,7 @@ public class VariablePath implements Expression, Cloneable
 						}
 					}
 				} else {
-					index = pair.value().evaluate().intValue();
+					index = indexAt( i );
 					if ( (i+1) < path.length ) {
 						currValue = currVector.get( index );
 					} else {
@@ -232,6 +322,29 @@ public class VariablePath implements Expression, Cloneable
 		}
 	}
 
+	/**
+	 * Returns the value pointed by this path if it is part of the state of the current
+	 * session and it is reached without following links, or null otherwise.
+	 * Paths whose root is not the state of the current session, e.g., global paths,
+	 * always return null.
+	 * @return the value pointed by this path, or null
+	 */
+	public Value getSessionLocalValueOrNull()
+	{
+		Value currValue = getRootValue();
+		for( int i = 0; i < path.length; i++ ) {
+			final ValueVector currVector = currValue.getChildren( keyAt( i ) );
+			if ( currVector.isLink() ) {
+				return null;
+			}
+			currValue = currVector.get( path[i].value() == null ? 0 : indexAt( i ) );
+			if ( currValue.isLink() ) {
+				return null;
+			}
+		}
+		return currValue;
+	}
+
 	public final Value getValueOrNull()
 	{
 		return getValueOrNull( getRootValue() );
@@ -239,35 +352,12 @@ public class VariablePath implements Expression, Cloneable
 	
 	public final Value getValueOrNull( Value currValue )
 	{
-		for( int i = 0; i < path.length; i++ ) {
-			final Pair< Expression, Expression > pair = path[i];
-			final ValueVector currVector = currValue.children().get( pair.key().evaluate().strValue() );
+		for( int i = 0; i < path.length && currValue != null; i++ ) {
+			final ValueVector currVector = currValue.getChildrenOrNull( keyAt( i ) );
 			if ( currVector == null ) {
 				return null;
 			}
-			if ( pair.value() == null ) {
-				if ( (i+1) < path.length ) {
-					if ( currVector.isEmpty() ) {
-						return null;
-					}
-					currValue = currVector.get( 0 );
-				} else { // We're finished
-					if ( currVector.isEmpty() ) {
-						return null;
-					} else {
-						return currVector.get( 0 );
-					}
-				}
-			} else {
-				final int index = pair.value().evaluate().intValue();
-				if ( currVector.size() <= index ) {
-					return null;
-				}
-				currValue = currVector.get( index );
-				if ( (i+1) >= path.length ) {
-					return currValue;
-				}
-			}
+			currValue = currVector.getOrNull( path[i].value() == null ? 0 : indexAt( i ) );
 		}
 
 		return currValue;
@@ -278,12 +368,12 @@ public class VariablePath implements Expression, Cloneable
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[i];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( keyAt( i ) );
 			if ( (i+1) < path.length ) {
 				if ( pair.value() == null ) {
 					currValue = currVector.get( 0 );
 				} else {
-					currValue = currVector.get( pair.value().evaluate().intValue() );
+					currValue = currVector.get( indexAt( i ) );
 				}
 			}
 		}
@@ -294,23 +384,14 @@ public class VariablePath implements Expression, Cloneable
 	{
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
-			final Pair< Expression, Expression > pair = path[i];
-			currVector = currValue.children().get( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildrenOrNull( keyAt( i ) );
 			if ( currVector == null ) {
 				return null;
 			}
 			if ( (i+1) < path.length ) {
-				if ( pair.value() == null ) {
-					if ( currVector.isEmpty() ) {
-						return null;
-					}
-					currValue = currVector.get( 0 );
-				} else {
-					final int index = pair.value().evaluate().intValue();
-					if ( currVector.size() <= index ) {
-						return null;
-					}
-					currValue = currVector.get( index );
+				currValue = currVector.getOrNull( path[i].value() == null ? 0 : indexAt( i ) );
+				if ( currValue == null ) {
+					return null;
 				}
 			}
 		}
@@ -337,7 +418,7 @@ public class VariablePath implements Expression, Cloneable
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[i];
-			keyStr = pair.key().evaluate().strValue();
+			keyStr = keyAt( i );
 			currVector = currValue.getChildren( keyStr );
 			if ( pair.value() == null ) {
 				if ( (i+1) < path.length ) {
@@ -346,7 +427,7 @@ public class VariablePath implements Expression, Cloneable
 					currValue.children().put( keyStr, ValueVector.createLink( rightPath ) );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = indexAt( i );
 				if ( (i+1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
@@ -365,7 +446,7 @@ public class VariablePath implements Expression, Cloneable
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[i];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( keyAt( i ) );
 			if ( pair.value() == null ) {
 				if ( (i+1) < path.length ) {
 					currValue = currVector.get( 0 );
@@ -373,7 +454,7 @@ public class VariablePath implements Expression, Cloneable
 					return currVector;
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = indexAt( i );
 				if ( (i+1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
@@ -25,9 +25,13 @@ import jolie.Interpreter;
 import jolie.SessionListener;
 import jolie.SessionThread;
 import jolie.net.CommChannel;
+import java.util.List;
+import jolie.lang.Constants.ExecutionMode;
 import jolie.net.CommMessage;
 import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
 import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.correlation.impl.HashCorrelationEngine;
 import jolie.runtime.correlation.impl.SimpleCorrelationEngine;
 
 /**
@@ -46,8 +50,7 @@ public abstract class CorrelationEngine implements SessionListener
 		HASH {
 			@Override
 			public CorrelationEngine createInstance( Interpreter interpreter ) {
-				//return new HashCorrelationEngine( interpreter );
-				return null;
+				return new HashCorrelationEngine( interpreter );
 			}
 		};
 
@@ -70,6 +73,17 @@ public abstract class CorrelationEngine implements SessionListener
 	public abstract void onSingleExecutionSessionStart( SessionThread session );
 	protected abstract boolean routeMessage( CommMessage message, CommChannel channel );
 
+	/**
+	 * Called after the current session has replaced or removed the value
+	 * pointed by path together with its sub-tree, e.g., with undef or a deep copy,
+	 * instead of assigning it.
+	 * Engines which keep track of the correlation values of sessions can use this
+	 * to notice the correlation values which have been replaced.
+	 * @param path the path of the replaced value
+	 */
+	public void onVariableReplaced( VariablePath path )
+	{}
+
 	private final Interpreter interpreter;
 
 	public CorrelationEngine( Interpreter interpreter )
@@ -98,6 +112,48 @@ public abstract class CorrelationEngine implements SessionListener
 		}
 	}
 
+	/**
+	 * Checks whether a message correlates with a session, by comparing the
+	 * correlation values of the session with those carried by the message.
+	 * @param session the session to check
+	 * @param message the received message
+	 * @return {@code true} if the message correlates with the session, {@code false} otherwise
+	 */
+	public boolean correlate( SessionThread session, CommMessage message )
+	{
+		if ( (interpreter.correlationSets().isEmpty()
+			&& interpreter.executionMode() == ExecutionMode.SINGLE)
+			||
+			session.isInitialisingThread()
+		) {
+			return true;
+		}
+
+		final CorrelationSet cset = interpreter.getCorrelationSetForOperation( message.operationName() );
+		if ( cset == null ) {
+			return interpreter.executionMode() == ExecutionMode.SINGLE; // It must be a session starter.
+		}
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( message.operationName() );
+		for( CorrelationPair cpair : pairs ) {
+			final Value sessionValue = cpair.sessionPath().getValueOrNull( session.state().root() );
+			if ( sessionValue == null ) {
+				return false;
+			} else {
+				Value messageValue = cpair.messagePath().getValueOrNull( message.value() );
+				if ( messageValue == null ) {
+					return false;
+				} else {
+					// TODO: Value.equals is type insensitive, fix this with an additional check.
+					if ( !sessionValue.isDefined() || !messageValue.isDefined() || !sessionValue.equals( messageValue ) ) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
 	public void onMessageReceive( final CommMessage message, final CommChannel channel )
 		throws CorrelationError
 	{
@@ -21,16 +21,301 @@
 
 package jolie.runtime.correlation.impl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jolie.ExecutionThread;
 import jolie.Interpreter;
+import jolie.SessionThread;
+import jolie.lang.Constants.ExecutionMode;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.net.SessionMessage;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.VariablePath;
+import jolie.runtime.correlation.CorrelationEngine;
+import jolie.runtime.correlation.CorrelationSet;
+import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
 
 /**
- * A hash table based correlation algorithm (stub).
+ * A hash table based correlation algorithm.
+ * For each correlating operation, sessions are indexed by the tuple of
+ * their correlation values, so that an incoming message can be routed
+ * by looking up the tuple carried by the message instead of checking
+ * every running session.
+ * The index is kept up to date by binding the correlation variables of
+ * each session to correlation values that notify this engine whenever
+ * they are assigned.
+ * Sessions which replace or remove these values (e.g., by spawning in them)
+ * are bound again and reindexed when that happens, so that a message which
+ * misses the index can be rejected without checking the running sessions.
  * @author Fabrizio Montesi
  */
-public class HashCorrelationEngine extends SimpleCorrelationEngine
+public class HashCorrelationEngine extends CorrelationEngine
 {
+	private static class CorrelationKey
+	{
+		private final String[] values;
+		private final int hashCode;
+
+		private CorrelationKey( String[] values )
+		{
+			this.values = values;
+			this.hashCode = Arrays.hashCode( values );
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals( Object obj )
+		{
+			if ( this == obj ) {
+				return true;
+			}
+			if ( obj instanceof CorrelationKey ) {
+				final CorrelationKey other = (CorrelationKey)obj;
+				return hashCode == other.hashCode && Arrays.equals( values, other.values );
+			}
+			return false;
+		}
+	}
+
+	// Maps operation names to the sessions indexed by their correlation values
+	private final Map< String, Map< CorrelationKey, Set< SessionThread > > > index = new ConcurrentHashMap<>();
+	// Maps each indexed session to its current keys, by operation name
+	private final Map< SessionThread, Map< String, CorrelationKey > > sessionKeys = new ConcurrentHashMap<>();
+	private final Set< SessionThread > sessions = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+	private volatile SessionThread initSession = null;
+
 	public HashCorrelationEngine( Interpreter interpreter )
 	{
 		super( interpreter );
 	}
+
+	@Override
+	protected boolean routeMessage( CommMessage message, CommChannel channel )
+	{
+		final SessionThread init = initSession;
+		if ( init != null ) {
+			init.pushMessage( new SessionMessage( message, channel ) );
+			return true;
+		}
+
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.operationName() );
+		if ( interpreter().executionMode() == ExecutionMode.SINGLE
+			&& ( cset == null || interpreter().correlationSets().isEmpty() )
+		) {
+			final Iterator< SessionThread > it = sessions.iterator();
+			if ( it.hasNext() ) {
+				it.next().pushMessage( new SessionMessage( message, channel ) );
+				return true;
+			}
+			return false;
+		} else if ( cset == null ) {
+			return false; // It must be a session starter.
+		}
+
+		final CorrelationKey key = messageKey( cset.getOperationCorrelationPairs( message.operationName() ), message.value() );
+		if ( key == null ) {
+			return false;
+		}
+		final SessionThread session = findSession( key, message );
+		if ( session == null ) {
+			return false;
+		}
+		session.pushMessage( new SessionMessage( message, channel ) );
+		return true;
+	}
+
+	private SessionThread findSession( CorrelationKey key, CommMessage message )
+	{
+		final Map< CorrelationKey, Set< SessionThread > > operationIndex = index.get( message.operationName() );
+		if ( operationIndex == null ) {
+			return null;
+		}
+		final Set< SessionThread > candidates = operationIndex.get( key );
+		if ( candidates != null ) {
+			for( SessionThread session : candidates ) {
+				// The key is type insensitive, so we double check with the actual values.
+				if ( correlate( session, message ) ) {
+					return session;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public void onSessionStart( SessionThread session, Interpreter.SessionStarter starter, CommMessage message )
+	{
+		initCorrelationValues( session, starter, message );
+		bindCorrelationValues( session );
+		sessions.add( session );
+		reindex( session );
+	}
+
+	@Override
+	public void onSingleExecutionSessionStart( SessionThread session )
+	{
+		if ( session.isInitialisingThread() ) {
+			initSession = session;
+		} else {
+			bindCorrelationValues( session );
+		}
+		sessions.add( session );
+		reindex( session );
+	}
+
+	@Override
+	public void onSessionExecuted( SessionThread session )
+	{
+		if ( initSession == session ) {
+			initSession = null;
+		}
+		sessions.remove( session );
+		synchronized( sessionKeys ) {
+			final Map< String, CorrelationKey > keys = sessionKeys.remove( session );
+			if ( keys != null ) {
+				unindex( session, keys );
+			}
+		}
+	}
+
+	@Override
+	public void onSessionError( SessionThread session, FaultException fault )
+	{
+		onSessionExecuted( session );
+	}
+
+	@Override
+	public void onVariableReplaced( VariablePath path )
+	{
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		final SessionThread session = ( ethread == null ) ? null : ethread.sessionThread();
+		if ( session == null || !sessions.contains( session ) || !isCorrelationVariable( path ) ) {
+			return;
+		}
+		// The new values do not notify this engine: replace them with bound ones.
+		// We are in the thread of the session, which can write its state.
+		bindCorrelationValues( session );
+		reindex( session );
+	}
+
+	/**
+	 * Returns true if path may point to a correlation variable or to one of its ancestors.
+	 */
+	private boolean isCorrelationVariable( VariablePath path )
+	{
+		for( CorrelationSet cset : interpreter().correlationSets() ) {
+			for( VariablePath cpath : cset.correlationVariablePaths() ) {
+				if ( cpath.mayOverlap( path ) ) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Replaces the correlation variables of a session with correlation values
+	 * that update the index of this engine when they are assigned.
+	 */
+	private void bindCorrelationValues( final SessionThread session )
+	{
+		final Value root = session.state().root();
+		for( CorrelationSet cset : interpreter().correlationSets() ) {
+			for( VariablePath path : cset.correlationVariablePaths() ) {
+				final Pair< Expression, Expression >[] pathPairs = path.path();
+				final Expression indexExpression = pathPairs[ pathPairs.length - 1 ].value();
+				final int i = ( indexExpression == null ) ? 0 : indexExpression.evaluate().intValue();
+				final ValueVector vector = path.getValueVector( root );
+				final Value cvalue = Value.createCSetValue( () -> reindex( session ) );
+				cvalue.deepCopy( vector.get( i ) );
+				vector.set( i, cvalue );
+			}
+		}
+	}
+
+	private void reindex( SessionThread session )
+	{
+		synchronized( sessionKeys ) {
+			if ( !sessions.contains( session ) ) {
+				return;
+			}
+			final Map< String, CorrelationKey > oldKeys = sessionKeys.get( session );
+			final Map< String, CorrelationKey > newKeys = new HashMap<>();
+			final Value root = session.state().root();
+			for( CorrelationSet cset : interpreter().correlationSets() ) {
+				for( String operationName : cset.correlatingOperations() ) {
+					final CorrelationKey key = sessionKey( cset.getOperationCorrelationPairs( operationName ), root );
+					if ( key != null ) {
+						newKeys.put( operationName, key );
+					}
+				}
+			}
+			if ( oldKeys != null ) {
+				unindex( session, oldKeys );
+			}
+			for( Map.Entry< String, CorrelationKey > entry : newKeys.entrySet() ) {
+				index.computeIfAbsent( entry.getKey(), k -> new ConcurrentHashMap<>() )
+					.computeIfAbsent( entry.getValue(), k -> Collections.newSetFromMap( new ConcurrentHashMap<>() ) )
+					.add( session );
+			}
+			sessionKeys.put( session, newKeys );
+		}
+	}
+
+	private void unindex( SessionThread session, Map< String, CorrelationKey > keys )
+	{
+		for( Map.Entry< String, CorrelationKey > entry : keys.entrySet() ) {
+			final Map< CorrelationKey, Set< SessionThread > > operationIndex = index.get( entry.getKey() );
+			if ( operationIndex != null ) {
+				operationIndex.computeIfPresent( entry.getValue(), ( k, set ) -> {
+					set.remove( session );
+					return set.isEmpty() ? null : set;
+				} );
+			}
+		}
+	}
+
+	private static CorrelationKey sessionKey( List< CorrelationPair > pairs, Value root )
+	{
+		final String[] values = new String[ pairs.size() ];
+		int i = 0;
+		for( CorrelationPair pair : pairs ) {
+			final Value value = pair.sessionPath().getValueOrNull( root );
+			if ( value == null || !value.isDefined() ) {
+				return null;
+			}
+			values[ i++ ] = value.strValue();
+		}
+		return new CorrelationKey( values );
+	}
+
+	private static CorrelationKey messageKey( List< CorrelationPair > pairs, Value messageValue )
+	{
+		final String[] values = new String[ pairs.size() ];
+		int i = 0;
+		for( CorrelationPair pair : pairs ) {
+			final Value value = pair.messagePath().getValueOrNull( messageValue );
+			if ( value == null || !value.isDefined() ) {
+				return null;
+			}
+			values[ i++ ] = value.strValue();
+		}
+		return new CorrelationKey( values );
+	}
 }
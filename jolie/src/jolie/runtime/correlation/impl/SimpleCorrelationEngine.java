@@ -22,20 +22,15 @@
 package jolie.runtime.correlation.impl;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import jolie.Interpreter;
 import jolie.SessionThread;
-import jolie.lang.Constants.ExecutionMode;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
 import jolie.net.SessionMessage;
 import jolie.runtime.FaultException;
-import jolie.runtime.Value;
 import jolie.runtime.correlation.CorrelationEngine;
-import jolie.runtime.correlation.CorrelationSet;
-import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
 
 /**
  * A simple correlation algorithm that performs a sequential check
@@ -83,39 +78,4 @@ public class SimpleCorrelationEngine extends CorrelationEngine
 	{
 		onSessionExecuted( session );
 	}
-
-	private boolean correlate( SessionThread session, CommMessage message )
-	{
-		if ( (interpreter().correlationSets().isEmpty()
-			&& interpreter().executionMode() == ExecutionMode.SINGLE)
-			||
-			session.isInitialisingThread()
-		) {
-			return true;
-		}
-
-		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.operationName() );
-		if ( cset == null ) {
-			return interpreter().executionMode() == ExecutionMode.SINGLE; // It must be a session starter.
-		}
-		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( message.operationName() );
-		for( CorrelationPair cpair : pairs ) {
-			final Value sessionValue = cpair.sessionPath().getValueOrNull( session.state().root() );
-			if ( sessionValue == null ) {
-				return false;
-			} else {
-				Value messageValue = cpair.messagePath().getValueOrNull( message.value() );
-				if ( messageValue == null ) {
-					return false;
-				} else {
-					// TODO: Value.equals is type insensitive, fix this with an additional check.
-					if ( !sessionValue.isDefined() || !messageValue.isDefined() || !sessionValue.equals( messageValue ) ) {
-						return false;
-					}
-				}
-			}
-		}
-
-		return true;
-	}
 }
@@ -47,6 +47,12 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		this.javaService = javaService;
 	}
 
+	@Override
+	public boolean isInMemory()
+	{
+		return true;
+	}
+
 	@Override
 	public boolean isReady()
 	{
@@ -21,7 +21,9 @@
 
 package jolie.runtime.typing;
 
+import java.util.Collections;
 import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  *
@@ -32,6 +34,9 @@ public class RequestResponseTypeDescription implements OperationTypeDescription
 	private final Type requestType;
 	private final Type responseType;
 	private final Map< String, Type > faultTypes;
+	// Types known to be (or not to be) equivalent to the response type, see isResponseTypeEquivalentTo
+	private final Map< Type, Boolean > equivalentResponseTypes =
+		Collections.synchronizedMap( new WeakHashMap<>() );
 
 	public RequestResponseTypeDescription( Type requestType, Type responseType, Map<String, Type> faultTypes )
 	{
@@ -50,6 +55,25 @@ public class RequestResponseTypeDescription implements OperationTypeDescription
 		return responseType;
 	}
 
+	/**
+	 * Returns <code>true</code> if a response value that has already been checked against type
+	 * does not need to be checked again against the response type of this operation.
+	 * The structural comparison of the two types is made only once for each type.
+	 * @param type the type to compare with the response type, may be <code>null</code>
+	 * @return <code>true</code> if type is equivalent to the response type
+	 * @see jolie.runtime.InputOperation#isRequestTypeEquivalentTo(jolie.runtime.typing.Type)
+	 */
+	public boolean isResponseTypeEquivalentTo( Type type )
+	{
+		if ( type == null || responseType == null ) {
+			return false;
+		}
+		if ( type == responseType ) {
+			return true;
+		}
+		return equivalentResponseTypes.computeIfAbsent( type, responseType::isEquivalentTo );
+	}
+
 	public Type getFaultType( String faultName )
 	{
 		return faultTypes.get( faultName );
@@ -21,9 +21,12 @@
 
 package jolie.runtime.typing;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import jolie.lang.NativeType;
 import jolie.runtime.Value;
 import jolie.runtime.ValueVector;
@@ -34,6 +37,7 @@ class TypeImpl extends Type
 	private final Range cardinality;
 	private final NativeType nativeType;
 	private final Map< String, Type > subTypes;
+	private int requiredSubTypes = -1; // computed on first use, see requiredSubTypes()
 	
 	public TypeImpl(
 		NativeType nativeType,
@@ -69,8 +73,27 @@ class TypeImpl extends Type
 			for( Entry< String, Type > entry : other.subTypes.entrySet() ) {
 				subTypes.put( entry.getKey(), entry.getValue() );
 			}
+			requiredSubTypes = -1;
 		}
 	}
+
+	/**
+	 * Returns the number of sub-types with a minimum cardinality greater than zero.
+	 */
+	private int requiredSubTypes()
+	{
+		int ret = requiredSubTypes;
+		if ( ret < 0 ) {
+			ret = 0;
+			for( Type type : subTypes.values() ) {
+				if ( type.cardinality().min() > 0 ) {
+					ret++;
+				}
+			}
+			requiredSubTypes = ret;
+		}
+		return ret;
+	}
 	
 	private Map< String, Type > copySubTypes()
 	{
@@ -107,7 +130,7 @@ class TypeImpl extends Type
 	@Override
 	public void cutChildrenFromValue( Value value )
 	{
-		if ( subTypes != null ) {
+		if ( subTypes != null && value.hasChildren() ) {
 			for( String childName : subTypes.keySet() ) {
 				value.children().remove( childName );
 			}
@@ -153,6 +176,91 @@ class TypeImpl extends Type
 		}
 	}
 
+	@Override
+	public Type childType( String name )
+	{
+		return ( subTypes != null ) ? subTypes.get( name ) : Type.UNDEFINED;
+	}
+
+	@Override
+	public boolean matches( Value value )
+	{
+		return checkNativeType( value, nativeType ) && matchesChildren( value, true );
+	}
+
+	@Override
+	public boolean canCastNode( Value value )
+	{
+		return canCastNativeType( value ) && matchesChildren( value, false );
+	}
+
+	/**
+	 * Checks the children of value against the sub-types, visiting
+	 * the values of the children only if deep is true.
+	 */
+	private boolean matchesChildren( Value value, boolean deep )
+	{
+		if ( subTypes != null ) {
+			// Visit each child once: unexpected children and wrong cardinalities fail immediately,
+			// missing required children are detected by counting the required ones we have seen.
+			int required = 0;
+			if ( value.hasChildren() ) {
+				for( Entry< String, ValueVector > child : value.children().entrySet() ) {
+					final Type type = subTypes.get( child.getKey() );
+					if ( type == null ) {
+						return false;
+					}
+					final ValueVector vector = child.getValue();
+					final int size = vector.size();
+					if ( type.cardinality().min() > size || type.cardinality().max() < size ) {
+						return false;
+					}
+					if ( deep ) {
+						for( Value v : vector ) {
+							if ( type.matches( v ) == false ) {
+								return false;
+							}
+						}
+					}
+					if ( type.cardinality().min() > 0 ) {
+						required++;
+					}
+				}
+			}
+			return required == requiredSubTypes();
+		}
+
+		return true;
+	}
+
+	@Override
+	protected boolean isEquivalentTo( Type other, Map< Type, Set< Type > > assumed )
+	{
+		if ( other instanceof TypeImpl == false ) {
+			return false;
+		}
+		final TypeImpl otherImpl = (TypeImpl) other;
+		if ( nativeType != otherImpl.nativeType ) {
+			return false;
+		}
+		if ( subTypes == null || otherImpl.subTypes == null ) {
+			return subTypes == otherImpl.subTypes;
+		}
+		if ( subTypes.size() != otherImpl.subTypes.size() ) {
+			return false;
+		}
+		for( Entry< String, Type > entry : subTypes.entrySet() ) {
+			final Type otherSubType = otherImpl.subTypes.get( entry.getKey() );
+			if ( otherSubType == null
+				|| !entry.getValue().cardinality().equals( otherSubType.cardinality() )
+				|| !isEquivalent( entry.getValue(), otherSubType, assumed )
+			) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	protected void check( Value value, StringBuilder pathBuilder )
 		throws TypeCheckingException
@@ -169,9 +277,11 @@ class TypeImpl extends Type
 			}
 			
 			// TODO make this more performant
-			for( String childName : value.children().keySet() ) {
-				if ( subTypes.containsKey( childName ) == false ) {
-					throw new TypeCheckingException( "Unexpected child node: " + pathBuilder.toString() + "." + childName );
+			if ( value.hasChildren() ) {
+				for( String childName : value.children().keySet() ) {
+					if ( subTypes.containsKey( childName ) == false ) {
+						throw new TypeCheckingException( "Unexpected child node: " + pathBuilder.toString() + "." + childName );
+					}
 				}
 			}
 		}
@@ -261,6 +371,42 @@ class TypeImpl extends Type
 		}
 	}
 
+	/**
+	 * Returns true if castNativeType would succeed on value, without changing it.
+	 */
+	private boolean canCastNativeType( Value value )
+	{
+		if ( checkNativeType( value, nativeType ) ) {
+			return true;
+		}
+		try {
+			switch( nativeType ) {
+			case DOUBLE:
+				value.doubleValueStrict();
+				return true;
+			case INT:
+				value.intValueStrict();
+				return true;
+			case LONG:
+				value.longValueStrict();
+				return true;
+			case BOOL:
+				value.boolValueStrict();
+				return true;
+			case STRING:
+				value.strValueStrict();
+				return true;
+			case RAW:
+				value.byteArrayValueStrict();
+				return true;
+			default:
+				return false;
+			}
+		} catch( TypeCastingException e ) {
+			return false;
+		}
+	}
+
 	private boolean checkNativeType( Value value, NativeType nativeType )
 	{
 		switch( nativeType ) {
@@ -332,23 +478,61 @@ class TypeChoice extends Type
 		return cardinality;
 	}
 
+	@Override
+	public Type childType( String name )
+	{
+		final Type l = left.childType( name );
+		final Type r = right.childType( name );
+		if ( l == null || l == r ) {
+			return r;
+		} else if ( r == null ) {
+			return l;
+		}
+		// Both branches allow the child with different types, which one applies is not known yet
+		return Type.UNDEFINED;
+	}
+
+	@Override
+	public boolean matches( Value value )
+	{
+		return left.matches( value ) || right.matches( value );
+	}
+
+	@Override
+	public boolean canCastNode( Value value )
+	{
+		return left.canCastNode( value ) || right.canCastNode( value );
+	}
+
+	@Override
+	protected boolean isEquivalentTo( Type other, Map< Type, Set< Type > > assumed )
+	{
+		if ( other instanceof TypeChoice == false ) {
+			return false;
+		}
+		final TypeChoice otherChoice = (TypeChoice) other;
+		return isEquivalent( left, otherChoice.left, assumed )
+			&& isEquivalent( right, otherChoice.right, assumed );
+	}
+
 	@Override
 	protected void check( Value value, StringBuilder pathBuilder )
 		throws TypeCheckingException
 	{
-		final int l = pathBuilder.length();
-		try {
-			left.check( value, pathBuilder );
-		} catch( TypeCheckingException e ) {
-			pathBuilder.setLength( l );
-			right.check( value, pathBuilder );
+		if ( left.matches( value ) ) {
+			return;
 		}
+		right.check( value, pathBuilder );
 	}
 
 	@Override
 	protected Value cast( Value value, StringBuilder pathBuilder )
 		throws TypeCastingException
 	{
+		if ( matches( value ) ) {
+			// Nothing to convert, so there is no need to try the branches on a copy
+			return value;
+		}
 		final Value copy = Value.createDeepCopy( value );
 		try {
 			return left.cast( copy );
@@ -400,15 +584,81 @@ public abstract class Type implements Cloneable
 	public void check( Value value )
 		throws TypeCheckingException
 	{
-		check( value, new StringBuilder( "#Message" ) );
+		if ( matches( value ) == false ) {
+			// Check again building the path of the node which does not match, for the error message
+			check( value, new StringBuilder( "#Message" ) );
+		}
 	}
 
 	public Value cast( Value value )
 		throws TypeCastingException
 	{
+		if ( matches( value ) ) {
+			return value;
+		}
 		return cast( value, new StringBuilder( "#Message" ) );
 	}
 
+	/**
+	 * Returns true if value is of this type, i.e., if {@link #check(jolie.runtime.Value)} would succeed.
+	 * Unlike check, no error message and no exception are built.
+	 */
+	public abstract boolean matches( Value value );
+
+	/**
+	 * Returns true if casting value to this type may succeed as far as its root node is concerned:
+	 * the value of the node can be cast to the native type, the node has no unexpected children,
+	 * and each child has a permitted number of occurrences. The values of the children are not visited,
+	 * so that a value which is being built can be checked one node at a time.
+	 */
+	public abstract boolean canCastNode( Value value );
+
+	/**
+	 * Returns the type of the child nodes called name, {@link #UNDEFINED} if the
+	 * sub-types of this type are undefined, or null if no such child is permitted.
+	 * Unlike {@link #findSubType(java.lang.String)}, it tells undefined sub-types apart from unexpected children.
+	 */
+	public abstract Type childType( String name );
+
+	/**
+	 * Returns true if this type and other have the same structure, and
+	 * hence accept the same values. This is useful to compare types
+	 * coming from different programs, e.g., an embedder and its embedded service,
+	 * which are different objects even when they are built from the same definition.
+	 */
+	public boolean isEquivalentTo( Type other )
+	{
+		return isEquivalent( this, other, new IdentityHashMap<>() );
+	}
+
+	/*
+	 * Types can be recursive, so pairs of types that are being compared
+	 * are assumed to be equivalent while comparing their sub-types.
+	 */
+	protected static boolean isEquivalent( Type t1, Type t2, Map< Type, Set< Type > > assumed )
+	{
+		while( t1 instanceof TypeLink ) {
+			t1 = ((TypeLink) t1).linkedType;
+		}
+		while( t2 instanceof TypeLink ) {
+			t2 = ((TypeLink) t2).linkedType;
+		}
+		if ( t1 == t2 ) {
+			return true;
+		}
+		if ( !assumed.computeIfAbsent( t1, k -> Collections.newSetFromMap( new IdentityHashMap<>() ) ).add( t2 ) ) {
+			return true;
+		}
+		return t1.isEquivalentTo( t2, assumed );
+	}
+
+	/**
+	 * Compares the structure of this type with other, which is not a type link.
+	 * Cardinalities are compared by the parent type, since a type link
+	 * has a cardinality different from the one of the type it points to.
+	 */
+	protected abstract boolean isEquivalentTo( Type other, Map< Type, Set< Type > > assumed );
+
 	public abstract void cutChildrenFromValue( Value value );
 	public abstract Range cardinality();
 	public abstract Type findSubType( String key );
@@ -483,6 +733,30 @@ public abstract class Type implements Cloneable
 			return cardinality;
 		}
 
+		@Override
+		public boolean matches( Value value )
+		{
+			return linkedType.matches( value );
+		}
+
+		@Override
+		public boolean canCastNode( Value value )
+		{
+			return linkedType.canCastNode( value );
+		}
+
+		@Override
+		public Type childType( String name )
+		{
+			return linkedType.childType( name );
+		}
+
+		@Override
+		protected boolean isEquivalentTo( Type other, Map< Type, Set< Type > > assumed )
+		{
+			return isEquivalent( linkedType, other, assumed );
+		}
+
 		@Override
 		protected void check( Value value, StringBuilder pathBuilder )
 			throws TypeCheckingException
@@ -0,0 +1,280 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import jolie.ExecutionThread;
+import jolie.Interpreter;
+import jolie.net.CommMessage;
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * A tracer which records trace actions in a binary {@link TraceFile},
+ * instead of printing them.
+ *
+ * Recording an action costs an encoding into an in-memory buffer:
+ * message payloads are written in a compact binary form, truncated after
+ * a configurable number of bytes, and never pretty-printed.
+ * Use {@link TraceFilePrinter} to print a trace file in the format of {@link PrintingTracer}.
+ *
+ * @author agent
+ */
+public class BinaryTracer implements Tracer
+{
+	public static final int DEFAULT_PAYLOAD_LIMIT = 1024;
+	public static final int MAX_PAYLOAD_LIMIT = TraceFile.STRIPE_SIZE / 4;
+	private static final int MAX_STRING_LENGTH = 1024;
+
+	private final Interpreter interpreter;
+	private final TraceFile file;
+	private final int sourceId;
+	private final int payloadLimit;
+	private final AtomicLong actionCounter = new AtomicLong( 0 );
+
+	/**
+	 * @param interpreter the interpreter to trace
+	 * @param path the path of the trace file
+	 * @param payloadLimit the maximum number of bytes recorded for each message payload,
+	 * capped at {@link #MAX_PAYLOAD_LIMIT}; 0 disables the recording of payloads
+	 * @throws IOException if the trace file could not be opened
+	 */
+	public BinaryTracer( Interpreter interpreter, String path, int payloadLimit )
+		throws IOException
+	{
+		this.interpreter = interpreter;
+		this.payloadLimit = Math.min( Math.max( payloadLimit, 0 ), MAX_PAYLOAD_LIMIT );
+		this.file = TraceFile.open( path );
+		this.sourceId = file.registerSource( interpreter.logPrefix() );
+	}
+
+	@Override
+	public void trace( Supplier< ? extends TraceAction > supplier )
+	{
+		final TraceAction action = supplier.get();
+		if ( !(action instanceof MessageTraceAction || action instanceof EmbeddingTraceAction) ) {
+			return;
+		}
+		final long counter = actionCounter.incrementAndGet();
+		final TraceFile.Stripe stripe = file.stripe();
+		final ByteBuffer buffer = stripe.buffer;
+		stripe.lock.lock();
+		try {
+			final int start = buffer.position();
+			try {
+				writeRecord( buffer, action, counter );
+			} catch( BufferOverflowException e ) {
+				// Records are much smaller than buffers, so it fits after a flush
+				buffer.position( start );
+				file.flush( buffer );
+				writeRecord( buffer, action, counter );
+			}
+		} catch( IOException e ) {
+			interpreter.logWarning( "Could not write trace file: " + e.getMessage() );
+		} finally {
+			stripe.lock.unlock();
+		}
+	}
+
+	@Override
+	public void close()
+	{
+		file.release();
+	}
+
+	private void writeRecord( ByteBuffer buffer, TraceAction action, long counter )
+	{
+		final int start = buffer.position();
+		buffer.putInt( 0 ); // length, written at the end
+		buffer.put( action instanceof MessageTraceAction ? TraceFile.KIND_MESSAGE : TraceFile.KIND_EMBEDDING );
+		buffer.putLong( file.nextSequence() );
+		buffer.putInt( sourceId );
+		buffer.putLong( counter );
+		buffer.putLong( System.currentTimeMillis() );
+		final ExecutionThread thread = ExecutionThread.currentThread();
+		final String sessionId = ( thread == null ) ? null : thread.getSessionId();
+		if ( action instanceof MessageTraceAction ) {
+			final MessageTraceAction messageAction = (MessageTraceAction) action;
+			buffer.put( (byte) messageAction.type().ordinal() );
+			putString( buffer, sessionId, MAX_STRING_LENGTH );
+			putString( buffer, messageAction.name(), MAX_STRING_LENGTH );
+			putString( buffer, messageAction.description(), MAX_STRING_LENGTH );
+			final CommMessage message = messageAction.message();
+			if ( message == null ) {
+				buffer.put( (byte) 0 );
+			} else {
+				buffer.put( (byte) 1 );
+				buffer.putLong( message.id() );
+				final Value value = message.isFault() ? message.fault().value() : message.value();
+				writePayload( buffer, value, buffer.position() + payloadLimit );
+			}
+		} else {
+			final EmbeddingTraceAction embeddingAction = (EmbeddingTraceAction) action;
+			buffer.put( (byte) embeddingAction.type().ordinal() );
+			putString( buffer, sessionId, MAX_STRING_LENGTH );
+			putString( buffer, embeddingAction.name(), MAX_STRING_LENGTH );
+			putString( buffer, embeddingAction.description(), MAX_STRING_LENGTH );
+		}
+		buffer.putInt( start, buffer.position() - start - 4 );
+	}
+
+	/**
+	 * Writes value and its children as a sequence of tagged nodes,
+	 * ending with {@link TraceFile#TAG_TRUNCATED} if the payload exceeds limit.
+	 * @return {@code false} if the payload has been truncated
+	 */
+	private static boolean writePayload( ByteBuffer buffer, Value value, int limit )
+	{
+		if ( buffer.position() >= limit ) {
+			buffer.put( TraceFile.TAG_TRUNCATED );
+			return false;
+		}
+		final Object o = value.valueObject();
+		final int maxLength = Math.max( 0, limit - buffer.position() );
+		if ( o == null ) {
+			buffer.put( TraceFile.TAG_UNDEFINED );
+		} else if ( o instanceof Integer ) {
+			buffer.put( TraceFile.TAG_INT );
+			buffer.putInt( (Integer) o );
+		} else if ( o instanceof Long ) {
+			buffer.put( TraceFile.TAG_LONG );
+			buffer.putLong( (Long) o );
+		} else if ( o instanceof Boolean ) {
+			buffer.put( TraceFile.TAG_BOOL );
+			buffer.put( (byte) ((Boolean) o ? 1 : 0) );
+		} else if ( o instanceof Double ) {
+			buffer.put( TraceFile.TAG_DOUBLE );
+			buffer.putDouble( (Double) o );
+		} else if ( o instanceof ByteArray ) {
+			final byte[] bytes = ((ByteArray) o).getBytes();
+			final int length = Math.min( bytes.length, maxLength );
+			buffer.put( TraceFile.TAG_BYTES );
+			buffer.putInt( length );
+			buffer.put( bytes, 0, length );
+		} else {
+			// Other objects are recorded as their string representation
+			buffer.put( TraceFile.TAG_STRING );
+			putString( buffer, o.toString(), maxLength );
+		}
+
+		if ( value.hasChildren() ) {
+			for( Map.Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				final ValueVector vector = entry.getValue();
+				if ( vector.isEmpty() ) {
+					if ( buffer.position() >= limit ) {
+						buffer.put( TraceFile.TAG_TRUNCATED );
+						return false;
+					}
+					buffer.put( TraceFile.TAG_EMPTY_CHILD );
+					putString( buffer, entry.getKey(), MAX_STRING_LENGTH );
+				} else {
+					for( Value child : vector ) {
+						if ( buffer.position() >= limit ) {
+							buffer.put( TraceFile.TAG_TRUNCATED );
+							return false;
+						}
+						buffer.put( TraceFile.TAG_CHILD );
+						putString( buffer, entry.getKey(), MAX_STRING_LENGTH );
+						if ( !writePayload( buffer, child, limit ) ) {
+							return false;
+						}
+					}
+				}
+			}
+		}
+		buffer.put( TraceFile.TAG_END );
+		return true;
+	}
+
+	/**
+	 * Writes s in UTF-8, preceded by its length in bytes.
+	 * Characters which would make the encoding longer than maxLength bytes are omitted.
+	 * A null string is written as an empty one.
+	 */
+	static void putString( ByteBuffer buffer, String s, int maxLength )
+	{
+		final int start = buffer.position();
+		buffer.putInt( 0 );
+		if ( s != null ) {
+			final int end = start + 4 + maxLength;
+			final int length = s.length();
+			int i = 0;
+			if ( buffer.hasArray() ) {
+				// Fast path for the ASCII prefix of s
+				final byte[] array = buffer.array();
+				final int offset = buffer.arrayOffset();
+				final int asciiEnd = Math.min( end, buffer.limit() );
+				int position = buffer.position();
+				char c;
+				while( i < length && position < asciiEnd && (c = s.charAt( i )) < 0x80 ) {
+					array[ offset + position++ ] = (byte) c;
+					i++;
+				}
+				buffer.position( position );
+			}
+			for( ; i < length; i++ ) {
+				final char c = s.charAt( i );
+				if ( c < 0x80 ) {
+					if ( buffer.position() + 1 > end ) {
+						break;
+					}
+					buffer.put( (byte) c );
+				} else if ( c < 0x800 ) {
+					if ( buffer.position() + 2 > end ) {
+						break;
+					}
+					buffer.put( (byte) (0xC0 | (c >> 6)) );
+					buffer.put( (byte) (0x80 | (c & 0x3F)) );
+				} else if ( Character.isHighSurrogate( c ) && i + 1 < length && Character.isLowSurrogate( s.charAt( i + 1 ) ) ) {
+					if ( buffer.position() + 4 > end ) {
+						break;
+					}
+					final int codePoint = Character.toCodePoint( c, s.charAt( ++i ) );
+					buffer.put( (byte) (0xF0 | (codePoint >> 18)) );
+					buffer.put( (byte) (0x80 | ((codePoint >> 12) & 0x3F)) );
+					buffer.put( (byte) (0x80 | ((codePoint >> 6) & 0x3F)) );
+					buffer.put( (byte) (0x80 | (codePoint & 0x3F)) );
+				} else if ( Character.isSurrogate( c ) ) {
+					// unpaired surrogate, replaced as String.getBytes does
+					if ( buffer.position() + 1 > end ) {
+						break;
+					}
+					buffer.put( (byte) '?' );
+				} else {
+					if ( buffer.position() + 3 > end ) {
+						break;
+					}
+					buffer.put( (byte) (0xE0 | (c >> 12)) );
+					buffer.put( (byte) (0x80 | ((c >> 6) & 0x3F)) );
+					buffer.put( (byte) (0x80 | (c & 0x3F)) );
+				}
+			}
+		}
+		buffer.putInt( start, buffer.position() - start - 4 );
+	}
+}
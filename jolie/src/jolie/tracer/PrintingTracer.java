@@ -61,9 +61,34 @@ public class PrintingTracer implements Tracer
 	private void trace( EmbeddingTraceAction action )
 	{
 		StringBuilder stBuilder = new StringBuilder();
-		stBuilder.append( interpreter.logPrefix() ).append( "\t" );
-		stBuilder.append( Integer.toString( actionCounter ) ).append( ".\t" );
-		switch( action.type() ) {
+		appendHeader( stBuilder, interpreter.logPrefix(), actionCounter, action.type(), action.name(), action.description() );
+		System.out.println( stBuilder.toString() );
+	}
+	
+	private void trace( MessageTraceAction action )
+	{
+		StringBuilder stBuilder = new StringBuilder();
+		appendHeader( stBuilder, interpreter.logPrefix(), actionCounter, action.type(), action.name(), action.description() );
+		if ( action.message() != null ) {
+			Value messageValue = action.message().value();
+			if ( action.message().isFault() ) {
+				messageValue = action.message().fault().value();
+			}
+			appendMessage( stBuilder, action.message().id(), messageValue );
+		}
+		System.out.println( stBuilder.toString() );
+	}
+
+	/*
+	 * The methods below define the printed format of trace actions.
+	 * They are shared with TraceFilePrinter, which prints recorded traces in the same format.
+	 */
+
+	static void appendHeader( StringBuilder stBuilder, String logPrefix, long counter, EmbeddingTraceAction.Type type, String name, String description )
+	{
+		stBuilder.append( logPrefix ).append( "\t" );
+		stBuilder.append( Long.toString( counter ) ).append( ".\t" );
+		switch( type ) {
 			case SERVICE_LOAD:
 				stBuilder.append( "^ LOAD" );
 				break;
@@ -71,17 +96,15 @@ public class PrintingTracer implements Tracer
 				break;
 		}
 		stBuilder
-			.append( "\t" ).append( action.name() )
-			.append( "\t\t\t" ).append( action.description() );
-		System.out.println( stBuilder.toString() );
+			.append( "\t" ).append( name )
+			.append( "\t\t\t" ).append( description );
 	}
-	
-	private void trace( MessageTraceAction action )
+
+	static void appendHeader( StringBuilder stBuilder, String logPrefix, long counter, MessageTraceAction.Type type, String name, String description )
 	{
-		StringBuilder stBuilder = new StringBuilder();
-		stBuilder.append( interpreter.logPrefix() ).append( "\t" );
-		stBuilder.append( Integer.toString( actionCounter ) ).append( ".\t" );
-		switch( action.type() ) {
+		stBuilder.append( logPrefix ).append( "\t" );
+		stBuilder.append( Long.toString( counter ) ).append( ".\t" );
+		switch( type ) {
 			case SOLICIT_RESPONSE:
 				stBuilder.append( "<< SR" );
 				break;
@@ -104,27 +127,24 @@ public class PrintingTracer implements Tracer
 				break;
 		}
 		stBuilder
-			.append( "\t" ).append( action.name() )
-			.append( "\t\t\t" ).append( action.description() );
-		if ( action.message() != null ) {
-			stBuilder.append( "\tMSG_ID:" ).append( action.message().id() ).append( "\n" );
-			Writer writer = new StringWriter();
-			Value messageValue = action.message().value();
-			if ( action.message().isFault() ) {
-				messageValue = action.message().fault().value();
-			}
-			ValuePrettyPrinter printer = new ValuePrettyPrinter(
-				messageValue,
-				writer,
-				"Value:"
-			);
-			printer.setByteTruncation( 50 );
-			printer.setIndentationOffset( 6 );
-			try {
-				printer.run();
-			} catch( IOException e ) {} // Should never happen
-			stBuilder.append( writer.toString() );
-		}
-		System.out.println( stBuilder.toString() );
+			.append( "\t" ).append( name )
+			.append( "\t\t\t" ).append( description );
+	}
+
+	static void appendMessage( StringBuilder stBuilder, long messageId, Value messageValue )
+	{
+		stBuilder.append( "\tMSG_ID:" ).append( messageId ).append( "\n" );
+		Writer writer = new StringWriter();
+		ValuePrettyPrinter printer = new ValuePrettyPrinter(
+			messageValue,
+			writer,
+			"Value:"
+		);
+		printer.setByteTruncation( 50 );
+		printer.setIndentationOffset( 6 );
+		try {
+			printer.run();
+		} catch( IOException e ) {} // Should never happen
+		stBuilder.append( writer.toString() );
 	}
 }
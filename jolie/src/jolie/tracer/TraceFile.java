@@ -0,0 +1,396 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * A binary trace file, written by {@link BinaryTracer} and read by {@link TraceFilePrinter}.
+ *
+ * The file is a sequence of memory-mapped segments named {@code <path>.0}, {@code <path>.1}, and so on.
+ * When a segment is full, the next one is created and the oldest segments are deleted,
+ * so that at most {@link #MAX_SEGMENTS} segments exist at any time.
+ *
+ * Tracing threads do not write to the segments directly: they append records
+ * to one of a few stripe buffers, chosen by thread id, which are copied into
+ * the current segment when they are full or, periodically, by a flusher thread.
+ * Records are therefore not stored in the order in which they were traced:
+ * each carries a sequence number, which readers use to sort them.
+ *
+ * All the interpreters in the same JVM tracing to the same path (e.g., embedded services)
+ * share the same instance, see {@link #open(java.lang.String)}.
+ *
+ * Segment layout: the {@link #MAGIC} number, the {@link #VERSION} short, and then records.
+ * Each record starts with its length (int, excluding the length itself) and its kind (byte).
+ * A zero length marks the end of the segment.
+ *
+ * @author agent
+ */
+class TraceFile
+{
+	static final int MAGIC = 0x4A545243; // "JTRC"
+	static final short VERSION = 1;
+
+	static final byte KIND_SOURCE = 1;
+	static final byte KIND_EMBEDDING = 2;
+	static final byte KIND_MESSAGE = 3;
+
+	// Payload node tags
+	static final byte TAG_UNDEFINED = 0;
+	static final byte TAG_STRING = 1;
+	static final byte TAG_INT = 2;
+	static final byte TAG_LONG = 3;
+	static final byte TAG_BOOL = 4;
+	static final byte TAG_DOUBLE = 5;
+	static final byte TAG_BYTES = 6;
+	static final byte TAG_CHILD = 7;
+	static final byte TAG_EMPTY_CHILD = 8;
+	static final byte TAG_END = 9;
+	static final byte TAG_TRUNCATED = 10;
+
+	static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+	static final int MAX_SEGMENTS = 8;
+	static final int STRIPE_SIZE = 64 * 1024;
+	private static final int HEADER_SIZE = 6;
+	private static final long FLUSH_INTERVAL = 500; // milliseconds
+
+	private static final Map< String, TraceFile > openFiles = new HashMap<>();
+
+	/**
+	 * A buffer for the records of some tracing threads, guarded by its lock.
+	 * Locks, instead of monitors, do not pin the carriers of virtual threads
+	 * waiting for them.
+	 */
+	static class Stripe
+	{
+		final ByteBuffer buffer = ByteBuffer.allocate( STRIPE_SIZE );
+		final ReentrantLock lock = new ReentrantLock();
+	}
+
+	private final String canonicalPath;
+	private final Stripe[] stripes;
+	private final AtomicLong sequence = new AtomicLong( 0 );
+	private final List< String > sources = new ArrayList<>();
+	private final Thread flusher;
+	private final Thread shutdownHook;
+	private int references = 0;
+	private int segmentIndex = -1;
+	private RandomAccessFile segmentFile = null;
+	private MappedByteBuffer segment = null;
+	private boolean closed = false;
+	// Guards the segments, the sources and closed
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private TraceFile( String canonicalPath )
+		throws IOException
+	{
+		this.canonicalPath = canonicalPath;
+		int n = Integer.highestOneBit( Math.max( 1, Runtime.getRuntime().availableProcessors() ) * 2 - 1 ) << 1;
+		stripes = new Stripe[ n ];
+		for( int i = 0; i < n; i++ ) {
+			stripes[ i ] = new Stripe();
+		}
+		deleteSegments( canonicalPath );
+		nextSegment();
+
+		flusher = new Thread( this::runFlusher, "JolieTraceFlusher" );
+		flusher.setDaemon( true );
+		flusher.start();
+		shutdownHook = new Thread( this::close, "JolieTraceShutdown" );
+		Runtime.getRuntime().addShutdownHook( shutdownHook );
+	}
+
+	/**
+	 * Opens the trace file at path, or returns the already opened one.
+	 * Previous traces stored at the same path are deleted.
+	 * Each call must be matched by a call to {@link #release()}.
+	 */
+	static TraceFile open( String path )
+		throws IOException
+	{
+		final String canonicalPath = new File( path ).getCanonicalPath();
+		synchronized( openFiles ) {
+			TraceFile file = openFiles.get( canonicalPath );
+			if ( file == null ) {
+				file = new TraceFile( canonicalPath );
+				openFiles.put( canonicalPath, file );
+			}
+			file.references++;
+			return file;
+		}
+	}
+
+	/**
+	 * Releases this trace file, closing it if this was the last reference.
+	 */
+	void release()
+	{
+		synchronized( openFiles ) {
+			if ( --references > 0 ) {
+				return;
+			}
+			openFiles.remove( canonicalPath );
+		}
+		try {
+			Runtime.getRuntime().removeShutdownHook( shutdownHook );
+		} catch( IllegalStateException e ) {
+			// The JVM is shutting down, the hook will close the file
+		}
+		close();
+	}
+
+	static Pattern segmentPattern( File base )
+	{
+		return Pattern.compile( Pattern.quote( base.getName() ) + "\\.(\\d+)" );
+	}
+
+	static File segmentFile( String path, int index )
+	{
+		return new File( path + "." + index );
+	}
+
+	/**
+	 * Returns true if file starts with the {@link #MAGIC} number, i.e., it has been written by a trace file.
+	 */
+	static boolean isSegment( File file )
+	{
+		try( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+			return raf.length() >= 4 && raf.readInt() == MAGIC;
+		} catch( IOException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Deletes the segments left by a previous trace at path.
+	 * Files with a segment name which are not segments are left alone.
+	 */
+	private static void deleteSegments( String path )
+	{
+		final File base = new File( path );
+		final File dir = base.getParentFile();
+		final Pattern pattern = segmentPattern( base );
+		final File[] files = dir == null ? null : dir.listFiles( ( d, name ) -> pattern.matcher( name ).matches() );
+		if ( files != null ) {
+			for( File f : files ) {
+				if ( isSegment( f ) ) {
+					f.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Registers the prefix printed in front of the records of a tracer.
+	 * @return the id of the source, to be written in the records of the tracer
+	 */
+	int registerSource( String prefix )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			sources.add( prefix );
+			final int id = sources.size() - 1;
+			if ( closed ) {
+				return id;
+			}
+			if ( segment.remaining() < prefix.length() * 3 + 20 ) {
+				// The new segment starts with all the sources, including this one
+				nextSegment();
+			} else {
+				writeSource( id, prefix );
+			}
+			return id;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the stripe whose buffer the calling thread must write its records to.
+	 * The caller must hold the lock of the stripe while using its buffer.
+	 */
+	Stripe stripe()
+	{
+		return stripes[ (int)Thread.currentThread().getId() & (stripes.length - 1) ];
+	}
+
+	long nextSequence()
+	{
+		return sequence.getAndIncrement();
+	}
+
+	/**
+	 * Copies the records in buffer to the current segment and clears buffer.
+	 * The caller must hold the lock of the stripe of buffer.
+	 */
+	void flush( ByteBuffer buffer )
+		throws IOException
+	{
+		if ( buffer.position() == 0 ) {
+			return;
+		}
+		buffer.flip();
+		try {
+			write( buffer );
+		} finally {
+			buffer.clear();
+		}
+	}
+
+	private void write( ByteBuffer records )
+		throws IOException
+	{
+		lock.lock();
+		try {
+			if ( closed ) {
+				return;
+			}
+			// Keep room for the end marker
+			if ( records.remaining() > segment.remaining() - 4 ) {
+				nextSegment();
+			}
+			segment.put( records );
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void writeSource( int id, String prefix )
+	{
+		final int start = segment.position();
+		segment.putInt( 0 );
+		segment.put( KIND_SOURCE );
+		segment.putInt( id );
+		BinaryTracer.putString( segment, prefix, STRIPE_SIZE );
+		segment.putInt( start, segment.position() - start - 4 );
+	}
+
+	private void nextSegment()
+		throws IOException
+	{
+		closeSegment();
+		segmentIndex++;
+		final File oldFile = segmentFile( canonicalPath, segmentIndex - MAX_SEGMENTS );
+		if ( oldFile.exists() && isSegment( oldFile ) ) {
+			oldFile.delete();
+		}
+		final File file = segmentFile( canonicalPath, segmentIndex );
+		if ( file.exists() && !isSegment( file ) ) {
+			throw new IOException( file + " exists and is not a trace file, refusing to overwrite it" );
+		}
+		segmentFile = new RandomAccessFile( file, "rw" );
+		segment = segmentFile.getChannel().map( FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE );
+		segment.putInt( MAGIC );
+		segment.putShort( VERSION );
+		// Every segment can be read on its own, after the older ones have been deleted
+		for( int i = 0; i < sources.size(); i++ ) {
+			writeSource( i, sources.get( i ) );
+		}
+	}
+
+	private void closeSegment()
+		throws IOException
+	{
+		if ( segment == null ) {
+			return;
+		}
+		final int length = segment.position();
+		segment.force();
+		segment = null;
+		try {
+			// The unused part of the segment is zero-filled, so this is just to save space
+			segmentFile.getChannel().truncate( Math.max( length + 4, HEADER_SIZE ) );
+		} catch( IOException e ) {
+			// Some platforms do not allow truncating mapped files
+		} finally {
+			segmentFile.close();
+			segmentFile = null;
+		}
+	}
+
+	private void flushStripes()
+	{
+		for( Stripe stripe : stripes ) {
+			stripe.lock.lock();
+			try {
+				flush( stripe.buffer );
+			} catch( IOException e ) {
+				// Nothing we can do, the records are lost
+			} finally {
+				stripe.lock.unlock();
+			}
+		}
+	}
+
+	private void runFlusher()
+	{
+		while( !isClosed() ) {
+			try {
+				Thread.sleep( FLUSH_INTERVAL );
+			} catch( InterruptedException e ) {
+				return;
+			}
+			flushStripes();
+		}
+	}
+
+	private boolean isClosed()
+	{
+		lock.lock();
+		try {
+			return closed;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void close()
+	{
+		if ( isClosed() ) {
+			return;
+		}
+		flushStripes();
+		lock.lock();
+		try {
+			closed = true;
+			try {
+				closeSegment();
+			} catch( IOException e ) {}
+		} finally {
+			lock.unlock();
+		}
+		flusher.interrupt();
+	}
+}
@@ -0,0 +1,269 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.tracer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import jolie.runtime.ByteArray;
+import jolie.runtime.Value;
+
+/**
+ * Prints a trace file recorded by {@link BinaryTracer} in the format of {@link PrintingTracer}.
+ *
+ * Usage: {@code java -cp jolie.jar jolie.tracer.TraceFilePrinter [--verbose] <trace file>}
+ *
+ * With {@code --verbose}, the session id and the time of each action are printed too.
+ *
+ * @author agent
+ */
+public class TraceFilePrinter
+{
+	private final boolean verbose;
+	private final PrintStream out;
+	private final Map< Integer, String > sources = new HashMap<>();
+	private final List< ByteBuffer > records = new ArrayList<>();
+	private boolean truncated;
+
+	public TraceFilePrinter( boolean verbose, PrintStream out )
+	{
+		this.verbose = verbose;
+		this.out = out;
+	}
+
+	public static void main( String[] args )
+	{
+		boolean verbose = false;
+		String path = null;
+		for( String arg : args ) {
+			if ( "--verbose".equals( arg ) ) {
+				verbose = true;
+			} else {
+				path = arg;
+			}
+		}
+		if ( path == null ) {
+			System.err.println( "Usage: jolie.tracer.TraceFilePrinter [--verbose] <trace file>" );
+			System.exit( 1 );
+		}
+
+		final PrintStream out = new PrintStream( new BufferedOutputStream( new FileOutputStream( FileDescriptor.out ), 64 * 1024 ) );
+		try {
+			new TraceFilePrinter( verbose, out ).print( path );
+		} catch( IOException e ) {
+			System.err.println( e.getMessage() );
+			System.exit( 2 );
+		} finally {
+			out.flush();
+		}
+	}
+
+	/**
+	 * Prints the trace file at path, reading all its existing segments.
+	 * @param path the path given to the tracer which recorded the trace
+	 * @throws IOException if the trace file could not be read
+	 */
+	public void print( String path )
+		throws IOException
+	{
+		final File base = new File( path ).getCanonicalFile();
+		final Pattern pattern = TraceFile.segmentPattern( base );
+		final TreeMap< Integer, File > segments = new TreeMap<>();
+		final File[] files = base.getParentFile().listFiles();
+		if ( files != null ) {
+			for( File file : files ) {
+				final Matcher matcher = pattern.matcher( file.getName() );
+				if ( matcher.matches() && TraceFile.isSegment( file ) ) {
+					segments.put( Integer.parseInt( matcher.group( 1 ) ), file );
+				}
+			}
+		}
+		if ( segments.isEmpty() ) {
+			throw new IOException( "No trace file found at " + path );
+		}
+
+		for( File segment : segments.values() ) {
+			readSegment( segment );
+		}
+		// Records are stored in the order in which they were flushed, not traced
+		records.sort( ( r1, r2 ) -> Long.compare( r1.getLong( 1 ), r2.getLong( 1 ) ) );
+		for( ByteBuffer record : records ) {
+			printRecord( record );
+		}
+	}
+
+	private void readSegment( File file )
+		throws IOException
+	{
+		final ByteBuffer segment;
+		try( RandomAccessFile raf = new RandomAccessFile( file, "r" ) ) {
+			segment = raf.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, raf.length() );
+		}
+		if ( segment.remaining() < 6 || segment.getInt() != TraceFile.MAGIC ) {
+			throw new IOException( file + " is not a trace file" );
+		}
+		final short version = segment.getShort();
+		if ( version != TraceFile.VERSION ) {
+			throw new IOException( file + " has unsupported version " + version );
+		}
+		while( segment.remaining() >= 4 ) {
+			final int length = segment.getInt();
+			if ( length <= 0 || length > segment.remaining() ) {
+				break; // end of segment, or a record cut by a crash
+			}
+			final ByteBuffer record = segment.slice();
+			record.limit( length );
+			segment.position( segment.position() + length );
+			if ( record.get( 0 ) == TraceFile.KIND_SOURCE ) {
+				record.position( 1 );
+				final int id = record.getInt();
+				sources.put( id, getString( record ) );
+			} else {
+				records.add( record );
+			}
+		}
+	}
+
+	private void printRecord( ByteBuffer record )
+	{
+		record.position( 0 );
+		final byte kind = record.get();
+		record.getLong(); // sequence
+		final String prefix = sources.getOrDefault( record.getInt(), "" );
+		final long counter = record.getLong();
+		final long timestamp = record.getLong();
+		final int type = record.get();
+		final String sessionId = getString( record );
+		final String name = getString( record );
+		final String description = getString( record );
+
+		final StringBuilder builder = new StringBuilder();
+		if ( kind == TraceFile.KIND_EMBEDDING ) {
+			PrintingTracer.appendHeader( builder, prefix, counter, EmbeddingTraceAction.Type.values()[ type ], name, description );
+			appendDetails( builder, sessionId, timestamp );
+		} else {
+			PrintingTracer.appendHeader( builder, prefix, counter, MessageTraceAction.Type.values()[ type ], name, description );
+			appendDetails( builder, sessionId, timestamp );
+			if ( record.get() != 0 ) {
+				final long messageId = record.getLong();
+				final Value value = Value.create();
+				truncated = false;
+				readPayload( record, value );
+				PrintingTracer.appendMessage( builder, messageId, value );
+				if ( truncated ) {
+					builder.append( "\t\t\t\t\t\t(truncated)\n" );
+				}
+			}
+		}
+		out.println( builder.toString() );
+	}
+
+	private void appendDetails( StringBuilder builder, String sessionId, long timestamp )
+	{
+		if ( verbose ) {
+			builder
+				.append( "\tSESSION_ID:" ).append( sessionId )
+				.append( "\tTIME:" ).append( Instant.ofEpochMilli( timestamp ) );
+		}
+	}
+
+	/**
+	 * Reads a node written by BinaryTracer into value.
+	 * @return {@code false} if the payload has been truncated
+	 */
+	private boolean readPayload( ByteBuffer record, Value value )
+	{
+		final byte tag = record.get();
+		switch( tag ) {
+			case TraceFile.TAG_TRUNCATED:
+				truncated = true;
+				return false;
+			case TraceFile.TAG_STRING:
+				value.setValue( getString( record ) );
+				break;
+			case TraceFile.TAG_INT:
+				value.setValue( record.getInt() );
+				break;
+			case TraceFile.TAG_LONG:
+				value.setValue( record.getLong() );
+				break;
+			case TraceFile.TAG_BOOL:
+				value.setValue( record.get() != 0 );
+				break;
+			case TraceFile.TAG_DOUBLE:
+				value.setValue( record.getDouble() );
+				break;
+			case TraceFile.TAG_BYTES:
+				final byte[] bytes = new byte[ record.getInt() ];
+				record.get( bytes );
+				value.setValue( new ByteArray( bytes ) );
+				break;
+			default:
+				break;
+		}
+
+		while( true ) {
+			switch( record.get() ) {
+				case TraceFile.TAG_END:
+					return true;
+				case TraceFile.TAG_TRUNCATED:
+					truncated = true;
+					return false;
+				case TraceFile.TAG_EMPTY_CHILD:
+					value.getChildren( getString( record ) );
+					break;
+				case TraceFile.TAG_CHILD:
+					final Value child = Value.create();
+					value.getChildren( getString( record ) ).add( child );
+					if ( !readPayload( record, child ) ) {
+						return false;
+					}
+					break;
+				default:
+					return false;
+			}
+		}
+	}
+
+	private static String getString( ByteBuffer buffer )
+	{
+		final int length = buffer.getInt();
+		final byte[] bytes = new byte[ length ];
+		buffer.get( bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+}
@@ -30,4 +30,11 @@ import java.util.function.Supplier;
 public interface Tracer
 {
 	public void trace( Supplier< ? extends TraceAction > supplier );
+
+	/**
+	 * Releases the resources held by this tracer.
+	 * Called when the interpreter using this tracer exits.
+	 */
+	public default void close()
+	{}
 }
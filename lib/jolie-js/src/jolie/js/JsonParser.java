@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2026 by agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+
+package jolie.js;
+
+import java.io.IOException;
+import java.io.Reader;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.typing.Type;
+import jolie.runtime.typing.TypeCheckingException;
+
+/**
+ * A streaming JSON parser which builds Jolie values while reading,
+ * without creating an intermediate JSON object tree.
+ *
+ * If a type is given, values are checked while being read, so that oversized
+ * or mistyped payloads are rejected before being read entirely: unexpected
+ * children and arrays with too many elements are rejected as soon as they are
+ * met, and each node but the root is checked with {@link Type#canCastNode(jolie.runtime.Value)}
+ * once it has been read. The checks follow the casting rules, since received
+ * values are cast to their type afterwards (e.g., "5" is accepted for an int).
+ * The children of the root are not checked for missing nodes, because protocols
+ * may add some of them after parsing (e.g., from the query string or cookies).
+ *
+ * An object or array given as the root value ("$") of a node has no Jolie
+ * counterpart, so it is stored as a string holding its JSON text, in compact form.
+ *
+ * @see JsUtils#parseJsonIntoValue(java.io.Reader, jolie.runtime.Value, boolean, jolie.runtime.typing.Type)
+ */
+class JsonParser
+{
+	private static final int BUFFER_SIZE = 4096;
+	private static final int EOF = -1;
+
+	private final Reader reader;
+	private final boolean strictEncoding;
+	private final char[] buffer = new char[ BUFFER_SIZE ];
+	private final StringBuilder builder = new StringBuilder();
+	private int pos = 0;
+	private int limit = 0;
+	private long offset = 0; // characters read before the current buffer
+
+	public JsonParser( Reader reader, boolean strictEncoding )
+	{
+		this.reader = reader;
+		this.strictEncoding = strictEncoding;
+	}
+
+	private int read()
+		throws IOException
+	{
+		if ( pos == limit ) {
+			offset += limit;
+			pos = 0;
+			limit = reader.read( buffer, 0, BUFFER_SIZE );
+			if ( limit <= 0 ) {
+				limit = 0;
+				return EOF;
+			}
+		}
+		return buffer[ pos++ ];
+	}
+
+	private int peek()
+		throws IOException
+	{
+		int c = read();
+		if ( c != EOF ) {
+			pos--;
+		}
+		return c;
+	}
+
+	private int readNonWhitespace()
+		throws IOException
+	{
+		int c;
+		do {
+			c = read();
+		} while( c == ' ' || c == '\n' || c == '\r' || c == '\t' );
+		return c;
+	}
+
+	private IOException error( String message )
+	{
+		return new IOException( "Malformed JSON at position " + (offset + pos) + ": " + message );
+	}
+
+	private IOException unexpected( int c )
+	{
+		return error( c == EOF ? "unexpected end of input" : "unexpected character '" + (char)c + "'" );
+	}
+
+	private void expect( int expected, int c )
+		throws IOException
+	{
+		if ( c != expected ) {
+			throw unexpected( c );
+		}
+	}
+
+	private static void checkCardinality( String name, Type type, ValueVector vector )
+		throws TypeCheckingException
+	{
+		if ( type != null && vector.size() > type.cardinality().max() ) {
+			throw new TypeCheckingException(
+				"Child node " + name + " has a wrong number of occurencies. Permitted range is [" +
+				type.cardinality().min() + "," + type.cardinality().max() + "], found at least " + vector.size()
+			);
+		}
+	}
+
+	private static void checkNode( String name, Value value, Type type )
+		throws TypeCheckingException
+	{
+		if ( type != null && type.canCastNode( value ) == false ) {
+			throw new TypeCheckingException( "Node " + name + " can not be cast to its type" );
+		}
+	}
+
+	/**
+	 * Returns the type of the children called name, or null if there is no type to check.
+	 */
+	private static Type subType( Type type, String name )
+		throws TypeCheckingException
+	{
+		if ( type == null ) {
+			return null;
+		}
+		final Type ret = type.childType( name );
+		if ( ret == null ) {
+			throw new TypeCheckingException( "Unexpected child node: " + name );
+		}
+		return ret;
+	}
+
+	/**
+	 * Parses a whole JSON document into value.
+	 */
+	public void parse( Value value, Type type )
+		throws IOException, TypeCheckingException
+	{
+		int c = readNonWhitespace();
+		if ( c == '[' ) {
+			ValueVector vector = ValueVector.create();
+			value.children().put( JsUtils.JSONARRAY_KEY, vector );
+			parseArray( vector, JsUtils.JSONARRAY_KEY, subType( type, JsUtils.JSONARRAY_KEY ) );
+		} else if ( c == '{' ) {
+			parseObject( value, type );
+		} else {
+			parseBasicValue( c, value );
+		}
+		c = readNonWhitespace();
+		if ( c != EOF ) {
+			throw unexpected( c );
+		}
+	}
+
+	private void parseObject( Value value, Type type )
+		throws IOException, TypeCheckingException
+	{
+		int c = readNonWhitespace();
+		if ( c == '}' ) {
+			return;
+		}
+		while( true ) {
+			expect( '"', c );
+			String name = parseString();
+			expect( ':', readNonWhitespace() );
+			c = readNonWhitespace();
+			if ( JsUtils.ROOT_SIGN.equals( name ) ) {
+				parseRootValue( c, value );
+			} else {
+				ValueVector vector = ValueVector.create();
+				value.children().put( name, vector );
+				// The vector is already in place, so that a partially parsed value fails its type check too
+				parseMember( c, vector, name, subType( type, name ) );
+			}
+			c = readNonWhitespace();
+			if ( c == '}' ) {
+				return;
+			}
+			expect( ',', c );
+			c = readNonWhitespace();
+		}
+	}
+
+	private void parseRootValue( int c, Value value )
+		throws IOException
+	{
+		if ( c == '{' || c == '[' ) {
+			final StringBuilder json = new StringBuilder();
+			captureValue( c, new JsonWriter.StringBuilderJsonWriter( json ) );
+			value.setValue( json.toString() );
+		} else {
+			parseBasicValue( c, value );
+		}
+	}
+
+	/**
+	 * Parses a JSON value and writes it to out, in compact form.
+	 */
+	private void captureValue( int c, JsonWriter out )
+		throws IOException
+	{
+		if ( c == '{' || c == '[' ) {
+			final int end = ( c == '{' ) ? '}' : ']';
+			out.write( (char)c );
+			c = readNonWhitespace();
+			if ( c == end ) {
+				out.write( (char)end );
+				return;
+			}
+			while( true ) {
+				if ( end == '}' ) {
+					expect( '"', c );
+					out.write( '"' );
+					out.writeEscaped( parseString() );
+					out.write( "\":" );
+					expect( ':', readNonWhitespace() );
+					c = readNonWhitespace();
+				}
+				captureValue( c, out );
+				c = readNonWhitespace();
+				if ( c == end ) {
+					out.write( (char)end );
+					return;
+				}
+				expect( ',', c );
+				out.write( ',' );
+				c = readNonWhitespace();
+			}
+		} else if ( c == '"' ) {
+			out.write( '"' );
+			out.writeEscaped( parseString() );
+			out.write( '"' );
+		} else {
+			final Value v = Value.create();
+			parseBasicValue( c, v );
+			out.write( v.isDefined() ? v.strValue() : "null" );
+		}
+	}
+
+	private void parseMember( int c, ValueVector vector, String name, Type type )
+		throws IOException, TypeCheckingException
+	{
+		if ( c == '[' ) {
+			if ( strictEncoding ) {
+				Value arrayValue = Value.create();
+				vector.add( arrayValue );
+				ValueVector elements = ValueVector.create();
+				arrayValue.children().put( JsUtils.JSONARRAY_KEY, elements );
+				parseArray( elements, JsUtils.JSONARRAY_KEY, subType( type, JsUtils.JSONARRAY_KEY ) );
+				checkNode( name, arrayValue, type );
+			} else {
+				parseArray( vector, name, type );
+			}
+		} else {
+			Value value = Value.create();
+			vector.add( value );
+			parseElement( c, value, name, type );
+		}
+	}
+
+	/**
+	 * Parses the elements of an array, whose opening bracket has already been read, into vector.
+	 */
+	private void parseArray( ValueVector vector, String name, Type type )
+		throws IOException, TypeCheckingException
+	{
+		int c = readNonWhitespace();
+		if ( c == ']' ) {
+			return;
+		}
+		while( true ) {
+			Value value = Value.create();
+			vector.add( value );
+			checkCardinality( name, type, vector );
+			parseElement( c, value, name, type );
+			c = readNonWhitespace();
+			if ( c == ']' ) {
+				return;
+			}
+			expect( ',', c );
+			c = readNonWhitespace();
+		}
+	}
+
+	private void parseElement( int c, Value value, String name, Type type )
+		throws IOException, TypeCheckingException
+	{
+		if ( c == '{' ) {
+			parseObject( value, type );
+		} else if ( c == '[' ) {
+			ValueVector elements = ValueVector.create();
+			value.children().put( JsUtils.JSONARRAY_KEY, elements );
+			parseArray( elements, JsUtils.JSONARRAY_KEY, subType( type, JsUtils.JSONARRAY_KEY ) );
+		} else {
+			parseBasicValue( c, value );
+		}
+		checkNode( name, value, type );
+	}
+
+	private void parseBasicValue( int c, Value value )
+		throws IOException
+	{
+		if ( c == '"' ) {
+			value.setValue( parseString() );
+		} else if ( c == 't' ) {
+			parseLiteral( "true" );
+			value.setValue( true );
+		} else if ( c == 'f' ) {
+			parseLiteral( "false" );
+			value.setValue( false );
+		} else if ( c == 'n' ) {
+			parseLiteral( "null" );
+		} else if ( c == '-' || (c >= '0' && c <= '9') ) {
+			parseNumber( c, value );
+		} else {
+			throw unexpected( c );
+		}
+	}
+
+	private void parseLiteral( String literal )
+		throws IOException
+	{
+		// the first character has already been read
+		for( int i = 1; i < literal.length(); i++ ) {
+			expect( literal.charAt( i ), read() );
+		}
+	}
+
+	private void parseNumber( int c, Value value )
+		throws IOException
+	{
+		builder.setLength( 0 );
+		boolean isDouble = false;
+		while( true ) {
+			builder.append( (char)c );
+			c = peek();
+			if ( c == '.' || c == 'e' || c == 'E' ) {
+				isDouble = true;
+			} else if ( !(c == '-' || c == '+' || (c >= '0' && c <= '9')) ) {
+				break;
+			}
+			read();
+		}
+
+		final String number = builder.toString();
+		try {
+			if ( !isDouble ) {
+				try {
+					long l = Long.parseLong( number );
+					if ( l > Integer.MAX_VALUE || l < Integer.MIN_VALUE ) {
+						value.setValue( l );
+					} else {
+						value.setValue( (int)l );
+					}
+					return;
+				} catch( NumberFormatException e ) {
+					// out of the range of long, fall back to double
+				}
+			}
+			value.setValue( Double.parseDouble( number ) );
+		} catch( NumberFormatException e ) {
+			throw error( "invalid number " + number );
+		}
+	}
+
+	/**
+	 * Parses a string, whose opening quote has already been read.
+	 */
+	private String parseString()
+		throws IOException
+	{
+		// Fast path: the string is entirely in the buffer and has no escapes
+		for( int i = pos; i < limit; i++ ) {
+			char ch = buffer[ i ];
+			if ( ch == '"' ) {
+				String s = new String( buffer, pos, i - pos );
+				pos = i + 1;
+				return s;
+			} else if ( ch == '\\' ) {
+				break;
+			}
+		}
+
+		builder.setLength( 0 );
+		int c;
+		while( (c=read()) != '"' ) {
+			if ( c == EOF ) {
+				throw unexpected( c );
+			} else if ( c == '\\' ) {
+				c = read();
+				switch( c ) {
+				case '"':
+				case '\\':
+				case '/':
+					builder.append( (char)c );
+					break;
+				case 'b':
+					builder.append( '\b' );
+					break;
+				case 'f':
+					builder.append( '\f' );
+					break;
+				case 'n':
+					builder.append( '\n' );
+					break;
+				case 'r':
+					builder.append( '\r' );
+					break;
+				case 't':
+					builder.append( '\t' );
+					break;
+				case 'u':
+					builder.append( parseUnicodeEscape() );
+					break;
+				default:
+					throw unexpected( c );
+				}
+			} else {
+				builder.append( (char)c );
+			}
+		}
+		return builder.toString();
+	}
+
+	private char parseUnicodeEscape()
+		throws IOException
+	{
+		int code = 0;
+		for( int i = 0; i < 4; i++ ) {
+			int c = read();
+			int digit = Character.digit( c, 16 );
+			if ( c == EOF || digit < 0 ) {
+				throw unexpected( c );
+			}
+			code = (code << 4) | digit;
+		}
+		return (char)code;
+	}
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright (C) 2026 by agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301
+ * USA
+ */
+
+package jolie.js;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.typing.Type;
+
+/**
+ * Writes Jolie values as JSON.
+ *
+ * Subclasses decide where the JSON text goes: {@link StringBuilderJsonWriter}
+ * appends it to a StringBuilder, {@link ByteJsonWriter} encodes it directly
+ * into a byte buffer, without building an intermediate String.
+ */
+abstract class JsonWriter
+{
+	/*
+	 * Escape sequences for the characters escaped by JSON writers,
+	 * indexed by character for the ranges [0, 0xA0) and [0x2000, 0x2100).
+	 * The escaped characters are the same as those of json-simple.
+	 */
+	private static final String[] LOW_ESCAPES = new String[ 0xA0 ];
+	private static final String[] HIGH_ESCAPES = new String[ 0x100 ];
+	private static final char HIGH_ESCAPES_START = '\u2000';
+
+	static {
+		for( char c = 0; c < 0x20; c++ ) {
+			LOW_ESCAPES[ c ] = unicodeEscape( c );
+		}
+		for( char c = 0x7F; c < 0xA0; c++ ) {
+			LOW_ESCAPES[ c ] = unicodeEscape( c );
+		}
+		LOW_ESCAPES[ '"' ] = "\\\"";
+		LOW_ESCAPES[ '\\' ] = "\\\\";
+		LOW_ESCAPES[ '/' ] = "\\/";
+		LOW_ESCAPES[ '\b' ] = "\\b";
+		LOW_ESCAPES[ '\f' ] = "\\f";
+		LOW_ESCAPES[ '\n' ] = "\\n";
+		LOW_ESCAPES[ '\r' ] = "\\r";
+		LOW_ESCAPES[ '\t' ] = "\\t";
+		for( int i = 0; i < HIGH_ESCAPES.length; i++ ) {
+			HIGH_ESCAPES[ i ] = unicodeEscape( (char)(HIGH_ESCAPES_START + i) );
+		}
+	}
+
+	private static String unicodeEscape( char c )
+	{
+		String hex = Integer.toHexString( c ).toUpperCase();
+		return "\\u" + "0000".substring( hex.length() ) + hex;
+	}
+
+	/**
+	 * Returns the escape sequence for c, or null if c is written as it is.
+	 */
+	protected static String escape( char c )
+	{
+		if ( c < LOW_ESCAPES.length ) {
+			return LOW_ESCAPES[ c ];
+		} else if ( c >= HIGH_ESCAPES_START && c - HIGH_ESCAPES_START < HIGH_ESCAPES.length ) {
+			return HIGH_ESCAPES[ c - HIGH_ESCAPES_START ];
+		}
+		return null;
+	}
+
+	/**
+	 * Writes a character in the ASCII range.
+	 */
+	protected abstract void write( char c );
+
+	/**
+	 * Writes s as it is.
+	 */
+	protected abstract void write( String s );
+
+	/**
+	 * Writes s escaping the characters which may not appear in JSON strings.
+	 */
+	protected abstract void writeEscaped( String s );
+
+	private void writeKeyColon( String key )
+	{
+		write( '"' );
+		write( key );
+		write( '"' );
+		write( ':' );
+	}
+
+	private void writeNativeValue( Value value )
+	{
+		if ( !value.isDefined() ) {
+			write( "null" );
+		} else if ( value.isInt() || value.isLong() || value.isBool() || value.isDouble() ) {
+			write( value.strValue() );
+		} else {
+			write( '"' );
+			writeEscaped( value.strValue() );
+			write( '"' );
+		}
+	}
+
+	private void writeValueVector( ValueVector vector, boolean isArray, Type type )
+	{
+		if ( isArray || ( type != null && type.cardinality().max() > 1 || vector.size() > 1 ) ) {
+			write( '[' );
+			for( int i = 0; i < vector.size(); i++ ) {
+				writeValue( vector.get( i ), false, type );
+				if ( i < vector.size() - 1 ) {
+					write( ',' );
+				}
+			}
+			write( ']' );
+		} else {
+			writeValue( vector.first(), false, type );
+		}
+	}
+
+	public void writeValue( Value value, boolean extendedRoot, Type type )
+	{
+		final ValueVector array = value.getChildrenOrNull( JsUtils.JSONARRAY_KEY );
+		if ( array != null ) {
+			writeValueVector( array, true, null );
+			return;
+		}
+		int size = value.hasChildren() ? value.children().size() : 0;
+		if ( size == 0 ) {
+			if ( extendedRoot ) {
+				write( '{' );
+				if ( value.isDefined() ) {
+					writeKeyColon( JsUtils.ROOT_SIGN );
+					writeNativeValue( value );
+				}
+				write( '}' );
+			} else {
+				writeNativeValue( value );
+			}
+		} else {
+			write( '{' );
+			if ( value.isDefined() ) {
+				writeKeyColon( JsUtils.ROOT_SIGN );
+				writeNativeValue( value );
+				write( ',' );
+			}
+			int i = 0;
+			for( Map.Entry< String, ValueVector > child : value.children().entrySet() ) {
+				final Type subType = ( type != null ? type.findSubType( child.getKey() ) : null );
+				writeKeyColon( child.getKey() );
+				writeValueVector( child.getValue(), false, subType );
+				if ( i++ < size - 1 ) {
+					write( ',' );
+				}
+			}
+			write( '}' );
+		}
+	}
+
+	public void writeFault( Value value, Type type )
+	{
+		Value error = value.getFirstChild( "error" );
+		write( "{\"error\":{\"message\":\"" );
+		write( error.getFirstChild( "message" ).strValue() );
+		write( "\",\"code\":" );
+		write( Integer.toString( error.getFirstChild( "code" ).intValue() ) );
+		write( ",\"data\":" );
+		writeValue( error.getFirstChild( "data" ), false, type );
+		write( "}}" );
+	}
+
+	static class StringBuilderJsonWriter extends JsonWriter
+	{
+		private final StringBuilder builder;
+
+		public StringBuilderJsonWriter( StringBuilder builder )
+		{
+			this.builder = builder;
+		}
+
+		@Override
+		protected void write( char c )
+		{
+			builder.append( c );
+		}
+
+		@Override
+		protected void write( String s )
+		{
+			builder.append( s );
+		}
+
+		@Override
+		protected void writeEscaped( String s )
+		{
+			final int length = s.length();
+			for( int i = 0; i < length; i++ ) {
+				final char c = s.charAt( i );
+				final String escape = escape( c );
+				if ( escape == null ) {
+					builder.append( c );
+				} else {
+					builder.append( escape );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Encodes JSON text into a growable byte buffer.
+	 * UTF-8 is encoded inline; other charsets go through {@link String#getBytes(java.nio.charset.Charset)}
+	 * for the runs of non-ASCII characters.
+	 */
+	static class ByteJsonWriter extends JsonWriter
+	{
+		private static final int INITIAL_SIZE = 256;
+
+		private final Charset charset;
+		private final boolean utf8;
+		private byte[] buffer = new byte[ INITIAL_SIZE ];
+		private int count = 0;
+
+		public ByteJsonWriter( Charset charset )
+		{
+			this.charset = charset;
+			this.utf8 = StandardCharsets.UTF_8.equals( charset );
+		}
+
+		private void ensureCapacity( int capacity )
+		{
+			if ( capacity > buffer.length ) {
+				buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, capacity ) );
+			}
+		}
+
+		/**
+		 * Returns the written bytes.
+		 */
+		public byte[] toByteArray()
+		{
+			return ( count == buffer.length ) ? buffer : Arrays.copyOf( buffer, count );
+		}
+
+		@Override
+		protected void write( char c )
+		{
+			ensureCapacity( count + 1 );
+			buffer[ count++ ] = (byte)c;
+		}
+
+		private void writeBytes( byte[] b )
+		{
+			ensureCapacity( count + b.length );
+			System.arraycopy( b, 0, buffer, count, b.length );
+			count += b.length;
+		}
+
+		private void writeAscii( String s )
+		{
+			final int length = s.length();
+			ensureCapacity( count + length );
+			for( int i = 0; i < length; i++ ) {
+				buffer[ count++ ] = (byte)s.charAt( i );
+			}
+		}
+
+		@Override
+		protected void write( String s )
+		{
+			final int length = s.length();
+			int i = 0;
+			while( i < length ) {
+				final int start = i;
+				while( i < length && s.charAt( i ) < 0x80 ) {
+					i++;
+				}
+				ensureCapacity( count + (i - start) );
+				for( int j = start; j < i; j++ ) {
+					buffer[ count++ ] = (byte)s.charAt( j );
+				}
+				if ( i < length ) {
+					i = writeNonAscii( s, i, length, false );
+				}
+			}
+		}
+
+		@Override
+		protected void writeEscaped( String s )
+		{
+			final int length = s.length();
+			int i = 0;
+			while( i < length ) {
+				final char c = s.charAt( i );
+				if ( c < 0x80 ) {
+					final String escape = escape( c );
+					if ( escape == null ) {
+						ensureCapacity( count + 1 );
+						buffer[ count++ ] = (byte)c;
+					} else {
+						writeAscii( escape );
+					}
+					i++;
+				} else {
+					i = writeNonAscii( s, i, length, true );
+				}
+			}
+		}
+
+		/**
+		 * Writes the run of non-ASCII characters starting at i.
+		 * @return the index of the first character after the run
+		 */
+		private int writeNonAscii( String s, int i, int length, boolean escaped )
+		{
+			if ( !utf8 ) {
+				final int start = i;
+				while( i < length && s.charAt( i ) >= 0x80 && !( escaped && escape( s.charAt( i ) ) != null ) ) {
+					i++;
+				}
+				if ( i == start ) {
+					writeAscii( escape( s.charAt( i ) ) );
+					return i + 1;
+				}
+				writeBytes( s.substring( start, i ).getBytes( charset ) );
+				return i;
+			}
+
+			final char c = s.charAt( i );
+			final String escape = escaped ? escape( c ) : null;
+			if ( escape != null ) {
+				writeAscii( escape );
+			} else if ( c < 0x800 ) {
+				ensureCapacity( count + 2 );
+				buffer[ count++ ] = (byte)(0xC0 | (c >> 6));
+				buffer[ count++ ] = (byte)(0x80 | (c & 0x3F));
+			} else if ( Character.isHighSurrogate( c ) && i + 1 < length && Character.isLowSurrogate( s.charAt( i + 1 ) ) ) {
+				final int codePoint = Character.toCodePoint( c, s.charAt( i + 1 ) );
+				ensureCapacity( count + 4 );
+				buffer[ count++ ] = (byte)(0xF0 | (codePoint >> 18));
+				buffer[ count++ ] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+				buffer[ count++ ] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+				buffer[ count++ ] = (byte)(0x80 | (codePoint & 0x3F));
+				return i + 2;
+			} else if ( Character.isSurrogate( c ) ) {
+				// unpaired surrogate, replaced as String.getBytes does
+				write( '?' );
+			} else {
+				ensureCapacity( count + 3 );
+				buffer[ count++ ] = (byte)(0xE0 | (c >> 12));
+				buffer[ count++ ] = (byte)(0x80 | ((c >> 6) & 0x3F));
+				buffer[ count++ ] = (byte)(0x80 | (c & 0x3F));
+			}
+			return i + 1;
+		}
+	}
+}
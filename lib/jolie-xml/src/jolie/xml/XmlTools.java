@@ -0,0 +1,130 @@
+/***************************************************************************
+ *   Copyright (C) 2026 by agent <agent@local>                             *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package jolie.xml;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+/**
+ * Keeps a small pool of DocumentBuilder and Transformer instances.
+ * They are expensive to create and are not thread-safe, so protocol factories
+ * hold an instance of this class and share it with all the protocols they create,
+ * instead of having each protocol create its own.
+ *
+ * Instances are borrowed with {@link #takeDocumentBuilder()} and {@link #takeTransformer()},
+ * and must be given back with the corresponding giveBack method when the caller is done with them.
+ * The pool is not bound to threads, which would be of no use with virtual threads:
+ * it never blocks, creating a new instance when none is available,
+ * and drops the instances given back when it is full.
+ * @author agent
+ */
+public class XmlTools
+{
+	private static final int DEFAULT_POOL_SIZE = Math.max( 2, Runtime.getRuntime().availableProcessors() );
+
+	private final DocumentBuilderFactory documentBuilderFactory;
+	private final TransformerFactory transformerFactory;
+	private final BlockingQueue< DocumentBuilder > documentBuilders;
+	private final BlockingQueue< Transformer > transformers;
+
+	public XmlTools( boolean namespaceAware )
+	{
+		this( namespaceAware, DEFAULT_POOL_SIZE );
+	}
+
+	/**
+	 * @param namespaceAware whether the document builders support XML namespaces
+	 * @param poolSize the maximum number of idle instances of each kind to keep
+	 */
+	public XmlTools( boolean namespaceAware, int poolSize )
+	{
+		documentBuilderFactory = DocumentBuilderFactory.newInstance();
+		documentBuilderFactory.setNamespaceAware( namespaceAware );
+		transformerFactory = TransformerFactory.newInstance();
+		documentBuilders = new ArrayBlockingQueue< DocumentBuilder >( Math.max( 1, poolSize ) );
+		transformers = new ArrayBlockingQueue< Transformer >( Math.max( 1, poolSize ) );
+	}
+
+	/**
+	 * Borrows a document builder, in its initial state.
+	 * @return a document builder, to be given back with {@link #giveBack(javax.xml.parsers.DocumentBuilder)}
+	 * @throws ParserConfigurationException
+	 */
+	public DocumentBuilder takeDocumentBuilder()
+		throws ParserConfigurationException
+	{
+		DocumentBuilder ret = documentBuilders.poll();
+		if ( ret == null ) {
+			// Factories are not guaranteed to be thread-safe
+			synchronized( documentBuilderFactory ) {
+				ret = documentBuilderFactory.newDocumentBuilder();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gives back a document builder borrowed with {@link #takeDocumentBuilder()}.
+	 * The caller must not use it anymore.
+	 * @param builder the document builder to give back
+	 */
+	public void giveBack( DocumentBuilder builder )
+	{
+		builder.reset();
+		documentBuilders.offer( builder );
+	}
+
+	/**
+	 * Borrows a transformer, in its initial state.
+	 * Callers must set the output properties they need.
+	 * @return a transformer, to be given back with {@link #giveBack(javax.xml.transform.Transformer)}
+	 * @throws TransformerConfigurationException
+	 */
+	public Transformer takeTransformer()
+		throws TransformerConfigurationException
+	{
+		Transformer ret = transformers.poll();
+		if ( ret == null ) {
+			synchronized( transformerFactory ) {
+				ret = transformerFactory.newTransformer();
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Gives back a transformer borrowed with {@link #takeTransformer()}.
+	 * The caller must not use it anymore.
+	 * @param transformer the transformer to give back
+	 */
+	public void giveBack( Transformer transformer )
+	{
+		transformer.reset();
+		transformers.offer( transformer );
+	}
+}
@@ -123,7 +123,7 @@ public class XmlUtils
 					currElementDecl = currTerm.asElementDecl();
 					name = currElementDecl.getName();
 					Element childElement = null;
-					if ( (vec=value.children().get( name )) != null ) {
+					if ( (vec=value.getChildrenOrNull( name )) != null ) {
 						int k = 0;
 						while(
 							vec.isEmpty() == false &&
@@ -158,7 +158,7 @@ public class XmlUtils
 					currElementDecl = currTerm.asElementDecl();
 					name = currElementDecl.getName();
 					Element childElement = null;
-					if ( (vec=value.children().get( name )) != null ) {
+					if ( (vec=value.getChildrenOrNull( name )) != null ) {
 						childElement = doc.createElement( name );
 						element.appendChild( childElement );
 						found = true;
@@ -231,6 +231,10 @@ public class XmlUtils
 			}
 		}
 
+		if ( !value.hasChildren() ) {
+			return;
+		}
+
 		Element currentElement;
 		for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
 			if ( !entry.getKey().startsWith( "@" ) ) {
@@ -283,6 +287,10 @@ public class XmlUtils
 		}
 
 		// adding subelements
+		if ( !value.hasChildren() ) {
+			return;
+		}
+
 		Element currentElement;
 		for( Entry<String, ValueVector> entry : value.children().entrySet() ) {
 			if ( !entry.getKey().startsWith( "@" ) ) {
@@ -298,7 +306,7 @@ public class XmlUtils
 	public static Map< String, ValueVector > getAttributesOrNull( Value value )
 	{
 		Map< String, ValueVector > ret = null;
-		ValueVector vec = value.children().get( Constants.Predefined.ATTRIBUTES.token().content() );
+		ValueVector vec = value.getChildrenOrNull( Constants.Predefined.ATTRIBUTES.token().content() );
 		if ( vec != null && vec.size() > 0 ) {
 			ret = vec.first().children();
 		}
@@ -110,6 +110,7 @@ public final class Constants
 	public static final String INPUT_PORTS_NODE_NAME = "inputPorts";
 	public static final String PROTOCOL_NODE_NAME = "protocol";
 	public static final String LOCATION_NODE_NAME = "location";
+	public static final String COPY_ON_WRITE_NODE_NAME = "copyOnWrite";
 	public static final String LOCAL_LOCATION_KEYWORD = "local";
 	public static final String LOCAL_INPUT_PORT_NAME = "LocalInputPort";
 	//public static String newLineString = System.getProperty( "line.separator" );
@@ -0,0 +1,53 @@
+/***************************************************************************
+ *   Copyright (C) by Fabrizio Montesi                                     *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU Library General Public License as       *
+ *   published by the Free Software Foundation; either version 2 of the    *
+ *   License, or (at your option) any later version.                       *
+ *                                                                         *
+ *   This program is distributed in the hope that it will be useful,       *
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of        *
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the         *
+ *   GNU General Public License for more details.                          *
+ *                                                                         *
+ *   You should have received a copy of the GNU Library General Public     *
+ *   License along with this program; if not, write to the                 *
+ *   Free Software Foundation, Inc.,                                       *
+ *   59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.             *
+ *                                                                         *
+ *   For details about the authors of this software, see the AUTHORS file. *
+ ***************************************************************************/
+
+package joliex.gwt.client;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.rpc.RemoteService;
+import com.google.gwt.user.client.rpc.RemoteServiceRelativePath;
+
+@RemoteServiceRelativePath("JolieService")
+public interface JolieService extends RemoteService
+{
+	/**
+	 * Utility class for simplifying access to the instance of async service.
+	 */
+	public static class Util {
+		private static JolieServiceAsync instance;
+		public static JolieServiceAsync getInstance() {
+			if ( instance == null ) {
+				instance = (JolieServiceAsync)GWT.create( JolieService.class );
+			}
+			return instance;
+		}
+	}
+
+	/**
+	 * Performs a Request-Response operation call.
+	 * @param operationName the operation to invoke
+	 * @param value the request data
+	 * @return the response data
+	 * @throws joliex.gwt.client.FaultException
+	 */
+	public Value call( String operationName, Value value )
+		throws FaultException;
+}